@@ -0,0 +1,72 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shape of the synthetic documents the benchmarks run on. The parameters are
+ * overridden from the command line, e.g. -p depth=5 -p fanOut=4.
+ *
+ * Every benchmark reports its throughput and, in the sample time mode, the
+ * latency percentiles. The runner adds the GC profiler, which reports the
+ * bytes allocated per operation as gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractModelBenchmark {
+
+	@Param("4")
+	public int depth;
+
+	@Param("8")
+	public int fanOut;
+
+	@Param("0.5")
+	public double idDensity;
+
+	@Param("4")
+	public int idRefsSize;
+
+	@Param({ "0", "4" })
+	public int inheritanceDepth;
+
+	protected ModelGenerator.Builder modelGenerator() {
+		return ModelGenerator.builder().depth(depth).fanOut(fanOut).idDensity(idDensity).idRefsSize(idRefsSize)
+				.inheritanceDepth(inheritanceDepth);
+	}
+}
@@ -0,0 +1,77 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.otcframework.jaxb.benchmarks.model.BenchmarkDocument;
+import org.otcframework.jaxb.impl.JaxbIdRefResolverImpl;
+
+/**
+ * Resolver configured for the synthetic model, the way a container would
+ * configure it.
+ */
+final class BenchmarkJaxbIdRefResolver extends JaxbIdRefResolverImpl<BenchmarkDocument> {
+
+	private BenchmarkJaxbIdRefResolver(boolean singlePassResolve,
+			String xmlGregorianCalendarPolicies, boolean compactIdIndex, String compiledMetadataCacheFile) {
+		this.fixXmlIdRefFields = Boolean.TRUE;
+		this.singlePassResolve = singlePassResolve;
+		this.xmlGregorianCalendarPolicies = xmlGregorianCalendarPolicies;
+		this.compactIdIndex = compactIdIndex;
+		this.compiledMetadataCacheFile = compiledMetadataCacheFile;
+		setCompileClasses(new ArrayList<>());
+		setFilteredPackages(Collections.singleton(BenchmarkDocument.class.getPackage().getName()));
+	}
+
+	/**
+	 * Creates and initializes the resolver.
+	 *
+	 * @param xmlGregorianCalendarPolicies the XMLGregorianCalendar policies, or
+	 *        null to leave the calendars as they are
+	 */
+	static BenchmarkJaxbIdRefResolver create(boolean singlePassResolve,
+			String xmlGregorianCalendarPolicies) {
+		return create(singlePassResolve, xmlGregorianCalendarPolicies, false);
+	}
+
+	static BenchmarkJaxbIdRefResolver create(boolean singlePassResolve,
+			String xmlGregorianCalendarPolicies, boolean compactIdIndex) {
+		return create(singlePassResolve, xmlGregorianCalendarPolicies, compactIdIndex, null);
+	}
+
+	/**
+	 * Creates and initializes the resolver.
+	 *
+	 * @param compiledMetadataCacheFile the compiled metadata cache file, or null
+	 *        to compile without it
+	 */
+	static BenchmarkJaxbIdRefResolver create(boolean singlePassResolve,
+			String xmlGregorianCalendarPolicies, boolean compactIdIndex, String compiledMetadataCacheFile) {
+		BenchmarkJaxbIdRefResolver jaxbIdRefResolver = new BenchmarkJaxbIdRefResolver(singlePassResolve,
+				xmlGregorianCalendarPolicies, compactIdIndex, compiledMetadataCacheFile);
+		jaxbIdRefResolver.initialize();
+		return jaxbIdRefResolver;
+	}
+}
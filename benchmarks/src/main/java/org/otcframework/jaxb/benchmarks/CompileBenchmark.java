@@ -0,0 +1,108 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.otcframework.jaxb.CompiledStatus;
+import org.otcframework.jaxb.benchmarks.model.BenchmarkDocument;
+
+/**
+ * Compiles the synthetic model on a new resolver for every operation, with the
+ * element class 'inheritanceDepth' levels deep. The allocations reported
+ * include creating the resolver.
+ *
+ * With 'compiledMetadataCache' each resolver loads a compiled metadata cache
+ * file written once per trial, which measures a restart with a warm cache
+ * against reading the model by reflection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileBenchmark {
+
+	@Param({ "0", "4" })
+	public int inheritanceDepth;
+
+	@Param({ "false", "true" })
+	public boolean compiledMetadataCache;
+
+	private Class<?> elementType;
+	private Path compiledMetadataCacheFile;
+	private BenchmarkJaxbIdRefResolver jaxbIdRefResolver;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		elementType = ModelGenerator.elementType(inheritanceDepth);
+		if (compiledMetadataCache) {
+			compiledMetadataCacheFile = Files.createTempFile("jaxb-id-resolver-benchmark", ".cache");
+			Files.delete(compiledMetadataCacheFile);
+			BenchmarkJaxbIdRefResolver warmJaxbIdRefResolver = BenchmarkJaxbIdRefResolver.create(false, null,
+					false, compiledMetadataCacheFile.toString());
+			warmJaxbIdRefResolver.compile(BenchmarkDocument.class);
+			warmJaxbIdRefResolver.compile(elementType);
+			warmJaxbIdRefResolver.saveCompiledMetadataCache();
+		}
+		return;
+	}
+
+	@Setup(Level.Invocation)
+	public void createResolver() {
+		jaxbIdRefResolver = BenchmarkJaxbIdRefResolver.create(false, null, false,
+				compiledMetadataCache ? compiledMetadataCacheFile.toString() : null);
+		return;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		if (compiledMetadataCacheFile != null) {
+			Files.deleteIfExists(compiledMetadataCacheFile);
+		}
+		return;
+	}
+
+	@Benchmark
+	public CompiledStatus compile() {
+		jaxbIdRefResolver.compile(BenchmarkDocument.class);
+		return jaxbIdRefResolver.compile(elementType);
+	}
+}
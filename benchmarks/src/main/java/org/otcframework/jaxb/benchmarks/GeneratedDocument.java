@@ -0,0 +1,131 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.otcframework.jaxb.benchmarks.model.BenchmarkDocument;
+import org.otcframework.jaxb.benchmarks.model.Element;
+
+/**
+ * A generated document with the values it was generated with, so it can be
+ * put back in its raw state after each operation. Resetting writes the
+ * original references back without allocating, so it does not show up in the
+ * allocations reported by the GC profiler.
+ */
+public final class GeneratedDocument {
+
+	private final BenchmarkDocument document;
+	private final Element[] elements;
+	private final String[] xmlIds;
+	private final Object[] refs;
+	private final List<Object>[] refLists;
+	private final Object[][] refListMembers;
+	private final XMLGregorianCalendar created;
+	private final int createdTimezone;
+	private final BigDecimal createdFractionalSecond;
+	private final XMLGregorianCalendar[] timestamps;
+	private final int[] timezones;
+	private final BigDecimal[] fractionalSeconds;
+
+	@SuppressWarnings("unchecked")
+	GeneratedDocument(BenchmarkDocument document, List<Element> elements) {
+		this.document = document;
+		int size = elements.size();
+		this.elements = elements.toArray(new Element[size]);
+		this.xmlIds = new String[size];
+		this.refs = new Object[size];
+		this.refLists = new List[size];
+		this.refListMembers = new Object[size][];
+		this.timestamps = new XMLGregorianCalendar[size];
+		this.timezones = new int[size];
+		this.fractionalSeconds = new BigDecimal[size];
+		for (int idx = 0; idx < size; idx++) {
+			Element element = this.elements[idx];
+			xmlIds[idx] = element.getId();
+			refs[idx] = element.getRef();
+			refLists[idx] = element.getRefs();
+			if (refLists[idx] != null) {
+				refListMembers[idx] = refLists[idx].toArray();
+			}
+			timestamps[idx] = element.getTimestamp();
+			timezones[idx] = timestamps[idx].getTimezone();
+			fractionalSeconds[idx] = timestamps[idx].getFractionalSecond();
+		}
+		this.created = document.getCreated();
+		this.createdTimezone = created.getTimezone();
+		this.createdFractionalSecond = created.getFractionalSecond();
+	}
+
+	public BenchmarkDocument getDocument() {
+		return document;
+	}
+
+	public int getElementCount() {
+		return elements.length;
+	}
+
+	public int getXmlIdCount() {
+		int count = 0;
+		for (String xmlId : xmlIds) {
+			if (xmlId != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Puts the IDs, the raw IDREF values and the calendars back the way they were
+	 * generated.
+	 *
+	 * @return the document
+	 */
+	public BenchmarkDocument reset() {
+		for (int idx = 0; idx < elements.length; idx++) {
+			Element element = elements[idx];
+			element.setId(xmlIds[idx]);
+			element.setRef(refs[idx]);
+			List<Object> refList = refLists[idx];
+			if (refList != null) {
+				Object[] members = refListMembers[idx];
+				for (int memberIdx = 0; memberIdx < members.length; memberIdx++) {
+					refList.set(memberIdx, members[memberIdx]);
+				}
+			}
+			element.setRefs(refList);
+			element.setTimestamp(reset(timestamps[idx], timezones[idx], fractionalSeconds[idx]));
+		}
+		document.setCreated(reset(created, createdTimezone, createdFractionalSecond));
+		return document;
+	}
+
+	private static XMLGregorianCalendar reset(XMLGregorianCalendar calendar, int timezone, BigDecimal fractionalSecond) {
+		calendar.setTimezone(timezone);
+		calendar.setFractionalSecond(fractionalSecond);
+		return calendar;
+	}
+}
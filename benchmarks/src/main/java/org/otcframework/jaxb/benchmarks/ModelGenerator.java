@@ -0,0 +1,232 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.otcframework.jaxb.benchmarks.model.BenchmarkDocument;
+import org.otcframework.jaxb.benchmarks.model.DerivedElement1;
+import org.otcframework.jaxb.benchmarks.model.DerivedElement2;
+import org.otcframework.jaxb.benchmarks.model.DerivedElement3;
+import org.otcframework.jaxb.benchmarks.model.DerivedElement4;
+import org.otcframework.jaxb.benchmarks.model.Element;
+
+/**
+ * Generates synthetic documents shaped by the benchmark parameters.
+ *
+ * The document has 'fanOut' top level elements, and every element above
+ * 'depth' has 'fanOut' children, so a document holds fanOut + fanOut^2 + ... +
+ * fanOut^depth elements. An element gets an ID with the probability
+ * 'idDensity'. Once all the IDs are known, every element gets an IDREF and an
+ * IDREFS list of 'idRefsSize' IDs, picked at random. All the elements are
+ * instances of the class 'inheritanceDepth' levels below {@link Element}. The
+ * IDs start with 'idPrefix', if it is set.
+ *
+ * The same seed generates the same document.
+ */
+public final class ModelGenerator {
+
+	public static final int MAX_INHERITANCE_DEPTH = 4;
+	private static final int[] TIMEZONES = { -300, 0, 60, 330 };
+
+	private final int depth;
+	private final int fanOut;
+	private final double idDensity;
+	private final int idRefsSize;
+	private final int inheritanceDepth;
+	private final long seed;
+	private final String idPrefix;
+	private final DatatypeFactory datatypeFactory;
+
+	private ModelGenerator(Builder builder) {
+		if (builder.depth < 1 || builder.fanOut < 1) {
+			throw new IllegalArgumentException("Depth and fan-out must be at least 1.");
+		}
+		if (builder.inheritanceDepth < 0 || builder.inheritanceDepth > MAX_INHERITANCE_DEPTH) {
+			throw new IllegalArgumentException("Inheritance depth must be between 0 and " + MAX_INHERITANCE_DEPTH + ".");
+		}
+		this.depth = builder.depth;
+		this.fanOut = builder.fanOut;
+		this.idDensity = builder.idDensity;
+		this.idRefsSize = builder.idRefsSize;
+		this.inheritanceDepth = builder.inheritanceDepth;
+		this.seed = builder.seed;
+		this.idPrefix = builder.idPrefix;
+		try {
+			this.datatypeFactory = DatatypeFactory.newInstance();
+		} catch (DatatypeConfigurationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Gets the element class the given number of levels below {@link Element}.
+	 */
+	public static Class<? extends Element> elementType(int inheritanceDepth) {
+		switch (inheritanceDepth) {
+		case 0:
+			return Element.class;
+		case 1:
+			return DerivedElement1.class;
+		case 2:
+			return DerivedElement2.class;
+		case 3:
+			return DerivedElement3.class;
+		case 4:
+			return DerivedElement4.class;
+		default:
+			throw new IllegalArgumentException("Inheritance depth must be between 0 and " + MAX_INHERITANCE_DEPTH + ".");
+		}
+	}
+
+	public GeneratedDocument generate() {
+		Random random = new Random(seed);
+		List<Element> elements = new ArrayList<>();
+		List<String> xmlIds = new ArrayList<>();
+		BenchmarkDocument document = new BenchmarkDocument();
+		document.setCreated(newCalendar(random));
+		for (int idx = 0; idx < fanOut; idx++) {
+			document.getElements().add(newElement(1, random, elements, xmlIds));
+		}
+		if (!xmlIds.isEmpty()) {
+			for (Element element : elements) {
+				element.setRef(xmlIds.get(random.nextInt(xmlIds.size())));
+				if (idRefsSize > 0) {
+					List<Object> refs = new ArrayList<>(idRefsSize);
+					for (int idx = 0; idx < idRefsSize; idx++) {
+						refs.add(xmlIds.get(random.nextInt(xmlIds.size())));
+					}
+					element.setRefs(refs);
+				}
+			}
+		}
+		return new GeneratedDocument(document, elements);
+	}
+
+	private Element newElement(int level, Random random, List<Element> elements, List<String> xmlIds) {
+		Element element = newElement();
+		String name = "E" + elements.size();
+		elements.add(element);
+		element.setName(name);
+		if (random.nextDouble() < idDensity) {
+			String xmlId = idPrefix.concat(name);
+			element.setId(xmlId);
+			xmlIds.add(xmlId);
+		}
+		element.setTimestamp(newCalendar(random));
+		if (level < depth) {
+			for (int idx = 0; idx < fanOut; idx++) {
+				element.getChildren().add(newElement(level + 1, random, elements, xmlIds));
+			}
+		}
+		return element;
+	}
+
+	private Element newElement() {
+		switch (inheritanceDepth) {
+		case 1:
+			return new DerivedElement1();
+		case 2:
+			return new DerivedElement2();
+		case 3:
+			return new DerivedElement3();
+		case 4:
+			return new DerivedElement4();
+		default:
+			return new Element();
+		}
+	}
+
+	/**
+	 * Creates a calendar with milliseconds and one of a few timezones, so every
+	 * normalization policy has work to do.
+	 */
+	private XMLGregorianCalendar newCalendar(Random random) {
+		return datatypeFactory.newXMLGregorianCalendar(2000 + random.nextInt(30), 1 + random.nextInt(12),
+				1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000),
+				TIMEZONES[random.nextInt(TIMEZONES.length)]);
+	}
+
+	public static final class Builder {
+
+		private int depth = 4;
+		private int fanOut = 8;
+		private double idDensity = 0.5;
+		private int idRefsSize = 4;
+		private int inheritanceDepth;
+		private long seed = 42;
+		private String idPrefix = "";
+
+		private Builder() {
+		}
+
+		public Builder depth(int depth) {
+			this.depth = depth;
+			return this;
+		}
+
+		public Builder fanOut(int fanOut) {
+			this.fanOut = fanOut;
+			return this;
+		}
+
+		public Builder idDensity(double idDensity) {
+			this.idDensity = idDensity;
+			return this;
+		}
+
+		public Builder idRefsSize(int idRefsSize) {
+			this.idRefsSize = idRefsSize;
+			return this;
+		}
+
+		public Builder inheritanceDepth(int inheritanceDepth) {
+			this.inheritanceDepth = inheritanceDepth;
+			return this;
+		}
+
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		public Builder idPrefix(String idPrefix) {
+			this.idPrefix = idPrefix;
+			return this;
+		}
+
+		public ModelGenerator build() {
+			return new ModelGenerator(this);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.otcframework.jaxb.benchmarks.model.BenchmarkDocument;
+
+/**
+ * Prefixes the IDs and IDREFs of a raw document, and strips the prefix from a
+ * document generated with prefixed IDs. Both documents get their generated
+ * values back before every operation.
+ */
+public class PrefixBenchmark extends AbstractModelBenchmark {
+
+	private static final String THIRDPARTY_ID = "TP";
+	private static final String PREFIX = THIRDPARTY_ID + "-";
+
+	private BenchmarkJaxbIdRefResolver jaxbIdRefResolver;
+	private GeneratedDocument generatedDocument;
+	private GeneratedDocument prefixedDocument;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		jaxbIdRefResolver = BenchmarkJaxbIdRefResolver.create(false, null);
+		jaxbIdRefResolver.compile(BenchmarkDocument.class);
+		jaxbIdRefResolver.compile(ModelGenerator.elementType(inheritanceDepth));
+		generatedDocument = modelGenerator().build().generate();
+		prefixedDocument = modelGenerator().idPrefix(PREFIX).build().generate();
+		return;
+	}
+
+	@Setup(Level.Invocation)
+	public void resetDocuments() {
+		generatedDocument.reset();
+		prefixedDocument.reset();
+		return;
+	}
+
+	@Benchmark
+	public BenchmarkDocument prefixIds() {
+		return jaxbIdRefResolver.prefixIds(generatedDocument.getDocument(), THIRDPARTY_ID);
+	}
+
+	@Benchmark
+	public BenchmarkDocument stripPrefixInIds() {
+		return jaxbIdRefResolver.stripPrefixInIds(prefixedDocument.getDocument(), THIRDPARTY_ID);
+	}
+}
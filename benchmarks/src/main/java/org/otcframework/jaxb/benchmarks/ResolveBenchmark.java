@@ -0,0 +1,66 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.otcframework.jaxb.benchmarks.model.BenchmarkDocument;
+
+/**
+ * Resolves a document with the class plans compiled up front, in three passes
+ * or in a single pass, with either kind of ID index. The document gets its raw IDREF values back before
+ * every operation.
+ */
+public class ResolveBenchmark extends AbstractModelBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean singlePassResolve;
+
+	@Param({ "false", "true" })
+	public boolean compactIdIndex;
+
+	private BenchmarkJaxbIdRefResolver jaxbIdRefResolver;
+	private GeneratedDocument generatedDocument;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		jaxbIdRefResolver = BenchmarkJaxbIdRefResolver.create(singlePassResolve, null, compactIdIndex);
+		jaxbIdRefResolver.compile(BenchmarkDocument.class);
+		jaxbIdRefResolver.compile(ModelGenerator.elementType(inheritanceDepth));
+		generatedDocument = modelGenerator().build().generate();
+		return;
+	}
+
+	@Setup(Level.Invocation)
+	public void resetDocument() {
+		generatedDocument.reset();
+		return;
+	}
+
+	@Benchmark
+	public BenchmarkDocument resolve() {
+		return jaxbIdRefResolver.resolve(generatedDocument.getDocument());
+	}
+}
@@ -0,0 +1,65 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.otcframework.jaxb.benchmarks.model.BenchmarkDocument;
+
+/**
+ * Normalizes the XMLGregorianCalendar values of a document by one policy. The
+ * calendars get their generated timezones and fractional seconds back before
+ * every operation.
+ */
+public class XmlGregorianCalendarBenchmark extends AbstractModelBenchmark {
+
+	@Param({ "UNSET_TIMEZONE", "NORMALIZE_TO_UTC", "TRUNCATE_FRACTIONAL_SECONDS" })
+	public String xmlGregorianCalendarPolicies;
+
+	private BenchmarkJaxbIdRefResolver jaxbIdRefResolver;
+	private GeneratedDocument generatedDocument;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		jaxbIdRefResolver = BenchmarkJaxbIdRefResolver.create(false, xmlGregorianCalendarPolicies);
+		jaxbIdRefResolver.compile(BenchmarkDocument.class);
+		jaxbIdRefResolver.compile(ModelGenerator.elementType(inheritanceDepth));
+		generatedDocument = modelGenerator().build().generate();
+		return;
+	}
+
+	@Setup(Level.Invocation)
+	public void resetDocument() {
+		generatedDocument.reset();
+		return;
+	}
+
+	@Benchmark
+	public BenchmarkDocument fixXmlGregorianCalendarValues() {
+		BenchmarkDocument document = generatedDocument.getDocument();
+		jaxbIdRefResolver.fixXmlGregorianCalendarValues(document);
+		return document;
+	}
+}
@@ -0,0 +1,57 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Root of the synthetic documents, holding the top level elements.
+ */
+@XmlRootElement(name = "document")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class BenchmarkDocument {
+
+	protected XMLGregorianCalendar created;
+	protected List<Element> elements;
+
+	public XMLGregorianCalendar getCreated() {
+		return created;
+	}
+
+	public void setCreated(XMLGregorianCalendar created) {
+		this.created = created;
+	}
+
+	public List<Element> getElements() {
+		if (elements == null) {
+			elements = new ArrayList<>();
+		}
+		return elements;
+	}
+}
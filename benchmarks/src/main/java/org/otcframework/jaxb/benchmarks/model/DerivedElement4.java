@@ -0,0 +1,44 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks.model;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+
+/**
+ * Level 4 of the element hierarchy, adding a plain field the resolver has to
+ * skip when it compiles the class.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class DerivedElement4 extends DerivedElement3 {
+
+	protected String attribute4;
+
+	public String getAttribute4() {
+		return attribute4;
+	}
+
+	public void setAttribute4(String attribute4) {
+		this.attribute4 = attribute4;
+	}
+}
@@ -0,0 +1,104 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.benchmarks.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlList;
+import javax.xml.bind.annotation.XmlSeeAlso;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Element of the synthetic documents, with an optional ID, a single IDREF, an
+ * IDREFS list, a timestamp and child elements. The IDREF fields hold the raw ID
+ * strings, as they do after a JSON deserialization, until they are resolved.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlSeeAlso(DerivedElement1.class)
+public class Element {
+
+	@XmlID
+	@XmlAttribute
+	protected String id;
+	protected String name;
+	protected XMLGregorianCalendar timestamp;
+	@XmlIDREF
+	protected Object ref;
+	@XmlIDREF
+	@XmlList
+	protected List<Object> refs;
+	protected List<Element> children;
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public XMLGregorianCalendar getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(XMLGregorianCalendar timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	public Object getRef() {
+		return ref;
+	}
+
+	public void setRef(Object ref) {
+		this.ref = ref;
+	}
+
+	public List<Object> getRefs() {
+		return refs;
+	}
+
+	public void setRefs(List<Object> refs) {
+		this.refs = refs;
+	}
+
+	public List<Element> getChildren() {
+		if (children == null) {
+			children = new ArrayList<>();
+		}
+		return children;
+	}
+}
@@ -0,0 +1,124 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.jackson;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.otcframework.jaxb.impl.JaxbIdRefResolverImpl;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBase;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.type.ArrayType;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.type.MapType;
+
+/**
+ * Wraps the bean deserializers of the classes in the filtered packages. The
+ * deserializers of other beans, and of collections, arrays and maps, whose
+ * values can hold JAXB objects are wrapped as well, only to open the binding
+ * scope when they are the outermost value of the read, so a root container or
+ * a plain root object of JAXB objects is bound as one document.
+ */
+final class IdRefBeanDeserializerModifier extends BeanDeserializerModifier {
+
+	private static final long serialVersionUID = 1L;
+
+	private final JaxbIdRefResolverImpl<?> jaxbIdRefResolver;
+
+	IdRefBeanDeserializerModifier(JaxbIdRefResolverImpl<?> jaxbIdRefResolver) {
+		this.jaxbIdRefResolver = jaxbIdRefResolver;
+	}
+
+	@Override
+	public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription beanDesc,
+			JsonDeserializer<?> deserializer) {
+		if (!(deserializer instanceof BeanDeserializerBase)) {
+			return deserializer;
+		}
+		if (jaxbIdRefResolver.getPackagesFilter().isFilteredPackage(beanDesc.getBeanClass())) {
+			return new IdRefBindingDeserializer(deserializer, jaxbIdRefResolver, true);
+		}
+		return wrapHolder(config, beanDesc.getType(), deserializer);
+	}
+
+	@Override
+	public JsonDeserializer<?> modifyCollectionDeserializer(DeserializationConfig config, CollectionType type,
+			BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+		return wrapHolder(config, type, deserializer);
+	}
+
+	@Override
+	public JsonDeserializer<?> modifyArrayDeserializer(DeserializationConfig config, ArrayType valueType,
+			BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+		return wrapHolder(config, valueType, deserializer);
+	}
+
+	@Override
+	public JsonDeserializer<?> modifyMapDeserializer(DeserializationConfig config, MapType type,
+			BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+		return wrapHolder(config, type, deserializer);
+	}
+
+	private JsonDeserializer<?> wrapHolder(DeserializationConfig config, JavaType type,
+			JsonDeserializer<?> deserializer) {
+		if (holdsFilteredType(config, type, new HashSet<Class<?>>())) {
+			return new IdRefBindingDeserializer(deserializer, jaxbIdRefResolver, false);
+		}
+		return deserializer;
+	}
+
+	/**
+	 * Tells if a value of the type can hold a JAXB object, through the content
+	 * of a container or the properties of a bean. Properties declared as
+	 * {@code Object} are not followed.
+	 */
+	private boolean holdsFilteredType(DeserializationConfig config, JavaType type, Set<Class<?>> visitedClasses) {
+		if (type.isContainerType()) {
+			JavaType contentType = type.getContentType();
+			return contentType != null && (isFilteredType(contentType)
+					|| holdsFilteredType(config, contentType, visitedClasses));
+		}
+		Class<?> rawClass = type.getRawClass();
+		if (rawClass.isPrimitive() || rawClass.getName().startsWith("java.") || !visitedClasses.add(rawClass)) {
+			return false;
+		}
+		for (BeanPropertyDefinition property : config.introspect(type).findProperties()) {
+			JavaType propertyType = property.getPrimaryType();
+			if (propertyType != null && (isFilteredType(propertyType)
+					|| holdsFilteredType(config, propertyType, visitedClasses))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isFilteredType(JavaType type) {
+		return jaxbIdRefResolver.getPackagesFilter().isFilteredPackage(type.getRawClass());
+	}
+}
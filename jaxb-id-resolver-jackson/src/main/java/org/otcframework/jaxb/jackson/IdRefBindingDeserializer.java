@@ -0,0 +1,147 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.jackson;
+
+import java.io.IOException;
+
+import org.otcframework.jaxb.impl.IdRefBinder;
+import org.otcframework.jaxb.impl.JaxbIdRefResolverImpl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+
+/**
+ * Registers every object deserialized by the wrapped deserializer with the
+ * {@link IdRefBinder} of the read. The outermost wrapped deserializer of a read
+ * opens the binding scope of the read in the per-call attributes of the
+ * context and binds it once its value is complete, so every JAXB object of the
+ * read shares one binder, including the elements of a root collection and the
+ * JAXB objects held by a plain root object. The binder is only created once a
+ * JAXB object is registered. Plain, typed and updating reads are all
+ * registered.
+ */
+final class IdRefBindingDeserializer extends DelegatingDeserializer {
+
+	private static final long serialVersionUID = 1L;
+
+	private final JaxbIdRefResolverImpl<?> jaxbIdRefResolver;
+	private final boolean isRegistering;
+
+	/**
+	 * @param isRegistering true if the deserializer reads JAXB objects, false if
+	 *        it only reads objects or containers that can hold them
+	 */
+	IdRefBindingDeserializer(JsonDeserializer<?> deserializer, JaxbIdRefResolverImpl<?> jaxbIdRefResolver,
+			boolean isRegistering) {
+		super(deserializer);
+		this.jaxbIdRefResolver = jaxbIdRefResolver;
+		this.isRegistering = isRegistering;
+	}
+
+	@Override
+	protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+		return new IdRefBindingDeserializer(newDelegatee, jaxbIdRefResolver, isRegistering);
+	}
+
+	@Override
+	public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+		return deserializeAndRegister(ctxt, () -> super.deserialize(p, ctxt));
+	}
+
+	@Override
+	public Object deserialize(JsonParser p, DeserializationContext ctxt, Object intoValue) throws IOException {
+		return deserializeAndRegister(ctxt, () -> super.deserialize(p, ctxt, intoValue));
+	}
+
+	@Override
+	public Object deserializeWithType(JsonParser p, DeserializationContext ctxt, TypeDeserializer typeDeserializer)
+			throws IOException {
+		return deserializeAndRegister(ctxt, () -> super.deserializeWithType(p, ctxt, typeDeserializer));
+	}
+
+	/**
+	 * Runs the read of the delegate and registers its value, opening and then
+	 * binding the scope of the read if no outer deserializer has opened it.
+	 */
+	private Object deserializeAndRegister(DeserializationContext ctxt, Deserialization deserialization)
+			throws IOException {
+		IdRefBindingScope idRefBindingScope = (IdRefBindingScope) ctxt.getAttribute(IdRefBindingScope.class);
+		if (idRefBindingScope != null) {
+			return register(idRefBindingScope, deserialization.deserialize());
+		}
+		idRefBindingScope = new IdRefBindingScope(jaxbIdRefResolver);
+		ctxt.setAttribute(IdRefBindingScope.class, idRefBindingScope);
+		try {
+			Object value = register(idRefBindingScope, deserialization.deserialize());
+			idRefBindingScope.bind();
+			return value;
+		} finally {
+			ctxt.setAttribute(IdRefBindingScope.class, null);
+		}
+	}
+
+	private Object register(IdRefBindingScope idRefBindingScope, Object value) {
+		if (isRegistering) {
+			idRefBindingScope.fetchIdRefBinder().register(value);
+		}
+		return value;
+	}
+
+	/**
+	 * A read of the delegate deserializer.
+	 */
+	private interface Deserialization {
+
+		Object deserialize() throws IOException;
+	}
+
+	/**
+	 * The binder of a read, created when the first JAXB object is registered.
+	 */
+	private static final class IdRefBindingScope {
+
+		private final JaxbIdRefResolverImpl<?> jaxbIdRefResolver;
+		private IdRefBinder idRefBinder;
+
+		private IdRefBindingScope(JaxbIdRefResolverImpl<?> jaxbIdRefResolver) {
+			this.jaxbIdRefResolver = jaxbIdRefResolver;
+		}
+
+		private IdRefBinder fetchIdRefBinder() {
+			if (idRefBinder == null) {
+				idRefBinder = jaxbIdRefResolver.createIdRefBinder();
+			}
+			return idRefBinder;
+		}
+
+		private void bind() {
+			if (idRefBinder != null) {
+				idRefBinder.bind();
+			}
+			return;
+		}
+	}
+}
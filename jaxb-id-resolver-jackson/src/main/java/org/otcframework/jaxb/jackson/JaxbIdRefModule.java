@@ -0,0 +1,49 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.jackson;
+
+import org.otcframework.jaxb.impl.JaxbIdRefResolverImpl;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Jackson module resolving the IDREF fields of JAXB objects while they are
+ * deserialized, instead of calling {@link JaxbIdRefResolverImpl#resolve(Object)}
+ * on the result.
+ *
+ * Every object of a class in the filtered packages is registered with an
+ * {@link org.otcframework.jaxb.impl.IdRefBinder} as soon as it is
+ * deserialized, and the IDREF fields are bound once, when the outermost value
+ * of the read is complete. That value is a JAXB object, or a collection, array,
+ * map or plain object that holds JAXB objects. The resolver's settings apply
+ * as they do for a single-pass resolve.
+ */
+public class JaxbIdRefModule extends SimpleModule {
+
+	private static final long serialVersionUID = 1L;
+
+	public JaxbIdRefModule(JaxbIdRefResolverImpl<?> jaxbIdRefResolver) {
+		super(JaxbIdRefModule.class.getSimpleName());
+		setDeserializerModifier(new IdRefBeanDeserializerModifier(jaxbIdRefResolver));
+	}
+}
@@ -0,0 +1,165 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.jackson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlList;
+
+import org.junit.Test;
+import org.otcframework.jaxb.impl.JaxbIdRefResolverImpl;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads JSON documents with the module and checks that the IDREFs are bound
+ * across the whole read, whether its root is a JAXB object, a container of
+ * JAXB objects or a plain object holding them.
+ */
+public class JaxbIdRefModuleTest {
+
+	private final ObjectMapper objectMapper = createObjectMapper();
+
+	@Test
+	public void forwardReferencesAreBound() throws Exception {
+		JaxbDocument document = objectMapper.readValue(
+				"{'items':[{'id':'I0','ref':'I1'},{'id':'I1'}]}".replace('\'', '"'), JaxbDocument.class);
+		assertSame(document.items.get(1), document.items.get(0).ref);
+		return;
+	}
+
+	@Test
+	public void backwardReferencesAreBound() throws Exception {
+		JaxbDocument document = objectMapper.readValue(
+				"{'items':[{'id':'I0'},{'id':'I1','ref':'I0'}]}".replace('\'', '"'), JaxbDocument.class);
+		assertSame(document.items.get(0), document.items.get(1).ref);
+		return;
+	}
+
+	@Test
+	public void idRefsListsAreBound() throws Exception {
+		JaxbDocument document = objectMapper.readValue(
+				"{'items':[{'id':'I0','refs':['I1 I2']},{'id':'I1','refs':['I0']},{'id':'I2'}]}".replace('\'', '"'),
+				JaxbDocument.class);
+		List<JaxbItem> items = document.items;
+		assertEquals(Arrays.<Object>asList(items.get(1), items.get(2)), items.get(0).refs);
+		assertEquals(Arrays.<Object>asList(items.get(0)), items.get(1).refs);
+		return;
+	}
+
+	@Test
+	public void rootArraysAreBoundAsOneDocument() throws Exception {
+		JaxbItem[] items = objectMapper.readValue("[{'id':'I0','ref':'I1'},{'id':'I1','refs':['I0']}]"
+				.replace('\'', '"'), JaxbItem[].class);
+		assertSame(items[1], items[0].ref);
+		assertEquals(Arrays.<Object>asList(items[0]), items[1].refs);
+		return;
+	}
+
+	@Test
+	public void rootCollectionsAreBoundAsOneDocument() throws Exception {
+		List<JaxbItem> items = objectMapper.readValue("[{'id':'I0','ref':'I1'},{'id':'I1','ref':'I0'}]"
+				.replace('\'', '"'), new TypeReference<List<JaxbItem>>() {
+				});
+		assertSame(items.get(1), items.get(0).ref);
+		assertSame(items.get(0), items.get(1).ref);
+		return;
+	}
+
+	@Test
+	public void rootMapsAreBoundAsOneDocument() throws Exception {
+		Map<String, List<JaxbItem>> items = objectMapper.readValue(
+				"{'a':[{'id':'I0','ref':'I1'}],'b':[{'id':'I1','refs':['I0']}]}".replace('\'', '"'),
+				new TypeReference<Map<String, List<JaxbItem>>>() {
+				});
+		assertSame(items.get("b").get(0), items.get("a").get(0).ref);
+		assertEquals(Arrays.<Object>asList(items.get("a").get(0)), items.get("b").get(0).refs);
+		return;
+	}
+
+	/**
+	 * The JAXB objects held by the fields of a plain root object reference each
+	 * other, so they are bound by the binder of the root object.
+	 */
+	@Test
+	public void jaxbObjectsUnderPlainObjectsAreBoundAsOneDocument() throws Exception {
+		Envelope envelope = objectMapper.readValue(
+				("{'header':{'id':'H0','ref':'I1'},'body':{'items':[{'id':'I0','ref':'H0'},{'id':'I1'}]},"
+						+ "'attachments':[{'id':'A0','refs':['H0 I0']}]}").replace('\'', '"'),
+				Envelope.class);
+		List<JaxbItem> items = envelope.body.items;
+		assertSame(items.get(1), envelope.header.ref);
+		assertSame(envelope.header, items.get(0).ref);
+		assertEquals(Arrays.<Object>asList(envelope.header, items.get(0)), envelope.attachments.get(0).refs);
+		return;
+	}
+
+	private static ObjectMapper createObjectMapper() {
+		JaxbIdRefResolverImpl<Object> resolver = new TestJaxbIdRefResolver();
+		resolver.setFilteredPackages(Collections.singleton(JaxbIdRefModuleTest.class.getName() + "$Jaxb*"));
+		resolver.setCompileClasses(new ArrayList<String>());
+		resolver.initialize();
+		ObjectMapper objectMapper = new ObjectMapper();
+		objectMapper.setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+		objectMapper.registerModule(new JaxbIdRefModule(resolver));
+		return objectMapper;
+	}
+
+	static class TestJaxbIdRefResolver extends JaxbIdRefResolverImpl<Object> {
+		TestJaxbIdRefResolver() {
+			fixXmlIdRefFields = Boolean.TRUE;
+		}
+	}
+
+	static class JaxbDocument {
+		protected List<JaxbItem> items = new ArrayList<>();
+	}
+
+	static class JaxbItem {
+		@XmlID
+		protected String id;
+		@XmlIDREF
+		protected Object ref;
+		@XmlIDREF
+		@XmlList
+		protected List<Object> refs = new ArrayList<>();
+	}
+
+	static class Envelope {
+		protected JaxbItem header;
+		protected JaxbDocument body;
+		protected List<JaxbItem> attachments = new ArrayList<>();
+	}
+}
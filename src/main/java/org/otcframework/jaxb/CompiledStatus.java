@@ -1,49 +1,99 @@
-/**
-* Copyright (c) otcframework.org
-*
-* @author  Franklin J Abel (frank.a.otc@gmail.com)
-* @version 1.0
-* @since   2022-08-31 
-*
-* This file is part of the OTC framework's JAXB ID Resolver project.
-* 
-* Licensed under the Apache License, Version 2.0 (the "License");
-* you may not use this file except in compliance with the License.
-* You may obtain a copy of the License at
-*
-*      https://www.apache.org/licenses/LICENSE-2.0
-*
-* Unless required by applicable law or agreed to in writing, software
-* distributed under the License is distributed on an "AS IS" BASIS,
-* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-* See the License for the specific language governing permissions and
-* limitations under the License.
-*
-*/
-package org.otcframework.jaxb;
-
-public class CompiledStatus {
-	private boolean xmlGregorianCalendarFieldExists;
-	private boolean xmlIdFieldExists;
-	private boolean xmlIdRefFieldExists;
-	
-	public boolean isXmlGregorianCalendarFieldExists() {
-		return xmlGregorianCalendarFieldExists;
-	}
-	public void setXmlGregorianCalendarFieldExists(
-			boolean xmlGregorianCalendarFieldExists) {
-		this.xmlGregorianCalendarFieldExists = xmlGregorianCalendarFieldExists;
-	}
-	public boolean isXmlIdFieldExists() {
-		return xmlIdFieldExists;
-	}
-	public void setXmlIdFieldExists(boolean xmlIdFieldExists) {
-		this.xmlIdFieldExists = xmlIdFieldExists;
-	}
-	public boolean isXmlIdRefFieldExists() {
-		return xmlIdRefFieldExists;
-	}
-	public void setXmlIdRefFieldExists(boolean xmlIdRefFieldExists) {
-		this.xmlIdRefFieldExists = xmlIdRefFieldExists;
-	}
-}
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb;
+
+import java.util.Map;
+
+public class CompiledStatus {
+	public static final int XML_ID = 1;
+	public static final int XML_IDREF = 2;
+	public static final int XML_GREGORIAN_CALENDAR = 4;
+
+	/**
+	 * How a compiled field is read and written: through the accessors generated
+	 * at build time, or through method handles.
+	 */
+	public enum FieldAccessorType {
+		PRECOMPILED, METHOD_HANDLE
+	}
+
+	private boolean xmlGregorianCalendarFieldExists;
+	private boolean xmlIdFieldExists;
+	private boolean xmlIdRefFieldExists;
+	private int status;
+	private Map<String, Integer> fieldStatuses;
+	private Map<String, FieldAccessorType> fieldAccessorTypes;
+	
+	public boolean isXmlGregorianCalendarFieldExists() {
+		return xmlGregorianCalendarFieldExists;
+	}
+	public void setXmlGregorianCalendarFieldExists(
+			boolean xmlGregorianCalendarFieldExists) {
+		this.xmlGregorianCalendarFieldExists = xmlGregorianCalendarFieldExists;
+	}
+	public boolean isXmlIdFieldExists() {
+		return xmlIdFieldExists;
+	}
+	public void setXmlIdFieldExists(boolean xmlIdFieldExists) {
+		this.xmlIdFieldExists = xmlIdFieldExists;
+	}
+	public boolean isXmlIdRefFieldExists() {
+		return xmlIdRefFieldExists;
+	}
+	public void setXmlIdRefFieldExists(boolean xmlIdRefFieldExists) {
+		this.xmlIdRefFieldExists = xmlIdRefFieldExists;
+	}
+	/**
+	 * Bits of {@link #XML_ID}, {@link #XML_IDREF} and
+	 * {@link #XML_GREGORIAN_CALENDAR} found anywhere in the compiled class.
+	 */
+	public int getStatus() {
+		return status;
+	}
+	public void setStatus(int status) {
+		this.status = status;
+	}
+	/**
+	 * The bits of each relevant field of the class and its superclasses, keyed
+	 * by declaring class and field name. The bits of a child field are those
+	 * found anywhere below it, and passes skip the child fields that lack the
+	 * bits they look for.
+	 */
+	public Map<String, Integer> getFieldStatuses() {
+		return fieldStatuses;
+	}
+	public void setFieldStatuses(Map<String, Integer> fieldStatuses) {
+		this.fieldStatuses = fieldStatuses;
+	}
+	/**
+	 * The accessor type of each relevant field, keyed like
+	 * {@link #getFieldStatuses()}. Fields of classes without metadata generated
+	 * at build time are reported as {@link FieldAccessorType#METHOD_HANDLE}.
+	 */
+	public Map<String, FieldAccessorType> getFieldAccessorTypes() {
+		return fieldAccessorTypes;
+	}
+	public void setFieldAccessorTypes(Map<String, FieldAccessorType> fieldAccessorTypes) {
+		this.fieldAccessorTypes = fieldAccessorTypes;
+	}
+}
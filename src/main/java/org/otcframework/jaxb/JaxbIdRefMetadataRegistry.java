@@ -0,0 +1,57 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Receives the metadata registered by a {@link JaxbIdRefMetadata}.
+ */
+public interface JaxbIdRefMetadataRegistry {
+
+	/**
+	 * Registers a described class. Its fields that are not added are of no
+	 * interest to the resolver.
+	 */
+	void addClass(Class<?> type);
+
+	/**
+	 * Registers a field of a described class, in declaration order.
+	 *
+	 * @param declaringClass the declaring class
+	 * @param name the field name
+	 * @param fieldType the erased type of the field
+	 * @param componentType the type of the objects the field holds, which is the
+	 *        component type of arrays and the type argument of lists, or null
+	 * @param xmlId true if the field is annotated with XmlID
+	 * @param xmlIdRef true if the field is annotated with XmlIDREF or
+	 *        XmlElementRefs
+	 * @param getter reads the field, or null if it is not accessible to
+	 *        generated code
+	 * @param setter writes the field, or null if it is final or not accessible
+	 *        to generated code
+	 */
+	void addField(Class<?> declaringClass, String name, Class<?> fieldType, Class<?> componentType, boolean xmlId,
+			boolean xmlIdRef, Function<Object, Object> getter, BiConsumer<Object, Object> setter);
+}
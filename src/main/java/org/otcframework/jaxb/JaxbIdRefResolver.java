@@ -1,38 +1,117 @@
-/**
-* Copyright (c) otcframework.org
-*
-* @author  Franklin J Abel (frank.a.otc@gmail.com)
-* @version 1.0
-* @since   2022-08-31 
-*
-* This file is part of the OTC framework's JAXB ID Resolver project.
-* 
-* Licensed under the Apache License, Version 2.0 (the "License");
-* you may not use this file except in compliance with the License.
-* You may obtain a copy of the License at
-*
-*      https://www.apache.org/licenses/LICENSE-2.0
-*
-* Unless required by applicable law or agreed to in writing, software
-* distributed under the License is distributed on an "AS IS" BASIS,
-* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-* See the License for the specific language governing permissions and
-* limitations under the License.
-*
-*/
-package org.otcframework.jaxb;
-
-
-public interface JaxbIdRefResolver<T> {
-
-	public T resolve(T t);
-	
-	public T prefixIds(T parentObject, String thirdpartyId);
-	
-	public T stripPrefixInIds(T parentObject, String thirdpartyId);
-
-	void fixXmlGregorianCalendarValues(T parentObject);
-
-	CompiledStatus compile(Class<?> parentClass);
-}
-
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+public interface JaxbIdRefResolver<T> {
+
+	public T resolve(T t);
+
+	/**
+	 * Resolves the IDREF fields, presizing the ID index for the expected number
+	 * of IDs in the document instead of the estimate learnt from earlier
+	 * documents of the same class. Resolvers that do not presize an index
+	 * resolve the document as {@link #resolve(Object)} does.
+	 */
+	public default T resolve(T t, int expectedIdCount) {
+		return resolve(t);
+	}
+
+	/**
+	 * Resolves a batch of documents on the calling thread.
+	 *
+	 * @return the resolved documents, in the order of the collection
+	 */
+	public default List<T> resolveAll(Collection<T> parentObjects) {
+		return resolveAll(parentObjects, null);
+	}
+
+	/**
+	 * Resolves a batch of documents, spreading them over the executor. The call
+	 * returns once every document is resolved. Resolvers that can share work
+	 * across the batch override this, which by default resolves each document
+	 * as {@link #resolve(Object)} does.
+	 *
+	 * @param executor the executor, or null to resolve on the calling thread
+	 * @return the resolved documents, in the order of the collection
+	 */
+	public default List<T> resolveAll(Collection<T> parentObjects, Executor executor) {
+		if (parentObjects == null) {
+			return null;
+		}
+		List<T> resolvedObjects = new ArrayList<>(parentObjects.size());
+		if (executor == null) {
+			for (T parentObject : parentObjects) {
+				resolvedObjects.add(resolve(parentObject));
+			}
+			return resolvedObjects;
+		}
+		List<CompletableFuture<T>> futures = new ArrayList<>(parentObjects.size());
+		for (T parentObject : parentObjects) {
+			futures.add(CompletableFuture.supplyAsync(() -> resolve(parentObject), executor));
+		}
+		for (CompletableFuture<T> future : futures) {
+			resolvedObjects.add(future.join());
+		}
+		return resolvedObjects;
+	}
+
+	/**
+	 * Resolves the documents of the stream as they are consumed.
+	 */
+	public default Stream<T> resolveAll(Stream<T> parentObjects) {
+		return parentObjects.map(this::resolve);
+	}
+	
+	/**
+	 * Prefixes the IDs of the document with the third party ID and a hyphen,
+	 * in the ID fields and in the IDREF fields that are not bound yet.
+	 */
+	public T prefixIds(T parentObject, String thirdpartyId);
+	
+	/**
+	 * Strips the prefix of the third party from the start of the IDs of the
+	 * document, in the ID fields and in the IDREF fields that are not bound yet.
+	 */
+	public T stripPrefixInIds(T parentObject, String thirdpartyId);
+
+	/**
+	 * Prefixes the IDs of the document as {@link #prefixIds} does and resolves
+	 * it. Resolvers that can do both in one walk override this, which by
+	 * default prefixes and then resolves.
+	 */
+	public default T prefixIdsAndResolve(T parentObject, String thirdpartyId) {
+		return resolve(prefixIds(parentObject, thirdpartyId));
+	}
+
+	void fixXmlGregorianCalendarValues(T parentObject);
+
+	CompiledStatus compile(Class<?> parentClass);
+}
+
@@ -0,0 +1,45 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb;
+
+import java.util.List;
+
+/**
+ * The IDs and IDREF bindings found by a resolve. Both lookups are answered from
+ * indexes built while resolving, without traversing the document again.
+ */
+public interface ResolveResult {
+
+	/**
+	 * Gets the object holding the ID in the document, or null if there is none.
+	 */
+	public Object getXmlIdObject(String xmlId);
+
+	public int getXmlIdCount();
+
+	/**
+	 * Gets the IDREF sites bound to the object, in document order, or an empty
+	 * list if nothing references it.
+	 */
+	public List<IdRefSite> getReferrers(Object target);
+}
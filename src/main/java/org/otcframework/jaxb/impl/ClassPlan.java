@@ -0,0 +1,209 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.otcframework.jaxb.CompiledStatus;
+
+/**
+ * Immutable traversal plan of a concrete JAXB class. The plan lists the relevant
+ * fields of the class and of all its superclasses in one array, so a pass over
+ * an object is a single loop without superclass walking or registry lookups.
+ *
+ * Plans are only published after they are fully built and linked, so they can
+ * be read from any thread without locking. The only mutable state is the
+ * estimate of the number of IDs in documents rooted at the class, which is a
+ * sizing hint and tolerates racing updates.
+ */
+final class ClassPlan {
+
+	static final int XML_ID = CompiledStatus.XML_ID;
+	static final int XML_IDREF = CompiledStatus.XML_IDREF;
+	static final int XML_GREGORIAN_CALENDAR = CompiledStatus.XML_GREGORIAN_CALENDAR;
+	static final int ALL = XML_ID | XML_IDREF | XML_GREGORIAN_CALENDAR;
+
+	private final Class<?> type;
+	private final int compiledStatus;
+	private final FieldPlan[] fieldPlans;
+	private final FieldPlan[][] passFieldPlans = new FieldPlan[ALL + 1][];
+	private volatile int expectedIdCount;
+
+	ClassPlan(Class<?> type, int compiledStatus, FieldPlan[] fieldPlans) {
+		this.type = type;
+		this.compiledStatus = compiledStatus;
+		this.fieldPlans = fieldPlans;
+		for (int status = 0; status <= ALL; status++) {
+			List<FieldPlan> statusFieldPlans = new ArrayList<>();
+			for (FieldPlan fieldPlan : fieldPlans) {
+				if ((fieldPlan.getStatus() & status) != 0) {
+					statusFieldPlans.add(fieldPlan);
+				}
+			}
+			passFieldPlans[status] = statusFieldPlans.size() == fieldPlans.length ? fieldPlans
+					: statusFieldPlans.toArray(new FieldPlan[statusFieldPlans.size()]);
+		}
+	}
+
+	Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * Bits of {@link #XML_ID}, {@link #XML_IDREF} and
+	 * {@link #XML_GREGORIAN_CALENDAR} found in the fields of this class or
+	 * anywhere below them.
+	 */
+	int getCompiledStatus() {
+		return compiledStatus;
+	}
+
+	FieldPlan[] getFieldPlans() {
+		return fieldPlans;
+	}
+
+	/**
+	 * The fields a pass looking for the status bits has to visit: the ID, IDREF
+	 * and XMLGregorianCalendar fields with one of the bits and the child fields
+	 * below which one of the bits can be found. The arrays are built with the
+	 * plan, so a pass does not test every field.
+	 */
+	FieldPlan[] getFieldPlans(int status) {
+		return passFieldPlans[status & ALL];
+	}
+
+	/**
+	 * Estimated number of IDs in a document rooted at this class, used to presize
+	 * the ID index.
+	 */
+	int getExpectedIdCount() {
+		return expectedIdCount;
+	}
+
+	/**
+	 * Folds the number of IDs found in a resolved document into the estimate. The
+	 * estimate grows to a larger count at once and decays slowly towards smaller
+	 * ones, so the index rarely has to grow while it is being filled.
+	 */
+	void updateExpectedIdCount(int idCount) {
+		int estimate = expectedIdCount;
+		if (idCount > estimate) {
+			expectedIdCount = idCount;
+		} else if (idCount < estimate) {
+			expectedIdCount = estimate - ((estimate - idCount + 7) >> 3);
+		}
+		return;
+	}
+
+	/**
+	 * Collects the fields declared by one class while a compile is in progress.
+	 * The statuses of child fields depend on the classes they lead to and are
+	 * only final once the whole class graph has been collected.
+	 */
+	static final class Builder {
+
+		private static final FieldPlan[] NO_FIELD_PLANS = new FieldPlan[0];
+
+		private final Class<?> type;
+		private final List<FieldAccessor> fields = new ArrayList<>();
+		private final List<Integer> fieldStatuses = new ArrayList<>();
+		private final List<Class<?>> childTypes = new ArrayList<>();
+		private int compiledStatus;
+
+		Builder(Class<?> type) {
+			this.type = type;
+		}
+
+		Class<?> getType() {
+			return type;
+		}
+
+		int getCompiledStatus() {
+			return compiledStatus;
+		}
+
+		void addField(FieldAccessor field, int fieldStatus) {
+			fields.add(field);
+			fieldStatuses.add(fieldStatus);
+			childTypes.add(null);
+			compiledStatus |= fieldStatus;
+		}
+
+		void addChildField(FieldAccessor field, Class<?> childType) {
+			fields.add(field);
+			fieldStatuses.add(0);
+			childTypes.add(childType);
+		}
+
+		int getFieldCount() {
+			return fields.size();
+		}
+
+		FieldAccessor getField(int idx) {
+			return fields.get(idx);
+		}
+
+		/**
+		 * The status of the field as it was added, or the merged child status once
+		 * the statuses are settled.
+		 */
+		int getFieldStatus(int idx) {
+			return fieldStatuses.get(idx);
+		}
+
+		Class<?> getChildType(int idx) {
+			return childTypes.get(idx);
+		}
+
+		/**
+		 * Merges the status reachable through a child field.
+		 *
+		 * @return true if the status of the field changed
+		 */
+		boolean updateChildStatus(int idx, int childStatus) {
+			int fieldStatus = fieldStatuses.get(idx);
+			if ((fieldStatus | childStatus) == fieldStatus) {
+				return false;
+			}
+			fieldStatuses.set(idx, fieldStatus | childStatus);
+			compiledStatus |= childStatus;
+			return true;
+		}
+
+		/**
+		 * Builds the plans of the declared fields, leaving out child fields that
+		 * lead to nothing relevant.
+		 */
+		FieldPlan[] buildFieldPlans() {
+			List<FieldPlan> fieldPlans = new ArrayList<>();
+			for (int idx = 0; idx < fields.size(); idx++) {
+				int fieldStatus = fieldStatuses.get(idx);
+				if (fieldStatus != 0) {
+					fieldPlans.add(new FieldPlan(fields.get(idx), fieldStatus, childTypes.get(idx)));
+				}
+			}
+			return fieldPlans.toArray(NO_FIELD_PLANS);
+		}
+	}
+}
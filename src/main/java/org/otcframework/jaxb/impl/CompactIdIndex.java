@@ -0,0 +1,271 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.Arrays;
+
+/**
+ * Index of the ID values of a document to the objects holding them, for
+ * documents with millions of IDs. The IDs and their objects are kept in dense
+ * arrays in the order they were added, and the open addressed table holds only
+ * the entry number of each ID plus one. Probes compare the hash code the ID
+ * string caches before comparing the strings.
+ *
+ * Compared to an index holding the ID, the object and the hash in every slot,
+ * every slot takes 4 bytes instead of 12 to 20, and the table is filled up to
+ * three quarters instead of half.
+ */
+final class CompactIdIndex extends IdIndex {
+
+	private static final int MIN_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private int[] slots;
+	private String[] keys;
+	private Object[] values;
+	private int size;
+	private int threshold;
+
+	CompactIdIndex(int expectedSize) {
+		allocateSlots(capacityFor(expectedSize));
+		allocateEntries(Math.max(expectedSize, MIN_CAPACITY));
+	}
+
+	@Override
+	IdIndex newIdIndex(int expectedSize) {
+		return new CompactIdIndex(expectedSize);
+	}
+
+	@Override
+	int size() {
+		return size;
+	}
+
+	@Override
+	int capacity() {
+		return slots.length;
+	}
+
+	@Override
+	void put(String key, Object value) {
+		int hash = key.hashCode();
+		int mask = slots.length - 1;
+		int idx = spread(hash) & mask;
+		int slot;
+		while ((slot = slots[idx]) != 0) {
+			String slotKey = keys[slot - 1];
+			if (slotKey.hashCode() == hash && slotKey.equals(key)) {
+				values[slot - 1] = value;
+				return;
+			}
+			idx = (idx + 1) & mask;
+		}
+		if (size == keys.length) {
+			growEntries();
+		}
+		keys[size] = key;
+		values[size] = value;
+		slots[idx] = ++size;
+		if (size > threshold) {
+			rehash(slots.length << 1);
+		}
+		return;
+	}
+
+	@Override
+	void putAll(IdIndex otherIndex) {
+		CompactIdIndex idIndex = (CompactIdIndex) otherIndex;
+		for (int entry = 0; entry < idIndex.size; entry++) {
+			put(idIndex.keys[entry], idIndex.values[entry]);
+		}
+		return;
+	}
+
+	@Override
+	Object get(String key) {
+		int hash = key.hashCode();
+		int mask = slots.length - 1;
+		int idx = spread(hash) & mask;
+		int slot;
+		while ((slot = slots[idx]) != 0) {
+			String slotKey = keys[slot - 1];
+			if (slotKey.hashCode() == hash && slotKey.equals(key)) {
+				return values[slot - 1];
+			}
+			idx = (idx + 1) & mask;
+		}
+		return null;
+	}
+
+	@Override
+	Object get(String value, int start, int end) {
+		int hash = hash(value, start, end);
+		int length = end - start;
+		int mask = slots.length - 1;
+		int idx = spread(hash) & mask;
+		int slot;
+		while ((slot = slots[idx]) != 0) {
+			String slotKey = keys[slot - 1];
+			if (slotKey.hashCode() == hash && slotKey.length() == length && slotKey.regionMatches(0, value, start, length)) {
+				return values[slot - 1];
+			}
+			idx = (idx + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the ID if it is mapped to the object. The slots after it in the
+	 * probe sequence are shifted back, and the last entry is moved into its
+	 * place, so the entries stay dense.
+	 */
+	@Override
+	boolean remove(String key, Object value) {
+		int idx = findSlot(key);
+		if (idx < 0) {
+			return false;
+		}
+		int entry = slots[idx] - 1;
+		if (values[entry] != value) {
+			return false;
+		}
+		deleteSlot(idx);
+		int last = size - 1;
+		if (entry != last) {
+			slots[findSlot(keys[last])] = entry + 1;
+			keys[entry] = keys[last];
+			values[entry] = values[last];
+		}
+		keys[last] = null;
+		values[last] = null;
+		size = last;
+		return true;
+	}
+
+	@Override
+	void clear(int expectedSize) {
+		int capacity = capacityFor(expectedSize);
+		if (capacity > slots.length) {
+			allocateSlots(capacity);
+			allocateEntries(expectedSize);
+			return;
+		}
+		if (size > 0) {
+			Arrays.fill(slots, 0);
+			Arrays.fill(keys, 0, size, null);
+			Arrays.fill(values, 0, size, null);
+			size = 0;
+		}
+		if (expectedSize > keys.length) {
+			allocateEntries(expectedSize);
+		}
+		return;
+	}
+
+	private int findSlot(String key) {
+		int hash = key.hashCode();
+		int mask = slots.length - 1;
+		int idx = spread(hash) & mask;
+		int slot;
+		while ((slot = slots[idx]) != 0) {
+			String slotKey = keys[slot - 1];
+			if (slotKey.hashCode() == hash && slotKey.equals(key)) {
+				return idx;
+			}
+			idx = (idx + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void deleteSlot(int idx) {
+		int mask = slots.length - 1;
+		int gap = idx;
+		int next = (gap + 1) & mask;
+		int slot;
+		while ((slot = slots[next]) != 0) {
+			int home = spread(keys[slot - 1].hashCode()) & mask;
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				slots[gap] = slot;
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		slots[gap] = 0;
+		return;
+	}
+
+	/**
+	 * Rebuilds the table from the entries, which do not move. The ID strings
+	 * cache their hash codes, so no ID is hashed again.
+	 */
+	private void rehash(int capacity) {
+		if (slots.length == MAX_CAPACITY) {
+			throw new IllegalStateException("Too many IDs to index.");
+		}
+		allocateSlots(capacity);
+		int mask = slots.length - 1;
+		for (int entry = 0; entry < size; entry++) {
+			int idx = spread(keys[entry].hashCode()) & mask;
+			while (slots[idx] != 0) {
+				idx = (idx + 1) & mask;
+			}
+			slots[idx] = entry + 1;
+		}
+		return;
+	}
+
+	private void growEntries() {
+		int length = keys.length;
+		int newLength = length + Math.max(length >> 1, MIN_CAPACITY);
+		keys = Arrays.copyOf(keys, newLength);
+		values = Arrays.copyOf(values, newLength);
+		return;
+	}
+
+	private void allocateSlots(int capacity) {
+		slots = new int[capacity];
+		threshold = capacity - (capacity >> 2);
+		return;
+	}
+
+	private void allocateEntries(int length) {
+		keys = new String[length];
+		values = new Object[length];
+		size = 0;
+		return;
+	}
+
+	/**
+	 * Tables are kept at most three quarters full.
+	 */
+	private static int capacityFor(int expectedSize) {
+		if (expectedSize >= MAX_CAPACITY - (MAX_CAPACITY >> 2)) {
+			return MAX_CAPACITY;
+		}
+		int capacity = MIN_CAPACITY;
+		while (capacity - (capacity >> 2) < expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
@@ -0,0 +1,420 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * File cache of the compiled shape of the JAXB classes, so a restart of the
+ * same artifact neither scans their fields by reflection nor works out again
+ * which of them the plans keep. Every class is stored with the fields its plan
+ * builder collected: the ID, IDREF and XMLGregorianCalendar fields with their
+ * status, and the child fields with their child type. The cached fields carry
+ * their modifiers, so the field accessors are created without looking the
+ * fields up.
+ *
+ * A class is stored with the last-modified time of its code source, the jar
+ * holding it or its class file in a directory, and a cached class is only used
+ * while that time is unchanged. A jar is only looked at once. The shape depends
+ * on the filtered packages and on whether XMLGregorianCalendar values are
+ * normalized, so the file records these settings and is ignored by a resolver
+ * with other ones.
+ *
+ * The file is read into memory in one go to load it, and holds no handle on it
+ * afterwards, so it can be replaced while the resolver runs. It is saved once
+ * in the background when the startup compilations are done and again on
+ * shutdown if lazy compiles added classes since it was last saved. The
+ * shutdown hook only holds the cache weakly, so it does not keep a discarded
+ * resolver's cache alive; classes such a cache added since its last save are
+ * compiled again on the next start. The file is written to a temporary file
+ * that is then moved over it, so readers never see a partially written file.
+ */
+final class CompiledMetadataCache {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CompiledMetadataCache.class);
+	private static final int MAGIC = 0x4A494452;
+	private static final int VERSION = 2;
+	private static final long NO_STAMP = -1;
+	private static final byte XML_ID = 1;
+	private static final byte XML_IDREF = 2;
+
+	private final Path path;
+	private final String settings;
+	private final ConcurrentMap<String, CachedClass> cachedClasses = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Long> jarStamps = new ConcurrentHashMap<>();
+	private final AtomicBoolean isSaveOnShutdown = new AtomicBoolean();
+	private volatile boolean isChanged;
+
+	/**
+	 * @param path the cache file
+	 * @param settings the resolver settings the cached shapes depend on
+	 */
+	CompiledMetadataCache(Path path, String settings) {
+		this.path = path;
+		this.settings = settings;
+	}
+
+	/**
+	 * Loads the file. A missing, foreign or damaged file, or one written with
+	 * other settings, leaves the cache empty.
+	 */
+	void load() {
+		if (!Files.isRegularFile(path)) {
+			isChanged = true;
+			return;
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				LOGGER.warn("Ignoring compiled metadata cache {} of another format.", path);
+				isChanged = true;
+				return;
+			}
+			if (!settings.equals(readString(buffer))) {
+				LOGGER.info("Ignoring compiled metadata cache {} written with other settings.", path);
+				isChanged = true;
+				return;
+			}
+			int classCount = buffer.getInt();
+			for (int classIdx = 0; classIdx < classCount; classIdx++) {
+				String className = readString(buffer);
+				long stamp = buffer.getLong();
+				int fieldCount = buffer.getInt();
+				StoredField[] storedFields = new StoredField[fieldCount];
+				for (int fieldIdx = 0; fieldIdx < fieldCount; fieldIdx++) {
+					storedFields[fieldIdx] = new StoredField(readString(buffer), readString(buffer), readString(buffer),
+							buffer.getInt(), buffer.get(), buffer.getInt(), readString(buffer));
+				}
+				cachedClasses.put(className, new CachedClass(stamp, storedFields));
+			}
+			LOGGER.info("Loaded compiled metadata cache of {} classes from {}.", classCount, path);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Ignoring compiled metadata cache {} - {}", path, e.getMessage());
+			cachedClasses.clear();
+			isChanged = true;
+		}
+		return;
+	}
+
+	/**
+	 * Fetches the cached fields of the fields declared by the class.
+	 *
+	 * @return the fields, or null if the class is not cached, its code source
+	 *         changed or a type of its fields cannot be loaded
+	 */
+	List<CachedField> fetchCachedFields(Class<?> keyClass) {
+		CachedClass cachedClass = cachedClasses.get(keyClass.getName());
+		if (cachedClass == null || cachedClass.stamp == NO_STAMP || cachedClass.stamp != fetchStamp(keyClass)) {
+			return null;
+		}
+		try {
+			List<CachedField> cachedFields = new ArrayList<>(cachedClass.storedFields.length);
+			for (StoredField storedField : cachedClass.storedFields) {
+				cachedFields.add(storedField.toCachedField(keyClass));
+			}
+			return cachedFields;
+		} catch (ClassNotFoundException e) {
+			LOGGER.warn(e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the fields a plan builder collected for a class read by
+	 * reflection, before the statuses of its child fields are settled.
+	 */
+	void put(Class<?> keyClass, ClassPlan.Builder builder) {
+		long stamp = fetchStamp(keyClass);
+		if (stamp == NO_STAMP) {
+			return;
+		}
+		StoredField[] storedFields = new StoredField[builder.getFieldCount()];
+		for (int idx = 0; idx < storedFields.length; idx++) {
+			storedFields[idx] = new StoredField(builder.getField(idx).getFieldDescriptor(), builder.getFieldStatus(idx),
+					builder.getChildType(idx));
+		}
+		cachedClasses.put(keyClass.getName(), new CachedClass(stamp, storedFields));
+		isChanged = true;
+		if (isSaveOnShutdown.compareAndSet(false, true)) {
+			Thread thread = new Thread(new ShutdownSave(this), "jaxb-id-resolver-metadata-cache");
+			thread.setContextClassLoader(null);
+			Runtime.getRuntime().addShutdownHook(thread);
+		}
+		return;
+	}
+
+	/**
+	 * Saves the file on a background thread if any class was added, so the
+	 * compiles never wait for the file. Classes added later are saved on
+	 * shutdown.
+	 */
+	void saveInBackground() {
+		if (!isChanged) {
+			return;
+		}
+		Thread thread = new Thread(this::save, "jaxb-id-resolver-metadata-cache");
+		thread.setDaemon(true);
+		thread.start();
+		return;
+	}
+
+	/**
+	 * Writes the file if any class was added or replaced since it was loaded or
+	 * last saved.
+	 */
+	synchronized void save() {
+		if (!isChanged) {
+			return;
+		}
+		isChanged = false;
+		try {
+			Path parent = path.toAbsolutePath().getParent();
+			Files.createDirectories(parent);
+			Path tempPath = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+			try {
+				try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+					List<String> classNames = new ArrayList<>(cachedClasses.keySet());
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					writeString(out, settings);
+					out.writeInt(classNames.size());
+					for (String className : classNames) {
+						CachedClass cachedClass = cachedClasses.get(className);
+						writeString(out, className);
+						out.writeLong(cachedClass.stamp);
+						out.writeInt(cachedClass.storedFields.length);
+						for (StoredField storedField : cachedClass.storedFields) {
+							writeString(out, storedField.name);
+							writeString(out, storedField.typeName);
+							writeString(out, storedField.componentTypeName);
+							out.writeInt(storedField.modifiers);
+							out.writeByte(storedField.flags);
+							out.writeInt(storedField.fieldStatus);
+							writeString(out, storedField.childTypeName);
+						}
+					}
+				}
+				try {
+					Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(tempPath);
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Cannot save compiled metadata cache {} - {}", path, e.getMessage());
+		}
+		return;
+	}
+
+	/**
+	 * The last-modified time of the jar holding the class, or of its class file
+	 * if it was loaded from a directory, or {@link #NO_STAMP} if the class has no
+	 * code source on the file system.
+	 */
+	private long fetchStamp(Class<?> keyClass) {
+		CodeSource codeSource = keyClass.getProtectionDomain().getCodeSource();
+		URL location = codeSource == null ? null : codeSource.getLocation();
+		if (location == null) {
+			return NO_STAMP;
+		}
+		String locationName = location.toString();
+		if (locationName.startsWith("jar:")) {
+			// a jar nested in an application jar changes with the application jar
+			int separatorIdx = locationName.indexOf("!/");
+			locationName = locationName.substring(4, separatorIdx < 0 ? locationName.length() : separatorIdx);
+		}
+		if (!locationName.startsWith("file:")) {
+			return NO_STAMP;
+		}
+		Long stamp = jarStamps.get(locationName);
+		if (stamp != null) {
+			return stamp;
+		}
+		try {
+			Path locationPath = Paths.get(new URI(locationName));
+			if (Files.isDirectory(locationPath)) {
+				Path classPath = locationPath.resolve(keyClass.getName().replace('.', '/').concat(".class"));
+				return Files.getLastModifiedTime(classPath).toMillis();
+			}
+			stamp = Files.getLastModifiedTime(locationPath).toMillis();
+		} catch (IOException | URISyntaxException | RuntimeException e) {
+			stamp = NO_STAMP;
+		}
+		jarStamps.put(locationName, stamp);
+		return stamp;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+		return;
+	}
+
+	/**
+	 * Saves a cache on shutdown if it is still in use.
+	 */
+	private static final class ShutdownSave implements Runnable {
+
+		private final WeakReference<CompiledMetadataCache> compiledMetadataCache;
+
+		private ShutdownSave(CompiledMetadataCache compiledMetadataCache) {
+			this.compiledMetadataCache = new WeakReference<>(compiledMetadataCache);
+		}
+
+		@Override
+		public void run() {
+			CompiledMetadataCache compiledMetadataCache = this.compiledMetadataCache.get();
+			if (compiledMetadataCache != null) {
+				compiledMetadataCache.save();
+			}
+			return;
+		}
+	}
+
+	/**
+	 * A field of a cached class, with its types loaded.
+	 */
+	static final class CachedField {
+
+		private final FieldDescriptor fieldDescriptor;
+		private final int fieldStatus;
+		private final Class<?> childType;
+
+		private CachedField(FieldDescriptor fieldDescriptor, int fieldStatus, Class<?> childType) {
+			this.fieldDescriptor = fieldDescriptor;
+			this.fieldStatus = fieldStatus;
+			this.childType = childType;
+		}
+
+		FieldDescriptor getFieldDescriptor() {
+			return fieldDescriptor;
+		}
+
+		/**
+		 * The status of an ID, IDREF or XMLGregorianCalendar field.
+		 */
+		int getFieldStatus() {
+			return fieldStatus;
+		}
+
+		/**
+		 * The child type of a child field, or null for the other fields.
+		 */
+		Class<?> getChildType() {
+			return childType;
+		}
+	}
+
+	private static final class CachedClass {
+
+		private final long stamp;
+		private final StoredField[] storedFields;
+
+		private CachedClass(long stamp, StoredField[] storedFields) {
+			this.stamp = stamp;
+			this.storedFields = storedFields;
+		}
+	}
+
+	private static final class StoredField {
+
+		private final String name;
+		private final String typeName;
+		private final String componentTypeName;
+		private final int modifiers;
+		private final byte flags;
+		private final int fieldStatus;
+		private final String childTypeName;
+
+		private StoredField(String name, String typeName, String componentTypeName, int modifiers, byte flags,
+				int fieldStatus, String childTypeName) {
+			this.name = name;
+			this.typeName = typeName;
+			this.componentTypeName = componentTypeName;
+			this.modifiers = modifiers;
+			this.flags = flags;
+			this.fieldStatus = fieldStatus;
+			this.childTypeName = childTypeName;
+		}
+
+		private StoredField(FieldDescriptor fieldDescriptor, int fieldStatus, Class<?> childType) {
+			name = fieldDescriptor.getName();
+			typeName = fieldDescriptor.getType().getName();
+			Class<?> componentType = fieldDescriptor.getComponentType();
+			componentTypeName = componentType == null ? null : componentType.getName();
+			modifiers = fieldDescriptor.getModifiers();
+			flags = (byte) ((fieldDescriptor.isXmlId() ? XML_ID : 0) | (fieldDescriptor.isXmlIdRef() ? XML_IDREF : 0));
+			this.fieldStatus = fieldStatus;
+			childTypeName = childType == null ? null : childType.getName();
+		}
+
+		private CachedField toCachedField(Class<?> declaringClass) throws ClassNotFoundException {
+			ClassLoader classLoader = declaringClass.getClassLoader();
+			Class<?> type = Class.forName(typeName, false, classLoader);
+			Class<?> componentType = componentTypeName == null ? null : Class.forName(componentTypeName, false, classLoader);
+			Class<?> childType = childTypeName == null ? null : Class.forName(childTypeName, false, classLoader);
+			FieldDescriptor fieldDescriptor = new FieldDescriptor(declaringClass, name, type, componentType,
+					(flags & XML_ID) != 0, (flags & XML_IDREF) != 0, modifiers, null, null);
+			return new CachedField(fieldDescriptor, fieldStatus, childType);
+		}
+	}
+}
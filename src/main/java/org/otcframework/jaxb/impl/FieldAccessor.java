@@ -0,0 +1,98 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import org.otcframework.jaxb.CompiledStatus;
+
+/**
+ * Cached getter and setter for a single compiled field.
+ *
+ * The field is unlocked once when the accessor is created, so reads and writes
+ * on the resolve path do not go through reflective access checks.
+ */
+abstract class FieldAccessor {
+
+	private final FieldDescriptor fieldDescriptor;
+
+	FieldAccessor(FieldDescriptor fieldDescriptor) {
+		this.fieldDescriptor = fieldDescriptor;
+	}
+
+	/**
+	 * Creates the accessor for the field.
+	 *
+	 * @param fieldDescriptor the field descriptor
+	 * @return the field accessor, calling the accessors generated at build time
+	 *         if the descriptor has them, otherwise method handles
+	 */
+	static FieldAccessor create(FieldDescriptor fieldDescriptor) {
+		if (fieldDescriptor.getGetter() != null && fieldDescriptor.getSetter() != null) {
+			return new PrecompiledFieldAccessor(fieldDescriptor);
+		}
+		return new MethodHandleFieldAccessor(fieldDescriptor);
+	}
+
+	FieldDescriptor getFieldDescriptor() {
+		return fieldDescriptor;
+	}
+
+	Class<?> getType() {
+		return fieldDescriptor.getType();
+	}
+
+	String getName() {
+		return fieldDescriptor.getDeclaringClass().getName() + "." + fieldDescriptor.getName();
+	}
+
+	boolean isXmlId() {
+		return fieldDescriptor.isXmlId();
+	}
+
+	boolean isXmlIdRef() {
+		return fieldDescriptor.isXmlIdRef();
+	}
+
+	/**
+	 * How the field is read and written, as reported in the compiled status.
+	 */
+	abstract CompiledStatus.FieldAccessorType getAccessorType();
+
+	abstract Object get(Object target);
+
+	abstract void set(Object target, Object value);
+
+	@Override
+	public int hashCode() {
+		return fieldDescriptor.getDeclaringClass().hashCode() * 31 + fieldDescriptor.getName().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof FieldAccessor)) {
+			return false;
+		}
+		FieldDescriptor other = ((FieldAccessor) obj).fieldDescriptor;
+		return fieldDescriptor.getDeclaringClass() == other.getDeclaringClass()
+				&& fieldDescriptor.getName().equals(other.getName());
+	}
+}
@@ -0,0 +1,186 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import javax.xml.bind.annotation.XmlElementRefs;
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+
+/**
+ * What compile needs to know about a declared field. Descriptors are either
+ * read from the class by reflection or registered by the metadata generated at
+ * build time, which also supplies accessors reading and writing the field
+ * directly.
+ */
+final class FieldDescriptor {
+
+	static final int UNKNOWN_MODIFIERS = -1;
+
+	private final Class<?> declaringClass;
+	private final String name;
+	private final Class<?> type;
+	private final Class<?> componentType;
+	private final boolean xmlId;
+	private final boolean xmlIdRef;
+	private final int modifiers;
+	private final Function<Object, Object> getter;
+	private final BiConsumer<Object, Object> setter;
+	private volatile Field field;
+
+	FieldDescriptor(Class<?> declaringClass, String name, Class<?> type, Class<?> componentType, boolean xmlId,
+			boolean xmlIdRef, int modifiers, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+		this.declaringClass = declaringClass;
+		this.name = name;
+		this.type = type;
+		this.componentType = componentType;
+		this.xmlId = xmlId;
+		this.xmlIdRef = xmlIdRef;
+		this.modifiers = modifiers;
+		this.getter = getter;
+		this.setter = setter;
+	}
+
+	/**
+	 * Reads the descriptors of the instance fields declared by the class.
+	 */
+	static List<FieldDescriptor> of(Class<?> declaringClass) {
+		List<FieldDescriptor> fieldDescriptors = new ArrayList<>();
+		for (Field field : declaringClass.getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+				continue;
+			}
+			fieldDescriptors.add(of(field));
+		}
+		return fieldDescriptors;
+	}
+
+	static FieldDescriptor of(Field field) {
+		FieldDescriptor fieldDescriptor = new FieldDescriptor(field.getDeclaringClass(), field.getName(), field.getType(),
+				fetchComponentType(field), field.getAnnotation(XmlID.class) != null,
+				field.getAnnotation(XmlIDREF.class) != null || field.getAnnotation(XmlElementRefs.class) != null,
+				field.getModifiers(), null, null);
+		fieldDescriptor.field = field;
+		return fieldDescriptor;
+	}
+
+	Class<?> getDeclaringClass() {
+		return declaringClass;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * The type of the objects the field holds: the component type of arrays, the
+	 * type argument of lists, or null for lists of another kind.
+	 */
+	Class<?> getComponentType() {
+		return componentType;
+	}
+
+	boolean isXmlId() {
+		return xmlId;
+	}
+
+	boolean isXmlIdRef() {
+		return xmlIdRef;
+	}
+
+	/**
+	 * The modifiers of the field, looking the field up if the descriptor was
+	 * registered without them.
+	 */
+	int getModifiers() {
+		return modifiers == UNKNOWN_MODIFIERS ? getField().getModifiers() : modifiers;
+	}
+
+	/**
+	 * The generated getter, or null if the field is only reachable by reflection.
+	 */
+	Function<Object, Object> getGetter() {
+		return getter;
+	}
+
+	/**
+	 * The generated setter, or null if the field is only reachable by reflection.
+	 */
+	BiConsumer<Object, Object> getSetter() {
+		return setter;
+	}
+
+	/**
+	 * The reflected field, looked up on first use for descriptors registered by
+	 * generated metadata or loaded from the compiled metadata cache.
+	 */
+	Field getField() {
+		Field field = this.field;
+		if (field == null) {
+			try {
+				field = declaringClass.getDeclaredField(name);
+			} catch (NoSuchFieldException e) {
+				throw new IllegalStateException("Field " + declaringClass.getName() + "." + name + " not found.", e);
+			}
+			this.field = field;
+		}
+		return field;
+	}
+
+	/**
+	 * The reflected field if the descriptor was read by reflection or the field
+	 * was already looked up, otherwise null.
+	 */
+	Field fetchResolvedField() {
+		return field;
+	}
+
+	private static Class<?> fetchComponentType(Field field) {
+		Class<?> fieldType = field.getType();
+		if (fieldType.isArray()) {
+			return fieldType.getComponentType();
+		} else if (List.class.isAssignableFrom(fieldType)) {
+			Type type = field.getGenericType();
+			if (type instanceof ParameterizedType) {
+				type = ((ParameterizedType) type).getActualTypeArguments()[0];
+				if (type instanceof Class) {
+					return (Class<?>) type;
+				}
+			}
+			return null;
+		}
+		return fieldType;
+	}
+}
@@ -0,0 +1,116 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.List;
+
+/**
+ * A relevant field in a {@link ClassPlan}, tagged with what the traversal has to
+ * do with its value.
+ */
+final class FieldPlan {
+
+	enum Kind {
+		XML_ID, XML_IDREF, XML_GREGORIAN_CALENDAR, CHILD_OBJECT, CHILD_LIST, CHILD_ARRAY
+	}
+
+	private final FieldAccessor fieldAccessor;
+	private final Kind kind;
+	private final int status;
+	private final Class<?> childType;
+	private ClassPlan childPlan;
+	private volatile ClassPlan subclassPlan;
+
+	FieldPlan(FieldAccessor fieldAccessor, int status, Class<?> childType) {
+		this.fieldAccessor = fieldAccessor;
+		this.status = status;
+		this.childType = childType;
+		if (childType == null) {
+			if ((status & ClassPlan.XML_GREGORIAN_CALENDAR) != 0) {
+				kind = Kind.XML_GREGORIAN_CALENDAR;
+			} else if ((status & ClassPlan.XML_IDREF) != 0) {
+				kind = Kind.XML_IDREF;
+			} else {
+				kind = Kind.XML_ID;
+			}
+		} else {
+			Class<?> fieldType = fieldAccessor.getType();
+			if (fieldType.isArray()) {
+				kind = Kind.CHILD_ARRAY;
+			} else if (List.class.isAssignableFrom(fieldType)) {
+				kind = Kind.CHILD_LIST;
+			} else {
+				kind = Kind.CHILD_OBJECT;
+			}
+		}
+	}
+
+	FieldAccessor getFieldAccessor() {
+		return fieldAccessor;
+	}
+
+	Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * The status bits of the field itself, or for child fields the status bits
+	 * reachable through it.
+	 */
+	int getStatus() {
+		return status;
+	}
+
+	/**
+	 * The declared type of the child objects, or null for ID, IDREF and
+	 * XMLGregorianCalendar fields.
+	 */
+	Class<?> getChildType() {
+		return childType;
+	}
+
+	/**
+	 * The plan of {@link #getChildType()}, linked before the owning plan is
+	 * published.
+	 */
+	ClassPlan getChildPlan() {
+		return childPlan;
+	}
+
+	void setChildPlan(ClassPlan childPlan) {
+		this.childPlan = childPlan;
+	}
+
+	/**
+	 * The plan of the last child met whose class is not {@link #getChildType()}
+	 * itself, so containers holding a single subclass skip the registry lookup
+	 * for every member.
+	 */
+	ClassPlan getSubclassPlan() {
+		return subclassPlan;
+	}
+
+	void setSubclassPlan(ClassPlan subclassPlan) {
+		this.subclassPlan = subclassPlan;
+	}
+}
@@ -0,0 +1,52 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+/**
+ * Visitor of a pass whose work on the members of a large container can be
+ * split into parallel slices. Each slice is visited by a visitor created with
+ * {@link #fork()}, and the forked visitors are joined back in container order.
+ */
+abstract class ForkablePlanVisitor extends PlanVisitor {
+
+	/**
+	 * Creates an empty visitor of the same pass for one slice of a container.
+	 */
+	abstract ForkablePlanVisitor fork();
+
+	/**
+	 * Takes over what a visitor created by {@link #fork()} collected. Slices are
+	 * merged in container order, so the result is the same as visiting the
+	 * members one by one.
+	 */
+	abstract void merge(ForkablePlanVisitor forkedVisitor);
+
+	/**
+	 * Takes over the objects counted by a forked visitor and what it collected.
+	 */
+	final void join(ForkablePlanVisitor forkedVisitor) {
+		countObjects(forkedVisitor.getObjectCount());
+		merge(forkedVisitor);
+		return;
+	}
+}
@@ -0,0 +1,237 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.Arrays;
+
+/**
+ * Open addressed index of the ID values of a document to the objects holding
+ * them. The hash of every ID is stored next to it, so probes compare ints
+ * before comparing strings.
+ */
+final class HashedIdIndex extends IdIndex {
+
+	private static final int MIN_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private String[] keys;
+	private Object[] values;
+	private int[] hashes;
+	private int size;
+	private int threshold;
+
+	HashedIdIndex(int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	@Override
+	int size() {
+		return size;
+	}
+
+	@Override
+	int capacity() {
+		return keys.length;
+	}
+
+	@Override
+	IdIndex newIdIndex(int expectedSize) {
+		return new HashedIdIndex(expectedSize);
+	}
+
+	@Override
+	void put(String key, Object value) {
+		put(key, spread(key.hashCode()), value);
+		return;
+	}
+
+	@Override
+	void putAll(IdIndex otherIndex) {
+		HashedIdIndex idIndex = (HashedIdIndex) otherIndex;
+		String[] otherKeys = idIndex.keys;
+		for (int idx = 0; idx < otherKeys.length; idx++) {
+			if (otherKeys[idx] != null) {
+				put(otherKeys[idx], idIndex.hashes[idx], idIndex.values[idx]);
+			}
+		}
+		return;
+	}
+
+	private void put(String key, int hash, Object value) {
+		int mask = keys.length - 1;
+		int idx = hash & mask;
+		String slotKey;
+		while ((slotKey = keys[idx]) != null) {
+			if (hashes[idx] == hash && slotKey.equals(key)) {
+				values[idx] = value;
+				return;
+			}
+			idx = (idx + 1) & mask;
+		}
+		keys[idx] = key;
+		values[idx] = value;
+		hashes[idx] = hash;
+		if (++size > threshold) {
+			resize();
+		}
+		return;
+	}
+
+	@Override
+	Object get(String key) {
+		int hash = spread(key.hashCode());
+		int mask = keys.length - 1;
+		int idx = hash & mask;
+		String slotKey;
+		while ((slotKey = keys[idx]) != null) {
+			if (hashes[idx] == hash && slotKey.equals(key)) {
+				return values[idx];
+			}
+			idx = (idx + 1) & mask;
+		}
+		return null;
+	}
+
+	@Override
+	Object get(String value, int start, int end) {
+		int hash = spread(hash(value, start, end));
+		int length = end - start;
+		int mask = keys.length - 1;
+		int idx = hash & mask;
+		String slotKey;
+		while ((slotKey = keys[idx]) != null) {
+			if (hashes[idx] == hash && slotKey.length() == length && slotKey.regionMatches(0, value, start, length)) {
+				return values[idx];
+			}
+			idx = (idx + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the ID if it is mapped to the object. The entries after it in the
+	 * probe sequence are shifted back, so lookups need no tombstones.
+	 */
+	@Override
+	boolean remove(String key, Object value) {
+		int hash = spread(key.hashCode());
+		int mask = keys.length - 1;
+		int idx = hash & mask;
+		String slotKey;
+		while ((slotKey = keys[idx]) != null) {
+			if (hashes[idx] == hash && slotKey.equals(key)) {
+				if (values[idx] != value) {
+					return false;
+				}
+				delete(idx);
+				return true;
+			}
+			idx = (idx + 1) & mask;
+		}
+		return false;
+	}
+
+	@Override
+	void clear(int expectedSize) {
+		int capacity = capacityFor(expectedSize);
+		if (capacity > keys.length) {
+			allocate(capacity);
+			return;
+		}
+		if (size > 0) {
+			Arrays.fill(keys, null);
+			Arrays.fill(values, null);
+			size = 0;
+		}
+		return;
+	}
+
+	private void delete(int idx) {
+		int mask = keys.length - 1;
+		int gap = idx;
+		int next = (gap + 1) & mask;
+		while (keys[next] != null) {
+			int home = hashes[next] & mask;
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				hashes[gap] = hashes[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[gap] = null;
+		values[gap] = null;
+		size--;
+		return;
+	}
+
+	private void resize() {
+		String[] oldKeys = keys;
+		Object[] oldValues = values;
+		int[] oldHashes = hashes;
+		int oldSize = size;
+		if (oldKeys.length == MAX_CAPACITY) {
+			throw new IllegalStateException("Too many IDs to index.");
+		}
+		allocate(oldKeys.length << 1);
+		int mask = keys.length - 1;
+		for (int oldIdx = 0; oldIdx < oldKeys.length; oldIdx++) {
+			if (oldKeys[oldIdx] == null) {
+				continue;
+			}
+			int idx = oldHashes[oldIdx] & mask;
+			while (keys[idx] != null) {
+				idx = (idx + 1) & mask;
+			}
+			keys[idx] = oldKeys[oldIdx];
+			values[idx] = oldValues[oldIdx];
+			hashes[idx] = oldHashes[oldIdx];
+		}
+		size = oldSize;
+		return;
+	}
+
+	private void allocate(int capacity) {
+		keys = new String[capacity];
+		values = new Object[capacity];
+		hashes = new int[capacity];
+		threshold = capacity >> 1;
+		size = 0;
+		return;
+	}
+
+	/**
+	 * Tables are kept at most half full, so linear probe sequences stay short.
+	 */
+	private static int capacityFor(int expectedSize) {
+		if (expectedSize >= MAX_CAPACITY >> 1) {
+			return MAX_CAPACITY;
+		}
+		int capacity = MIN_CAPACITY;
+		while (capacity >> 1 < expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+}
@@ -0,0 +1,111 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+/**
+ * Index of the ID values of a document to the objects holding them. IDs can be
+ * looked up by a character range of a larger value without creating a
+ * substring.
+ *
+ * An index is presized for the expected number of IDs and can be cleared and
+ * reused for the next document.
+ */
+abstract class IdIndex {
+
+	/**
+	 * Creates an index.
+	 *
+	 * @param expectedSize the expected number of IDs
+	 * @param compact true for the index keeping its entries in dense arrays, which
+	 *        takes less memory per ID for documents with millions of IDs
+	 * @return the ID index
+	 */
+	static IdIndex create(int expectedSize, boolean compact) {
+		if (compact) {
+			return new CompactIdIndex(expectedSize);
+		}
+		return new HashedIdIndex(expectedSize);
+	}
+
+	/**
+	 * Creates an empty index of the same kind, for a forked visitor.
+	 */
+	abstract IdIndex newIdIndex(int expectedSize);
+
+	abstract int size();
+
+	/**
+	 * Gets the number of slots in the table, which is what the index holds on to
+	 * when it is kept for reuse.
+	 */
+	abstract int capacity();
+
+	/**
+	 * Maps the ID to the object, replacing the object of an ID that was already
+	 * indexed.
+	 */
+	abstract void put(String key, Object value);
+
+	/**
+	 * Adds the IDs of an index of the same kind filled by a forked visitor. Its
+	 * IDs replace the IDs already indexed, as they come later in the document.
+	 */
+	abstract void putAll(IdIndex idIndex);
+
+	abstract Object get(String key);
+
+	/**
+	 * Looks up the ID made of the characters from start to end of the value.
+	 */
+	abstract Object get(String value, int start, int end);
+
+	/**
+	 * Removes the ID if it is mapped to the object.
+	 *
+	 * @return true if the ID was removed
+	 */
+	abstract boolean remove(String key, Object value);
+
+	/**
+	 * Empties the index for reuse, dropping the references to the previous
+	 * document. The table is reallocated if it is too small for the expected
+	 * number of IDs.
+	 */
+	abstract void clear(int expectedSize);
+
+	/**
+	 * Computes the String hash code of the characters from start to end of the
+	 * value.
+	 */
+	static int hash(String value, int start, int end) {
+		int hash = 0;
+		for (int pos = start; pos < end; pos++) {
+			hash = 31 * hash + value.charAt(pos);
+		}
+		return hash;
+	}
+
+	static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,72 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+/**
+ * Resolves one document while it is being built, so no traversal is needed
+ * afterwards. Every object of the document is registered once its fields are
+ * set, which indexes its ID, records its IDREF sites and fixes its
+ * XMLGregorianCalendar values. When the document is complete, {@link #bind()}
+ * binds the recorded IDREF sites to the indexed objects.
+ *
+ * A binder serves a single document on a single thread. Objects are
+ * registered after their children, so when two objects share an ID the one
+ * registered last wins, which is not always the one a resolve would pick.
+ */
+public final class IdRefBinder {
+
+	private final JaxbIdRefResolverImpl<?> jaxbIdRefResolver;
+	private final JaxbIdRefResolverImpl.SinglePassVisitor singlePassVisitor;
+	private Object lastObject;
+
+	IdRefBinder(JaxbIdRefResolverImpl<?> jaxbIdRefResolver) {
+		this.jaxbIdRefResolver = jaxbIdRefResolver;
+		singlePassVisitor = new JaxbIdRefResolverImpl.SinglePassVisitor(jaxbIdRefResolver.createIdIndex(),
+				jaxbIdRefResolver.fetchXmlGregorianCalendarNormalizer());
+	}
+
+	/**
+	 * Registers an object of the document whose fields are all set. Objects of
+	 * classes outside the filtered packages are ignored. Registering the object
+	 * just registered again does nothing, so nested callers that both see the
+	 * same object, such as a typed read and the subtype read it delegates to,
+	 * record it only once.
+	 */
+	public void register(Object object) {
+		if (object == null || object == lastObject) {
+			return;
+		}
+		lastObject = object;
+		jaxbIdRefResolver.register(object, singlePassVisitor);
+		return;
+	}
+
+	/**
+	 * Binds the IDREF sites of the registered objects. It is called once the
+	 * whole document is registered.
+	 */
+	public void bind() {
+		jaxbIdRefResolver.bindIdRefPatches(singlePassVisitor);
+		return;
+	}
+}
@@ -0,0 +1,86 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.Arrays;
+
+/**
+ * IDREF sites with a value each, kept in parallel arrays. A single-pass resolve
+ * records the raw values, which are bound once every ID of the document is
+ * known, and a resolve returning a result records the objects bound.
+ */
+final class IdRefPatches {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Object[] owners = new Object[INITIAL_CAPACITY];
+	private FieldAccessor[] fields = new FieldAccessor[INITIAL_CAPACITY];
+	private Object[] values = new Object[INITIAL_CAPACITY];
+	private int size;
+
+	void add(Object owner, FieldAccessor field, Object value) {
+		if (size == owners.length) {
+			grow(size << 1);
+		}
+		owners[size] = owner;
+		fields[size] = field;
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * Appends the sites recorded by a forked visitor after the sites of this one.
+	 */
+	void addAll(IdRefPatches idRefPatches) {
+		int newSize = size + idRefPatches.size;
+		if (newSize > owners.length) {
+			grow(Math.max(newSize, owners.length << 1));
+		}
+		System.arraycopy(idRefPatches.owners, 0, owners, size, idRefPatches.size);
+		System.arraycopy(idRefPatches.fields, 0, fields, size, idRefPatches.size);
+		System.arraycopy(idRefPatches.values, 0, values, size, idRefPatches.size);
+		size = newSize;
+	}
+
+	private void grow(int capacity) {
+		owners = Arrays.copyOf(owners, capacity);
+		fields = Arrays.copyOf(fields, capacity);
+		values = Arrays.copyOf(values, capacity);
+	}
+
+	int size() {
+		return size;
+	}
+
+	Object getOwner(int index) {
+		return owners[index];
+	}
+
+	FieldAccessor getField(int index) {
+		return fields[index];
+	}
+
+	Object getValue(int index) {
+		return values[index];
+	}
+}
@@ -0,0 +1,63 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+/**
+ * Index based scanning of IDREFS values, which are lists of IDs separated by
+ * XML whitespace. The tokens are reported as index ranges of the value so no
+ * substrings or arrays are created while scanning.
+ */
+final class IdRefTokenizer {
+
+	private IdRefTokenizer() {
+	}
+
+	/**
+	 * Returns the index of the first non-whitespace character at or after
+	 * fromIndex, or the length of the value if there is none.
+	 */
+	static int skipWhitespace(String idRef, int fromIndex) {
+		int idx = fromIndex;
+		int length = idRef.length();
+		while (idx < length && isXmlWhitespace(idRef.charAt(idx))) {
+			idx++;
+		}
+		return idx;
+	}
+
+	/**
+	 * Returns the index just past the token starting at fromIndex.
+	 */
+	static int skipToken(String idRef, int fromIndex) {
+		int idx = fromIndex;
+		int length = idRef.length();
+		while (idx < length && !isXmlWhitespace(idRef.charAt(idx))) {
+			idx++;
+		}
+		return idx;
+	}
+
+	static boolean isXmlWhitespace(char ch) {
+		return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r';
+	}
+}
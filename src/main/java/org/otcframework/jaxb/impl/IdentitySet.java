@@ -0,0 +1,119 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.Arrays;
+
+/**
+ * Open addressed set of objects compared by identity, recording the objects a
+ * pass has already visited. It holds only the references, so it can be cleared
+ * and reused by the next pass of the same thread.
+ */
+final class IdentitySet {
+
+	private static final int MIN_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private Object[] objects;
+	private int size;
+	private int threshold;
+
+	IdentitySet() {
+		allocate(MIN_CAPACITY);
+	}
+
+	int size() {
+		return size;
+	}
+
+	int capacity() {
+		return objects.length;
+	}
+
+	/**
+	 * Adds the object.
+	 *
+	 * @return true if the object was not in the set yet
+	 */
+	boolean add(Object object) {
+		int mask = objects.length - 1;
+		int idx = spread(System.identityHashCode(object)) & mask;
+		Object current;
+		while ((current = objects[idx]) != null) {
+			if (current == object) {
+				return false;
+			}
+			idx = (idx + 1) & mask;
+		}
+		objects[idx] = object;
+		if (++size > threshold) {
+			resize();
+		}
+		return true;
+	}
+
+	void clear() {
+		if (size > 0) {
+			Arrays.fill(objects, null);
+			size = 0;
+		}
+		return;
+	}
+
+	private void resize() {
+		Object[] oldObjects = objects;
+		int oldSize = size;
+		if (oldObjects.length == MAX_CAPACITY) {
+			throw new IllegalStateException("Too many objects to track.");
+		}
+		allocate(oldObjects.length << 1);
+		int mask = objects.length - 1;
+		for (Object object : oldObjects) {
+			if (object == null) {
+				continue;
+			}
+			int idx = spread(System.identityHashCode(object)) & mask;
+			while (objects[idx] != null) {
+				idx = (idx + 1) & mask;
+			}
+			objects[idx] = object;
+		}
+		size = oldSize;
+		return;
+	}
+
+	/**
+	 * Tables are kept at most half full, so linear probe sequences stay short.
+	 */
+	private void allocate(int capacity) {
+		objects = new Object[capacity];
+		threshold = capacity >> 1;
+		size = 0;
+		return;
+	}
+
+	private static int spread(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
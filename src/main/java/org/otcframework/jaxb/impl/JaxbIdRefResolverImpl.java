@@ -1,650 +1,1972 @@
-/**
-* Copyright (c) otcframework.org
-*
-* @author  Franklin J Abel (frank.a.otc@gmail.com)
-* @version 1.0
-* @since   2022-08-31 
-*
-* This file is part of the OTC framework's JAXB ID Resolver project.
-* 
-* Licensed under the Apache License, Version 2.0 (the "License");
-* you may not use this file except in compliance with the License.
-* You may obtain a copy of the License at
-*
-*      https://www.apache.org/licenses/LICENSE-2.0
-*
-* Unless required by applicable law or agreed to in writing, software
-* distributed under the License is distributed on an "AS IS" BASIS,
-* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-* See the License for the specific language governing permissions and
-* limitations under the License.
-*
-*/
-package org.otcframework.jaxb.impl;
-
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
-import javax.annotation.PostConstruct;
-import javax.xml.bind.annotation.XmlElementRefs;
-import javax.xml.bind.annotation.XmlID;
-import javax.xml.bind.annotation.XmlIDREF;
-import javax.xml.datatype.DatatypeConstants;
-import javax.xml.datatype.XMLGregorianCalendar;
-
-import org.apache.commons.lang3.ClassUtils;
-import org.otcframework.jaxb.CompiledStatus;
-import org.otcframework.jaxb.util.PackagesFilterUtil;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-public  class JaxbIdRefResolverImpl<T> extends AbstractJaxbIdRefResolver<T> {
-
-	private static final Logger LOGGER = LoggerFactory.getLogger(JaxbIdRefResolverImpl.class);
-
-	protected Boolean unsetTimeZoneInXmlGregorianCalandar;
-	protected Boolean fixXmlIdRefFields;
-
-	private Set<Class<?>> compiledClasses;
-	private static Map<Class<?>, Set<Field>> xmlIdFieldsCache;
-	private static Map<Class<?>, Set<Field>> xmlIdRefFieldsCache;
-	private Map<Class<?>, Set<Field>> xmlGregorianCalendarFieldsCache;
-	private List<String> compileClasses;
-			
-	public List<String> getCompileClasses() {
-		return compileClasses;
-	}
-
-	public void setCompileClasses(List<String> compileClasses) {
-		this.compileClasses = compileClasses;
-	}
-
-	@PostConstruct
-	public void initialize() {
-		for (String clsName : compileClasses) {
-			Class<?> cls;
-			try {
-				cls = ClassUtils.getClass(clsName);
-				compile(cls);
-			} catch (ClassNotFoundException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-		}
-		LOGGER.info("Completed compilations.");
-		return;
-	}
-
-	@Override
-	public T resolve(T parentObject) {
-		if (parentObject == null) {
-			return null;
-		}
-		try {
-			if (!fixXmlIdRefFields && !unsetTimeZoneInXmlGregorianCalandar) {
-				LOGGER.warn("Both 'fixXmlIdRefFields' and 'xmlgregoriancalendar.unsetTimeZone' are turned-off or not set.");
-				return parentObject;
-			}
-			compile(parentObject);
-			if (fixXmlIdRefFields) {
-				Map<String, Object> xmlIdObjects = fetchXmlIdValues(parentObject, parentObject.getClass(), null);
-				if (xmlIdObjects != null) {
-					fixXmlIdRefValues(parentObject, parentObject.getClass(), xmlIdObjects, null);
-				}
-			}
-			if (unsetTimeZoneInXmlGregorianCalandar) {
-				fixXmlGregorianCalendarValues(parentObject, parentObject.getClass(), null);
-			}
-		} catch (Exception ex) {
-			LOGGER.error("", ex);
-		}
-		return parentObject;
-	}
-	
-	@Override
-	public T prefixIds(T parentObject, String thirdpartyId) {
-		if (parentObject == null) {
-			return null;
-		}
-		compile(parentObject);
-		thirdpartyId = thirdpartyId.concat("-");
-		fetchFieldValueAndPrefix(parentObject, thirdpartyId, true);
-		return parentObject;
-	}
-	
-	@Override
-	public T stripPrefixInIds(T parentObject, String thirdpartyId) {
-		if (parentObject == null) {
-			return null;
-		}
-		compile(parentObject);
-		thirdpartyId = thirdpartyId.concat("-");
-		fetchFieldValueAndPrefix(parentObject, thirdpartyId, false);
-		return parentObject;
-	}
-	
-	@Override
-	public void fixXmlGregorianCalendarValues(T parentObject) {
-		compile(parentObject);
-		fixXmlGregorianCalendarValues(parentObject, parentObject.getClass(), null);
-		return;
-	}
-	
-	private void fetchFieldValueAndPrefix(Object parentObject, String thirdpartyId, boolean isPrefix) {
-		Class<?> keyClass = parentObject.getClass();
-		while (keyClass != null) {
-			Set<Field> fields = xmlIdFieldsCache.get(keyClass);
-			if (fields != null) {
-				for (Field field : fields) {
-					Object fldValue = readFieldValue(parentObject, field);
-					if (fldValue == null) {
-						continue;
-					}
-					if (fldValue instanceof String) {
-						if (isPrefix) {
-							fldValue = thirdpartyId.concat((String)fldValue);
-						} else {
-							fldValue = ((String) fldValue).replace(thirdpartyId, "");
-						}
-						try {
-							boolean isAccessible = field.isAccessible();
-							field.setAccessible(true);
-							field.set(parentObject, fldValue);
-							field.setAccessible(isAccessible);
-						} catch (IllegalArgumentException | IllegalAccessException e) {
-							LOGGER.warn(e.getMessage());
-						}
-						continue;
-					}
-					Class<?> valueType = fldValue.getClass();
-					if (valueType.isArray()) {
-						Object[] objects = (Object[]) fldValue;
-						if (objects.length == 0) {
-							continue;
-						}
-						for (Object member : objects) {
-							Class<?> memberType = member.getClass();
-							if (PackagesFilterUtil.isFilteredPackage(memberType)) {
-								fetchFieldValueAndPrefix(member, thirdpartyId, isPrefix);
-							}
-						}
-						continue;
-					} else if (List.class.isAssignableFrom(valueType)) {
-						List<Object> objects = (List) fldValue;
-						if (objects.isEmpty()) {
-							continue;
-						}
-						for (Object member : objects) {
-							Class<?> memberType = member.getClass();
-							if (PackagesFilterUtil.isFilteredPackage(memberType)) {
-								fetchFieldValueAndPrefix(member, thirdpartyId, isPrefix);
-							}
-						}
-						continue;
-					} else if (PackagesFilterUtil.isFilteredPackage(valueType)) {
-						fetchFieldValueAndPrefix(fldValue, thirdpartyId, isPrefix);
-						continue;
-					}
-					if (field.getAnnotation(XmlID.class) == null) {
-						continue;
-					}
-				}
-			}
-			keyClass = keyClass.getSuperclass();
-			if (!PackagesFilterUtil.isFilteredPackage(keyClass)) {
-				keyClass = null;
-			}
-		}
-		return;
-	}
-	
-	private void compile(T parentObject) {
-		if (compiledClasses == null || !compiledClasses.contains(parentObject.getClass())) {
-			compile(parentObject.getClass());
-		}
-		return;
-	}
-	
-	@Override
-	public CompiledStatus compile(Class<?> parentClass) {
-		CompiledStatus compiledStatus = null;
-		Class<?> keyClass = parentClass;
-		String parentClsName = parentClass.getName();
-		while (keyClass != null) {	
-			Field[] fields = keyClass.getDeclaredFields();
-			if (fields != null) {
-				for (Field field : fields) {
-					Class<?> fieldType = field.getType();
-					if (fieldType.isEnum()) {
-						continue;
-					}
-					// newly added code to handle classes with self-referencing fields
-					if (shouldRegister(field)) {
-						compiledStatus = updateRegistry(compiledStatus, keyClass, field);
-						continue;
-					}
-					// END
-					Class<?> componentType = null;
-					if (fieldType.isArray()) {
-						componentType = fieldType.getComponentType();
-					} else if (List.class.isAssignableFrom(fieldType)) {
-						Type type = field.getGenericType();
-						ParameterizedType parameterizedType = (ParameterizedType) type;
-						type = parameterizedType.getActualTypeArguments()[0];
-						if (type instanceof Class) { 
-							componentType = (Class<?>) type;
-						}
-					} else {
-						componentType = fieldType;
-					}
-					if (componentType != null && PackagesFilterUtil.isFilteredPackage(componentType)) {
-						CompiledStatus childrenCompiledStatus = null;
-						// newly added code to handle classes with self-referencing fields
-						if (parentClsName.equalsIgnoreCase(componentType.getName())) {
-							if (shouldRegister(field)) {
-								childrenCompiledStatus = updateRegistry(compiledStatus, keyClass, field);
-							}
-						} else {
-						// END
-							childrenCompiledStatus = compile(componentType);
-						}
-						if (childrenCompiledStatus != null) {
-							updateCache(childrenCompiledStatus, keyClass, field);
-							compiledStatus = mergeCompiledStatus(compiledStatus, childrenCompiledStatus);
-						}
-					}
-				}
-			}
-			keyClass = keyClass.getSuperclass();
-			if (!PackagesFilterUtil.isFilteredPackage(keyClass)) {
-				keyClass = null;
-			}
-		}
-		if (compiledClasses == null) {
-			compiledClasses = new HashSet<>();
-		}
-		compiledClasses.add(parentClass);
-		return compiledStatus;
-	}
-	
-	private boolean shouldRegister(Field field) {
-		Class<?> fieldType = field.getType();
-		if (unsetTimeZoneInXmlGregorianCalandar && fieldType.equals(XMLGregorianCalendar.class)) {
-			return true;
-		}		
-		if (field.getAnnotation(XmlIDREF.class) != null || field.getAnnotation(XmlElementRefs.class) != null) {
-			return true;
-		}
-		if (field.getAnnotation(XmlID.class) != null) {
-			return true;
-		}
-		return false;
-	}
-	
-	private CompiledStatus updateRegistry(CompiledStatus compiledStatus, Class<?> keyClass, Field field) {
-		Class<?> fieldType = field.getType();
-		if (unsetTimeZoneInXmlGregorianCalandar && fieldType.equals(XMLGregorianCalendar.class)) {
-			compiledStatus = addToXmlGregorianCalendarCache(keyClass, field, compiledStatus);
-			return compiledStatus;
-		}
-		if (field.getAnnotation(XmlIDREF.class) != null || field.getAnnotation(XmlElementRefs.class) != null) {
-			compiledStatus = addToXmlIdRefCache(keyClass, field, compiledStatus);
-			return compiledStatus;
-		}
-		if (field.getAnnotation(XmlID.class) != null) {
-			compiledStatus = addToXmlIdCache(keyClass, field, compiledStatus);
-			return compiledStatus;
-		}
-		return compiledStatus;
-	}
-	
-	private Map<String, Object> fetchXmlIdValues(Object parentObject, Class<?> parentClass, Map<String, Object> xmlIdObjects) {
-		Class<?> keyClass = parentClass;
-		while (keyClass != null) {
-			Set<Field> fields = xmlIdFieldsCache.get(keyClass);
-			if (fields != null) {
-				for (Field field : fields) {
-					Object fldValue = readFieldValue(parentObject, field);
-					if (fldValue == null) {
-						continue;
-					}
-					Class<?> valueType = fldValue.getClass();
-					if (valueType.isArray()) {
-						Object[] objects = (Object[]) fldValue;
-						if (objects.length == 0) {
-							continue;
-						}
-						for (Object member : objects) {
-							Class<?> memberType = member.getClass();
-							if (PackagesFilterUtil.isFilteredPackage(memberType)) {
-								xmlIdObjects = fetchXmlIdValues(member, memberType, xmlIdObjects);
-							}
-						}
-						continue;
-					} else if (List.class.isAssignableFrom(valueType)) {
-						List<Object> objects = (List) fldValue;
-						if (objects.isEmpty()) {
-							continue;
-						}
-						for (Object member : objects) {
-							Class<?> memberType = member.getClass();
-							if (PackagesFilterUtil.isFilteredPackage(memberType)) {
-								xmlIdObjects = fetchXmlIdValues(member, memberType, xmlIdObjects);
-							}
-						}
-						continue;
-					} else if (PackagesFilterUtil.isFilteredPackage(valueType)) {
-						xmlIdObjects = fetchXmlIdValues(fldValue, valueType, xmlIdObjects);
-						continue;
-					}
-					if (field.getAnnotation(XmlID.class) == null) {
-						continue;
-					}
-					if (xmlIdObjects == null) {
-						xmlIdObjects = new HashMap<>();
-					}
-					if (fldValue instanceof String) {
-						xmlIdObjects.put((String) fldValue, parentObject);
-					}
-				}
-			}
-			keyClass = keyClass.getSuperclass();
-			if (!PackagesFilterUtil.isFilteredPackage(keyClass)) {
-				keyClass = null;
-			}
-		}
-		return xmlIdObjects;
-	}
-
-	private Map<Object, Object> fixXmlIdRefValues(Object parentObject, Class<?> parentClass, Map<String, Object> xmlIdObjects, Map<Object, Object> xmlIdRefObjects) {
-		Class<?> keyClass = parentClass;
-		while (keyClass != null) {
-			Set<Field> fields = xmlIdRefFieldsCache.get(keyClass);
-			if (fields != null) {
-				for (Field field : fields) {
-					Object fldValue = readFieldValue(parentObject, field);
-					if (fldValue == null) {
-						continue;
-					}
-					Class<?> valueType = fldValue.getClass();
-					if (field.getAnnotation(XmlIDREF.class) != null || field.getAnnotation(XmlElementRefs.class) != null) {
-						xmlIdRefObjects = createIdRef(parentObject, field, fldValue, xmlIdObjects, xmlIdRefObjects);
-					} else if (valueType.isArray()) {
-						Object[] objects = (Object[]) fldValue;
-						if (objects.length == 0) {
-							continue;
-						}
-						for (Object member : objects) {
-							Class<?> memberType = member.getClass();
-							if (PackagesFilterUtil.isFilteredPackage(memberType)) {
-								xmlIdRefObjects = fixXmlIdRefValues(member, memberType, xmlIdObjects, xmlIdRefObjects);
-							}
-						}
-					} else if (fldValue instanceof List) {
-						for (Object member : (List) fldValue) {
-							Class<?> memberType = member.getClass();
-							if (PackagesFilterUtil.isFilteredPackage(memberType)) {
-								xmlIdRefObjects = fixXmlIdRefValues(member, memberType, xmlIdObjects, xmlIdRefObjects);
-							}
-						}
-					} else if (PackagesFilterUtil.isFilteredPackage(valueType)) {
-						xmlIdRefObjects = fixXmlIdRefValues(fldValue, valueType, xmlIdObjects, xmlIdRefObjects);
-					}
-				}
-			}
-			keyClass = keyClass.getSuperclass();
-			if (!PackagesFilterUtil.isFilteredPackage(keyClass)) {
-				keyClass = null;
-			}
-		}
-		return xmlIdRefObjects;
-	}
-	
-	private Map<Field, Object> fixXmlGregorianCalendarValues(Object parentObject, Class<?> parentClass, Map<Field, Object> miscellaneousFixes) {
-		Class<?> keyClass = parentClass;
-		while (keyClass != null) {
-			Set<Field> fields = xmlGregorianCalendarFieldsCache.get(keyClass);
-			if (fields != null) {
-				for (Field field : fields) {
-					Object fldValue = readFieldValue(parentObject, field);
-					if (fldValue == null) {
-						continue;
-					}
-					Class<?> valueType = fldValue.getClass();
-					if (fldValue instanceof XMLGregorianCalendar) {
-						miscellaneousFixes = unsetTimeZoneInXmlGregorianCalendar(field, (XMLGregorianCalendar) fldValue, miscellaneousFixes);
-					} else if (valueType.isArray()) {
-						Object[] objects = (Object[]) fldValue;
-						if (objects.length == 0) {
-							continue;
-						}
-						for (Object member : objects) {
-							Class<?> memberType = member.getClass();
-							if (PackagesFilterUtil.isFilteredPackage(memberType)) {
-								miscellaneousFixes = fixXmlGregorianCalendarValues(member, memberType, miscellaneousFixes);
-							}
-						}
-					} else if (fldValue instanceof List) {
-						for (Object member : (List) fldValue) {
-							Class<?> memberType = member.getClass();
-							if (PackagesFilterUtil.isFilteredPackage(memberType)) {
-								miscellaneousFixes = fixXmlGregorianCalendarValues(member, memberType, miscellaneousFixes);
-							}
-						}
-					} else if (PackagesFilterUtil.isFilteredPackage(valueType)) {
-						miscellaneousFixes = fixXmlGregorianCalendarValues(fldValue, valueType, miscellaneousFixes);
-					}
-				}
-			}
-			keyClass = keyClass.getSuperclass();
-			if (!PackagesFilterUtil.isFilteredPackage(keyClass)) {
-				keyClass = null;
-			}
-		}
-		return miscellaneousFixes;
-	}
-
-	private Map<Object, Object> createIdRef(Object parentObject, Field field, Object fldValue, Map<String, Object> xmlIdObjects, Map<Object, Object> xmlIdRefObjects) {
-		if (fldValue == null) {
-			return xmlIdRefObjects;
-		}
-		Class<?> valueType = fldValue.getClass();
-		if (valueType.isArray()) {
-			List<Object> objects = Arrays.asList((Object[]) fldValue);
-			xmlIdRefObjects = createIdRef(parentObject, field, objects, valueType, xmlIdObjects, xmlIdRefObjects);
-		} else if (fldValue instanceof List) {
-			List<Object> objects = (List) fldValue;
-			xmlIdRefObjects = createIdRef(parentObject, field, objects, valueType, xmlIdObjects, xmlIdRefObjects);
-		} else if (fldValue instanceof String) {
-			List<Object> idRefs = createIdRefCollection(xmlIdObjects, (String) fldValue);
-			if (idRefs == null) {
-				return xmlIdRefObjects;
-			}
-			Object idRef = idRefs.get(0);
-			field.setAccessible(true);
-			try {
-				field.set(parentObject, idRef);
-				if (xmlIdRefObjects == null) {
-					xmlIdRefObjects = new HashMap<>();
-				}
-				xmlIdRefObjects.put(fldValue, idRef);
-			} catch (IllegalArgumentException | IllegalAccessException e) {
-				LOGGER.warn(e.getMessage());
-			}
-			field.setAccessible(false);
-		}
-		return xmlIdRefObjects;
-	}
-	
-	private Map<Object, Object> createIdRef(Object parentObject, Field field, List<Object> objects, Class<?> valueType, Map<String, Object> xmlIdObjects, Map<Object, Object> xmlIdRefObjects) {
-		if (objects == null || objects.isEmpty()) {
-			return xmlIdRefObjects;
-		}
-		List<Object> lstObjects = null;
-		for (Object member : objects) {
-			if (!(member instanceof String)) {
-				Class<?> valType = member.getClass();
-				boolean isPrimitiveOrWrapped = ClassUtils.isPrimitiveOrWrapper(valType);
-				if (!isPrimitiveOrWrapped) {
-					fixXmlIdRefValues(member, valType, xmlIdObjects, xmlIdRefObjects);
-					continue;
-				}
-				member = member.toString();
-				if (member == null) {
-					continue;
-				}
-			}
-			List<Object> idRefs = createIdRefCollection(xmlIdObjects, (String) member);
-			if (idRefs != null) {
-				if (lstObjects == null) {
-					lstObjects = new ArrayList<>();
-				}
-				lstObjects.addAll(idRefs);
-			} else {
-				String msg = new StringBuilder("Error! ID field not found for field ").append(field.getDeclaringClass().getName())
-						.append(".").append(field.getName()).toString();
-				LOGGER.error(msg);
-			}
-		}
-		if (lstObjects != null) {
-			field.setAccessible(true);
-			try {
-				if (valueType.isArray()) {
-					field.set(parentObject, lstObjects.toArray());
-				} else {
-					field.set(parentObject, lstObjects);
-				}
-			} catch (IllegalArgumentException | IllegalAccessException e) {
-				LOGGER.warn(e.getMessage());
-			}
-			field.setAccessible(false);
-		}
-		return xmlIdRefObjects;
-	}
-	
-	private List<Object> createIdRefCollection(Map<String, Object> xmlIdObjects, String idRef) {
-		if (idRef == null) {
-			return null;
-		}
-		List<Object> lstIdRefs = null;
-		String[] refs = idRef.split(" ");
-		for (String ref : refs) {
-			ref = ref.trim();
-			Object idObject = xmlIdObjects.get(ref);
-			if (idObject != null) {
-				if (lstIdRefs == null) {
-					lstIdRefs = new ArrayList<>();
-				}
-				lstIdRefs.add(idObject);
-			}
-		}
-		return lstIdRefs;
-	}
-	
-	private CompiledStatus updateCache(CompiledStatus compiledStatus, Class<?> parentClass, Field field) {
-		if (compiledStatus.isXmlGregorianCalendarFieldExists()) {
-			compiledStatus = addToXmlGregorianCalendarCache(parentClass, field, compiledStatus);
-		}
-		if (compiledStatus.isXmlIdFieldExists()) {
-			compiledStatus = addToXmlIdCache(parentClass, field, compiledStatus);
-		}
-		if (compiledStatus.isXmlIdRefFieldExists()) {
-			compiledStatus = addToXmlIdRefCache(parentClass, field, compiledStatus);
-		}
-		return compiledStatus;
-	}
-
-	private CompiledStatus mergeCompiledStatus(CompiledStatus compiledStatus, CompiledStatus newCompiledStatus) {
-		if (compiledStatus == null) {
-			compiledStatus = newCompiledStatus;
-		} else {
-			if (newCompiledStatus.isXmlGregorianCalendarFieldExists()) {
-				compiledStatus.setXmlGregorianCalendarFieldExists(newCompiledStatus.isXmlGregorianCalendarFieldExists());
-			}
-			if (newCompiledStatus.isXmlIdFieldExists()) {
-				compiledStatus.setXmlIdFieldExists(newCompiledStatus.isXmlIdFieldExists());
-			}
-			if (newCompiledStatus.isXmlIdRefFieldExists()) {
-				compiledStatus.setXmlIdRefFieldExists(newCompiledStatus.isXmlIdRefFieldExists());
-			}
-		}
-		return compiledStatus;
-	}
-	
-	private CompiledStatus addToXmlIdCache(Class<?> parentClass, Field field, CompiledStatus compiledStatus) {
-		if (xmlIdFieldsCache == null) {
-			xmlIdFieldsCache = new HashMap<>();
-		}
-		if (xmlIdFieldsCache.get(parentClass) == null) {
-			xmlIdFieldsCache.put(parentClass, new HashSet<>());
-		}
-		xmlIdFieldsCache.get(parentClass).add(field);
-		if (compiledStatus == null) {
-			compiledStatus = new CompiledStatus();
-		}
-		compiledStatus.setXmlIdFieldExists(true);
-		return compiledStatus;
-	}
-	
-	private CompiledStatus addToXmlIdRefCache(Class<?> parentClass, Field field, CompiledStatus compiledStatus) {
-		if (xmlIdRefFieldsCache == null) {
-			xmlIdRefFieldsCache = new HashMap<>();
-		}
-		if (xmlIdRefFieldsCache.get(parentClass) == null) {
-			xmlIdRefFieldsCache.put(parentClass, new HashSet<>());
-		}
-		xmlIdRefFieldsCache.get(parentClass).add(field);
-		if (compiledStatus == null) {
-			compiledStatus = new CompiledStatus();
-		}
-		compiledStatus.setXmlIdRefFieldExists(true);
-		return compiledStatus;
-	}
-	
-	private CompiledStatus addToXmlGregorianCalendarCache(Class<?> parentClass, Field field, CompiledStatus compiledStatus) {
-		if (xmlGregorianCalendarFieldsCache == null) {
-			xmlGregorianCalendarFieldsCache = new HashMap<>();
-		}
-		if (xmlGregorianCalendarFieldsCache.get(parentClass) == null) {
-			xmlGregorianCalendarFieldsCache.put(parentClass, new HashSet<>());
-		}
-		xmlGregorianCalendarFieldsCache.get(parentClass).add(field);
-		if (compiledStatus == null) {
-			compiledStatus = new CompiledStatus();
-		}
-		compiledStatus.setXmlGregorianCalendarFieldExists(true);
-		return compiledStatus;
-	}
-	
-	private Map<Field, Object> unsetTimeZoneInXmlGregorianCalendar(Field field, XMLGregorianCalendar xmlGregorianCalendar, 
-			Map<Field, Object> miscellaneousFixes) {
-		xmlGregorianCalendar.setTimezone(DatatypeConstants.FIELD_UNDEFINED);
-		if (miscellaneousFixes == null) {
-			miscellaneousFixes = new HashMap<>();
-		}
-		miscellaneousFixes.put(field, xmlGregorianCalendar);
-		return miscellaneousFixes;
-	}
-	
-	private Object readFieldValue(Object parentObject, Field field) {
-		Object fldValue = null;
-		try {
-			field.setAccessible(true);
-			fldValue = field.get(parentObject);
-			field.setAccessible(false);
-		} catch (IllegalArgumentException | IllegalAccessException e) {
-			LOGGER.warn(e.getMessage());
-			throw new RuntimeException(e);
-		}
-		return fldValue;
-	}
-	
-}
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.nio.file.Paths;
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.PostConstruct;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.otcframework.jaxb.CompiledStatus;
+import org.otcframework.jaxb.JaxbIdRefMetadata;
+import org.otcframework.jaxb.ResolveResult;
+import org.otcframework.jaxb.metrics.JaxbIdRefMetrics;
+import org.otcframework.jaxb.metrics.NoOpJaxbIdRefMetrics;
+import org.otcframework.jaxb.util.PackagesFilter;
+import org.otcframework.jaxb.util.PackagesFilterUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public  class JaxbIdRefResolverImpl<T> extends AbstractJaxbIdRefResolver<T> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JaxbIdRefResolverImpl.class);
+	private static final int MAX_RETAINED_ID_INDEX_CAPACITY = 1 << 16;
+	private static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
+	private static final int BATCH_CHUNKS_PER_PROCESSOR = 4;
+	private static final int MAX_CACHED_PREFIXES = 1024;
+	private static final int DEFAULT_METRICS_SAMPLING_INTERVAL = 64;
+	private static final long NOT_SAMPLED = Long.MIN_VALUE;
+	private static final int DEFAULT_TRAVERSAL_STACK_CAPACITY = 64;
+	private static final int MAX_RETAINED_TRAVERSAL_STACK_CAPACITY = 1 << 12;
+
+	protected Boolean unsetTimeZoneInXmlGregorianCalandar;
+	protected String xmlGregorianCalendarPolicies;
+	protected Boolean fixXmlIdRefFields;
+	protected Boolean singlePassResolve;
+	protected Boolean parallelResolve;
+	protected Integer parallelThreshold;
+	protected String compiledMetadataCacheFile;
+	protected Boolean warmUp;
+	protected Integer warmUpThreads;
+	protected Integer metricsSamplingInterval;
+	protected Boolean compactIdIndex;
+	protected Integer maxTraversalDepth;
+	protected Integer traversalStackCapacity;
+
+	private final ConcurrentMap<Class<?>, ClassPlan> classPlanRegistry = new ConcurrentHashMap<>();
+	private final ThreadLocal<IdIndex> idIndexes = new ThreadLocal<>();
+	private final ThreadLocal<IdentitySet> visitedObjectSets = new ThreadLocal<>();
+	private final ThreadLocal<TraversalStack> traversalStacks = new ThreadLocal<>();
+	private final ConcurrentMap<String, String> prefixes = new ConcurrentHashMap<>();
+	private List<String> compileClasses;
+	private PackagesFilter packagesFilter;
+	private ForkJoinPool forkJoinPool;
+	private JaxbIdRefMetrics metrics;
+	private volatile Map<Class<?>, List<FieldDescriptor>> precompiledFieldDescriptors;
+	private volatile XmlGregorianCalendarNormalizer xmlGregorianCalendarNormalizer;
+	private CompiledMetadataCache compiledMetadataCache;
+	private volatile boolean isInitialized;
+	private final CompletableFuture<Void> warmUpFuture = new CompletableFuture<>();
+			
+	public List<String> getCompileClasses() {
+		return compileClasses;
+	}
+
+	public void setCompileClasses(List<String> compileClasses) {
+		this.compileClasses = compileClasses;
+	}
+
+	/**
+	 * Gets the pool running parallel resolves, which is the common pool unless
+	 * one was set.
+	 */
+	public ForkJoinPool getForkJoinPool() {
+		ForkJoinPool forkJoinPool = this.forkJoinPool;
+		return forkJoinPool != null ? forkJoinPool : ForkJoinPool.commonPool();
+	}
+
+	public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = forkJoinPool;
+	}
+
+	/**
+	 * Gets the metrics the resolver reports to, which discard everything unless
+	 * other metrics were set.
+	 */
+	public JaxbIdRefMetrics getMetrics() {
+		JaxbIdRefMetrics metrics = this.metrics;
+		return metrics != null ? metrics : NoOpJaxbIdRefMetrics.INSTANCE;
+	}
+
+	/**
+	 * Sets the metrics the resolver reports to. The time of one pass in
+	 * 'metricsSamplingInterval' is measured, 64 unless set.
+	 */
+	public void setMetrics(JaxbIdRefMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Gets the packages filter of this resolver. Unless filtered packages were
+	 * set on the resolver, this is the filter {@link PackagesFilterUtil} holds at
+	 * the time of the call, so a later change of the shared packages applies to
+	 * the classes compiled after it.
+	 */
+	public PackagesFilter getPackagesFilter() {
+		PackagesFilter packagesFilter = this.packagesFilter;
+		return packagesFilter != null ? packagesFilter : PackagesFilterUtil.getPackagesFilter();
+	}
+
+	/**
+	 * Sets the packages of the JAXB classes for this resolver only. It must be
+	 * set before the first compile.
+	 */
+	public void setFilteredPackages(Set<String> pkgsToFilter) {
+		this.packagesFilter = new PackagesFilter(pkgsToFilter);
+	}
+
+	@PostConstruct
+	public void initialize() {
+		if (compiledMetadataCacheFile != null) {
+			compiledMetadataCache = new CompiledMetadataCache(Paths.get(compiledMetadataCacheFile),
+					fetchCompiledMetadataSettings());
+			compiledMetadataCache.load();
+		}
+		for (String clsName : compileClasses) {
+			Class<?> cls;
+			try {
+				cls = ClassUtils.getClass(clsName);
+				compile(cls);
+			} catch (ClassNotFoundException e) {
+				// TODO Auto-generated catch block
+				e.printStackTrace();
+			}
+		}
+		if (Boolean.TRUE.equals(warmUp)) {
+			startWarmUp();
+			return;
+		}
+		completeInitialization();
+		return;
+	}
+
+	/**
+	 * Writes the compiled metadata cache file now if classes were compiled since
+	 * it was last written. The file is otherwise saved in the background after
+	 * the startup compilations and on shutdown, so this is only needed to keep
+	 * the classes compiled lazily without waiting for shutdown.
+	 */
+	public void saveCompiledMetadataCache() {
+		if (compiledMetadataCache != null) {
+			compiledMetadataCache.save();
+		}
+		return;
+	}
+
+	/**
+	 * Gets the future completed once the startup compilations, including the
+	 * warm-up if it is turned on, are done.
+	 */
+	public CompletableFuture<Void> getWarmUpFuture() {
+		return warmUpFuture;
+	}
+
+	/**
+	 * Checks if the startup compilations, including the warm-up if it is turned
+	 * on, are done, for readiness probes.
+	 */
+	public boolean isWarmedUp() {
+		return warmUpFuture.isDone();
+	}
+
+	/**
+	 * Scans the classpath under the filtered packages for root classes and
+	 * compiles them in the background, on a pool of warmUpThreads daemon
+	 * threads.
+	 */
+	private void startWarmUp() {
+		long startTime = System.nanoTime();
+		PackagesFilter packagesFilter = getPackagesFilter();
+		ClassLoader classLoader = fetchClassLoader();
+		int threads = warmUpThreads != null && warmUpThreads > 0 ? warmUpThreads : Runtime.getRuntime().availableProcessors();
+		ExecutorService executorService = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "jaxb-id-resolver-warm-up");
+			thread.setDaemon(true);
+			return thread;
+		});
+		CompletableFuture.supplyAsync(() -> JaxbRootScanner.scan(packagesFilter, classLoader), executorService)
+				.thenCompose(rootClasses -> {
+					List<CompletableFuture<Void>> futures = new ArrayList<>();
+					for (Class<?> rootClass : rootClasses) {
+						futures.add(CompletableFuture.runAsync(() -> compileRootClass(rootClass), executorService));
+					}
+					return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+							.thenApply(result -> rootClasses.size());
+				}).whenComplete((count, ex) -> {
+					executorService.shutdown();
+					if (ex != null) {
+						LOGGER.warn("Warm-up failed - {}", ex.getMessage());
+					} else {
+						LOGGER.info("Warmed up {} root classes in {} ms.", count, (System.nanoTime() - startTime) / 1000000);
+					}
+					completeInitialization();
+				});
+		return;
+	}
+
+	private void compileRootClass(Class<?> rootClass) {
+		try {
+			compile(rootClass);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Cannot compile {} - {}", rootClass.getName(), e.getMessage());
+		}
+		return;
+	}
+
+	private void completeInitialization() {
+		if (compiledMetadataCache != null) {
+			compiledMetadataCache.saveInBackground();
+		}
+		isInitialized = true;
+		LOGGER.info("Completed compilations.");
+		warmUpFuture.complete(null);
+		return;
+	}
+
+	private ClassLoader fetchClassLoader() {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		return classLoader != null ? classLoader : JaxbIdRefResolverImpl.class.getClassLoader();
+	}
+
+	@Override
+	public T resolve(T parentObject) {
+		return resolve(parentObject, -1);
+	}
+
+	@Override
+	public T resolve(T parentObject, int expectedIdCount) {
+		if (parentObject == null) {
+			return null;
+		}
+		IdIndex xmlIdObjects = null;
+		try {
+			if (!isResolveEnabled()) {
+				return parentObject;
+			}
+			ClassPlan classPlan = compile(parentObject);
+			xmlIdObjects = acquireIdIndex();
+			resolve(parentObject, classPlan, expectedIdCount, xmlIdObjects, null);
+		} catch (Exception ex) {
+			LOGGER.error("", ex);
+		} finally {
+			releaseIdIndex(xmlIdObjects);
+		}
+		return parentObject;
+	}
+
+	/**
+	 * Resolves the document like {@link #resolve(Object)} and returns the IDs
+	 * found and the IDREF bindings made, so the referrers of an object can be
+	 * looked up without traversing the document again. The document gets an ID
+	 * index of its own, which is handed to the result.
+	 */
+	public ResolveResult resolveWithResult(T parentObject) {
+		IdIndex xmlIdObjects = createIdIndex();
+		IdRefPatches idRefLinks = new IdRefPatches();
+		if (parentObject != null) {
+			try {
+				if (isResolveEnabled()) {
+					resolve(parentObject, compile(parentObject), -1, xmlIdObjects, idRefLinks);
+				}
+			} catch (Exception ex) {
+				LOGGER.error("", ex);
+			}
+		}
+		return new ResolveResultImpl(xmlIdObjects, idRefLinks);
+	}
+
+	/**
+	 * Resolves the documents in chunks, so each task of the executor resolves
+	 * many documents with one ID index and one plan lookup per run of documents of
+	 * the same class. The executor may be a virtual thread per task executor on
+	 * JDKs that have one. The exceptions of a document are logged as by
+	 * {@link #resolve(Object)}; anything else a chunk throws is thrown to the
+	 * caller once all the chunks are done.
+	 *
+	 * The documents of a stream are resolved with {@link #resolve(Object)} as
+	 * the stream is consumed, so on a parallel stream each thread keeps reusing
+	 * its own ID index.
+	 */
+	@Override
+	public List<T> resolveAll(Collection<T> parentObjects, Executor executor) {
+		if (parentObjects == null) {
+			return null;
+		}
+		List<T> lstParentObjects = new ArrayList<>(parentObjects);
+		try {
+			if (!isResolveEnabled()) {
+				return lstParentObjects;
+			}
+		} catch (Exception ex) {
+			LOGGER.error("", ex);
+			return lstParentObjects;
+		}
+		int size = lstParentObjects.size();
+		if (executor == null || size <= 1) {
+			resolveBatch(lstParentObjects, 0, size);
+			return lstParentObjects;
+		}
+		int chunkSize = Math.max(1, size / (Runtime.getRuntime().availableProcessors() * BATCH_CHUNKS_PER_PROCESSOR));
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int from = 0; from < size; from += chunkSize) {
+			int start = from;
+			int end = Math.min(size, from + chunkSize);
+			futures.add(CompletableFuture.runAsync(() -> resolveBatch(lstParentObjects, start, end), executor));
+		}
+		try {
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+		return lstParentObjects;
+	}
+
+	private void resolveBatch(List<T> parentObjects, int from, int to) {
+		IdIndex xmlIdObjects = acquireIdIndex();
+		Class<?> parentClass = null;
+		ClassPlan classPlan = null;
+		try {
+			for (int idx = from; idx < to; idx++) {
+				T parentObject = parentObjects.get(idx);
+				if (parentObject == null) {
+					continue;
+				}
+				try {
+					if (parentObject.getClass() != parentClass) {
+						classPlan = compile(parentObject);
+						parentClass = parentObject.getClass();
+					}
+					resolve(parentObject, classPlan, -1, xmlIdObjects, null);
+				} catch (Exception ex) {
+					LOGGER.error("", ex);
+				}
+			}
+		} finally {
+			releaseIdIndex(xmlIdObjects);
+		}
+		return;
+	}
+	
+	private boolean isResolveEnabled() {
+		if (!fixXmlIdRefFields && !fetchXmlGregorianCalendarNormalizer().isEnabled()) {
+			LOGGER.warn("Both 'fixXmlIdRefFields' and the XMLGregorianCalendar policies are turned-off or not set.");
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Resolves one document with the given ID index, which is emptied first and
+	 * left holding the IDs of the document. The IDREF bindings made are added to
+	 * idRefLinks, unless it is null.
+	 */
+	private void resolve(Object parentObject, ClassPlan classPlan, int expectedIdCount, IdIndex xmlIdObjects, IdRefPatches idRefLinks) {
+		if (expectedIdCount < 0) {
+			expectedIdCount = classPlan.getExpectedIdCount();
+		}
+		xmlIdObjects.clear(expectedIdCount);
+		if (Boolean.TRUE.equals(singlePassResolve)) {
+			resolveInSinglePass(parentObject, classPlan, xmlIdObjects, idRefLinks);
+		} else {
+			if (fixXmlIdRefFields) {
+				fetchXmlIdValues(parentObject, classPlan, xmlIdObjects);
+				if (xmlIdObjects.size() > 0) {
+					walk(JaxbIdRefMetrics.Pass.XML_IDREF, parentObject, classPlan, ClassPlan.XML_IDREF,
+							new XmlIdRefVisitor(this, xmlIdObjects, idRefLinks));
+				}
+			}
+			if (fetchXmlGregorianCalendarNormalizer().isEnabled()) {
+				fixXmlGregorianCalendarValues(parentObject, classPlan);
+			}
+		}
+		if (fixXmlIdRefFields) {
+			classPlan.updateExpectedIdCount(xmlIdObjects.size());
+		}
+		reportResolved(classPlan, xmlIdObjects);
+		return;
+	}
+	
+	@Override
+	public T prefixIds(T parentObject, String thirdpartyId) {
+		if (parentObject == null) {
+			return null;
+		}
+		ClassPlan classPlan = compile(parentObject);
+		fetchFieldValueAndPrefix(parentObject, classPlan, fetchPrefix(thirdpartyId), true);
+		return parentObject;
+	}
+	
+	@Override
+	public T stripPrefixInIds(T parentObject, String thirdpartyId) {
+		if (parentObject == null) {
+			return null;
+		}
+		ClassPlan classPlan = compile(parentObject);
+		fetchFieldValueAndPrefix(parentObject, classPlan, fetchPrefix(thirdpartyId), false);
+		return parentObject;
+	}
+	
+	@Override
+	public T prefixIdsAndResolve(T parentObject, String thirdpartyId) {
+		if (parentObject == null) {
+			return null;
+		}
+		IdIndex xmlIdObjects = null;
+		try {
+			ClassPlan classPlan = compile(parentObject);
+			xmlIdObjects = acquireIdIndex();
+			xmlIdObjects.clear(classPlan.getExpectedIdCount());
+			SinglePassVisitor singlePassVisitor = new SinglePassVisitor(xmlIdObjects, fetchXmlGregorianCalendarNormalizer());
+			int singlePassStatus = fetchSinglePassStatus();
+			XmlIdPrefixVisitor xmlIdPrefixVisitor = new XmlIdPrefixVisitor(fetchPrefix(thirdpartyId), true, singlePassVisitor, singlePassStatus);
+			long startTime = startSample();
+			traverse(parentObject, classPlan, ClassPlan.XML_ID | ClassPlan.XML_IDREF | singlePassStatus, xmlIdPrefixVisitor);
+			bindIdRefPatches(singlePassVisitor);
+			reportPass(JaxbIdRefMetrics.Pass.SINGLE_PASS, classPlan, xmlIdPrefixVisitor, startTime);
+			if (Boolean.TRUE.equals(fixXmlIdRefFields)) {
+				classPlan.updateExpectedIdCount(xmlIdObjects.size());
+			}
+			reportResolved(classPlan, xmlIdObjects);
+		} catch (Exception ex) {
+			LOGGER.error("", ex);
+		} finally {
+			releaseIdIndex(xmlIdObjects);
+		}
+		return parentObject;
+	}
+	
+	/**
+	 * Gets the prefix of the third party, which is its ID followed by a hyphen.
+	 * The prefixes of the last parties seen are cached, so a document of a known
+	 * party does not concatenate its prefix again.
+	 */
+	private String fetchPrefix(String thirdpartyId) {
+		String prefix = prefixes.get(thirdpartyId);
+		if (prefix != null) {
+			return prefix;
+		}
+		prefix = thirdpartyId.concat("-");
+		if (prefixes.size() >= MAX_CACHED_PREFIXES) {
+			prefixes.clear();
+		}
+		prefixes.put(thirdpartyId, prefix);
+		return prefix;
+	}
+	
+	@Override
+	public void fixXmlGregorianCalendarValues(T parentObject) {
+		ClassPlan classPlan = compile(parentObject);
+		fixXmlGregorianCalendarValues(parentObject, classPlan);
+		return;
+	}
+	
+	/**
+	 * Creates a binder that resolves a document while it is being built, for
+	 * deserializers that hand over every object once it is complete.
+	 */
+	public IdRefBinder createIdRefBinder() {
+		return new IdRefBinder(this);
+	}
+	
+	/**
+	 * Creates a session that resolves the document and keeps its ID index and
+	 * IDREF sites, so the document can be resolved again after an edit by
+	 * resolving only the edited objects.
+	 */
+	public ResolutionSession createResolutionSession(T parentObject) {
+		ResolutionSession resolutionSession = new ResolutionSession(this);
+		resolutionSession.resolveSubtree(parentObject);
+		return resolutionSession;
+	}
+	
+	/**
+	 * Walks an object of a document and everything below it with the visitor
+	 * of a session.
+	 */
+	void visit(Object parentObject, int status, PlanVisitor planVisitor) {
+		Class<?> parentClass = parentObject.getClass();
+		ClassPlan classPlan = classPlanRegistry.get(parentClass);
+		if (classPlan == null) {
+			compile(parentClass);
+			classPlan = classPlanRegistry.get(parentClass);
+		}
+		walk(parentObject, classPlan, status, planVisitor);
+		return;
+	}
+	
+	/**
+	 * Binds the IDREF value of a field to the objects of the index, as a resolve
+	 * would.
+	 */
+	void bindIdRef(Object parentObject, FieldAccessor field, Object fldValue, IdIndex xmlIdObjects) {
+		XmlIdRefVisitor xmlIdRefVisitor = new XmlIdRefVisitor(this, xmlIdObjects, null);
+		try {
+			createIdRef(parentObject, field, fldValue, xmlIdRefVisitor);
+			traverseIdRefTargets(xmlIdRefVisitor);
+		} finally {
+			releaseVisitedObjects(xmlIdRefVisitor);
+		}
+		return;
+	}
+	
+	private void resolveInSinglePass(Object parentObject, ClassPlan classPlan, IdIndex xmlIdObjects, IdRefPatches idRefLinks) {
+		SinglePassVisitor singlePassVisitor = new SinglePassVisitor(xmlIdObjects, fetchXmlGregorianCalendarNormalizer());
+		long startTime = startSample();
+		traverse(parentObject, classPlan, fetchSinglePassStatus(), singlePassVisitor);
+		bindIdRefPatches(singlePassVisitor, idRefLinks);
+		reportPass(JaxbIdRefMetrics.Pass.SINGLE_PASS, classPlan, singlePassVisitor, startTime);
+		return;
+	}
+	
+	/**
+	 * Records the values of the object's own fields in the visitor of a binder,
+	 * without descending into its child objects, which are registered on their
+	 * own.
+	 */
+	void register(Object parentObject, SinglePassVisitor singlePassVisitor) {
+		ClassPlan classPlan = fetchClassPlan(parentObject.getClass());
+		if (classPlan == null) {
+			return;
+		}
+		FieldPlan[] fieldPlans = classPlan.getFieldPlans(fetchSinglePassStatus());
+		for (int idx = 0; idx < fieldPlans.length; idx++) {
+			FieldPlan fieldPlan = fieldPlans[idx];
+			if (fieldPlan.getChildType() != null) {
+				continue;
+			}
+			FieldAccessor field = fieldPlan.getFieldAccessor();
+			Object fldValue = readFieldValue(parentObject, field);
+			if (fldValue == null) {
+				continue;
+			}
+			switch (fieldPlan.getKind()) {
+			case XML_ID:
+				singlePassVisitor.visitXmlId(parentObject, field, fldValue);
+				break;
+			case XML_IDREF:
+				singlePassVisitor.visitXmlIdRef(parentObject, field, fldValue);
+				break;
+			case XML_GREGORIAN_CALENDAR:
+				singlePassVisitor.visitXmlGregorianCalendar(parentObject, field, fldValue);
+				break;
+			default:
+				break;
+			}
+		}
+		return;
+	}
+	
+	int fetchSinglePassStatus() {
+		int status = 0;
+		if (Boolean.TRUE.equals(fixXmlIdRefFields)) {
+			status |= ClassPlan.XML_ID | ClassPlan.XML_IDREF;
+		}
+		if (fetchXmlGregorianCalendarNormalizer().isEnabled()) {
+			status |= ClassPlan.XML_GREGORIAN_CALENDAR;
+		}
+		return status;
+	}
+	
+	/**
+	 * Binds the IDREF sites recorded by the visitor once all the IDs of the
+	 * document are known.
+	 */
+	void bindIdRefPatches(SinglePassVisitor singlePassVisitor) {
+		bindIdRefPatches(singlePassVisitor, null);
+		return;
+	}
+
+	/**
+	 * Binds the recorded IDREF sites, adding the bindings made to idRefLinks
+	 * unless it is null. Collecting the bindings keeps them in document order,
+	 * so the sites are then bound on the calling thread.
+	 */
+	private void bindIdRefPatches(SinglePassVisitor singlePassVisitor, IdRefPatches idRefLinks) {
+		IdIndex xmlIdObjects = singlePassVisitor.xmlIdObjects;
+		if (xmlIdObjects.size() == 0) {
+			return;
+		}
+		IdRefPatches idRefPatches = singlePassVisitor.idRefPatches;
+		if (idRefLinks == null && isParallel(idRefPatches.size())) {
+			invoke(new IdRefPatchTask(idRefPatches, 0, idRefPatches.size(), xmlIdObjects));
+		} else {
+			applyIdRefPatches(idRefPatches, 0, idRefPatches.size(), xmlIdObjects, idRefLinks);
+		}
+		return;
+	}
+
+	private void applyIdRefPatches(IdRefPatches idRefPatches, int from, int to, IdIndex xmlIdObjects, IdRefPatches idRefLinks) {
+		XmlIdRefVisitor xmlIdRefVisitor = new XmlIdRefVisitor(this, xmlIdObjects, idRefLinks);
+		try {
+			for (int idx = from; idx < to; idx++) {
+				createIdRef(idRefPatches.getOwner(idx), idRefPatches.getField(idx), idRefPatches.getValue(idx),
+						xmlIdRefVisitor);
+			}
+			traverseIdRefTargets(xmlIdRefVisitor);
+		} finally {
+			releaseVisitedObjects(xmlIdRefVisitor);
+		}
+		return;
+	}
+
+	/**
+	 * Takes the set of visited objects kept for this thread, or creates one if
+	 * the thread has none or is already using it in an outer pass.
+	 */
+	private IdentitySet acquireVisitedObjects() {
+		IdentitySet visitedObjects = visitedObjectSets.get();
+		if (visitedObjects == null) {
+			return new IdentitySet();
+		}
+		visitedObjectSets.remove();
+		return visitedObjects;
+	}
+
+	/**
+	 * Gives back the set of visited objects the visitor took, if any.
+	 */
+	private void releaseVisitedObjects(PlanVisitor planVisitor) {
+		IdentitySet visitedObjects = planVisitor.getVisitedObjects();
+		if (visitedObjects == null) {
+			return;
+		}
+		planVisitor.setVisitedObjects(null);
+		if (visitedObjects.capacity() > MAX_RETAINED_ID_INDEX_CAPACITY) {
+			return;
+		}
+		visitedObjects.clear();
+		visitedObjectSets.set(visitedObjects);
+		return;
+	}
+
+	/**
+	 * Takes the ID index kept for this thread, or creates one if the thread has
+	 * none or is already using it in an outer resolve.
+	 */
+	private IdIndex acquireIdIndex() {
+		IdIndex idIndex = idIndexes.get();
+		if (idIndex == null) {
+			return createIdIndex();
+		}
+		idIndexes.remove();
+		return idIndex;
+	}
+
+	/**
+	 * Creates an empty ID index, keeping its entries in dense arrays if
+	 * 'compactIdIndex' is turned on.
+	 */
+	IdIndex createIdIndex() {
+		return IdIndex.create(0, Boolean.TRUE.equals(compactIdIndex));
+	}
+
+	/**
+	 * Empties the index and keeps it for the next resolve on this thread unless
+	 * it grew too large to hold on to.
+	 */
+	private void releaseIdIndex(IdIndex idIndex) {
+		if (idIndex == null || idIndex.capacity() > MAX_RETAINED_ID_INDEX_CAPACITY) {
+			return;
+		}
+		idIndex.clear(0);
+		idIndexes.set(idIndex);
+		return;
+	}
+
+	private void fetchFieldValueAndPrefix(Object parentObject, ClassPlan classPlan, String prefix, boolean isPrefix) {
+		walk(JaxbIdRefMetrics.Pass.PREFIX, parentObject, classPlan, ClassPlan.XML_ID | ClassPlan.XML_IDREF,
+				new XmlIdPrefixVisitor(prefix, isPrefix, null, 0));
+		return;
+	}
+	
+	private ClassPlan compile(T parentObject) {
+		Class<?> parentClass = parentObject.getClass();
+		ClassPlan classPlan = classPlanRegistry.get(parentClass);
+		if (classPlan == null) {
+			compile(parentClass);
+			classPlan = classPlanRegistry.get(parentClass);
+		}
+		return classPlan;
+	}
+	
+	/**
+	 * Compiles the class and every class reachable from its fields into one flat
+	 * plan per class. The plans are built privately and only published to the
+	 * registry once complete, so concurrent resolves never see a partially
+	 * compiled class and never wait on a compile.
+	 */
+	@Override
+	public CompiledStatus compile(Class<?> parentClass) {
+		if (!classPlanRegistry.containsKey(parentClass)) {
+			long startTime = System.nanoTime();
+			Map<Class<?>, ClassPlan.Builder> builders = new LinkedHashMap<>();
+			collectFields(parentClass, builders);
+			propagateCompiledStatus(builders);
+			for (ClassPlan classPlan : buildClassPlans(builders)) {
+				classPlanRegistry.putIfAbsent(classPlan.getType(), classPlan);
+			}
+			getMetrics().compiled(parentClass, System.nanoTime() - startTime);
+		}
+		return toCompiledStatus(fetchCompiledStatus(parentClass, null), classPlanRegistry.get(parentClass));
+	}
+	
+	private void collectFields(Class<?> parentClass, Map<Class<?>, ClassPlan.Builder> builders) {
+		Class<?> keyClass = parentClass;
+		while (keyClass != null && !builders.containsKey(keyClass) && !classPlanRegistry.containsKey(keyClass)) {
+			ClassPlan.Builder builder = new ClassPlan.Builder(keyClass);
+			builders.put(keyClass, builder);
+			if (!collectCachedFields(keyClass, builder, builders)) {
+				collectDeclaredFields(keyClass, builder, builders);
+			}
+			keyClass = fetchSuperclass(keyClass);
+		}
+		return;
+	}
+
+	/**
+	 * Adds the fields of the class as the compiled metadata cache holds them,
+	 * unless the metadata generated at build time describes the class.
+	 *
+	 * @return false if the cache does not hold the class as it is now
+	 */
+	private boolean collectCachedFields(Class<?> keyClass, ClassPlan.Builder builder,
+			Map<Class<?>, ClassPlan.Builder> builders) {
+		CompiledMetadataCache compiledMetadataCache = this.compiledMetadataCache;
+		if (compiledMetadataCache == null || fetchPrecompiledFieldDescriptors().containsKey(keyClass)) {
+			return false;
+		}
+		List<CompiledMetadataCache.CachedField> cachedFields = compiledMetadataCache.fetchCachedFields(keyClass);
+		if (cachedFields == null) {
+			return false;
+		}
+		for (CompiledMetadataCache.CachedField cachedField : cachedFields) {
+			FieldAccessor field = FieldAccessor.create(cachedField.getFieldDescriptor());
+			Class<?> childType = cachedField.getChildType();
+			if (childType == null) {
+				builder.addField(field, cachedField.getFieldStatus());
+			} else {
+				builder.addChildField(field, childType);
+				collectFields(childType, builders);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the fields of the class from the metadata generated at build time if
+	 * it describes the class, otherwise read by reflection and stored in the
+	 * compiled metadata cache.
+	 */
+	private void collectDeclaredFields(Class<?> keyClass, ClassPlan.Builder builder,
+			Map<Class<?>, ClassPlan.Builder> builders) {
+		List<FieldDescriptor> fieldDescriptors = fetchPrecompiledFieldDescriptors().get(keyClass);
+		boolean isReflected = fieldDescriptors == null;
+		if (isReflected) {
+			fieldDescriptors = FieldDescriptor.of(keyClass);
+		}
+		for (FieldDescriptor fieldDescriptor : fieldDescriptors) {
+			if (fieldDescriptor.getType().isEnum()) {
+				continue;
+			}
+			int fieldStatus = fetchFieldStatus(fieldDescriptor);
+			if (fieldStatus != 0) {
+				builder.addField(FieldAccessor.create(fieldDescriptor), fieldStatus);
+				continue;
+			}
+			Class<?> componentType = fieldDescriptor.getComponentType();
+			if (componentType != null && getPackagesFilter().isFilteredPackage(componentType)) {
+				builder.addChildField(FieldAccessor.create(fieldDescriptor), componentType);
+				collectFields(componentType, builders);
+			}
+		}
+		CompiledMetadataCache compiledMetadataCache = this.compiledMetadataCache;
+		if (isReflected && compiledMetadataCache != null) {
+			compiledMetadataCache.put(keyClass, builder);
+		}
+		return;
+	}
+
+	/**
+	 * The settings the fields collected for a class depend on, recorded with the
+	 * compiled metadata cache.
+	 */
+	private String fetchCompiledMetadataSettings() {
+		return "packages=" + new TreeSet<>(getPackagesFilter().getPackages()) + ";xmlGregorianCalendar="
+				+ fetchXmlGregorianCalendarNormalizer().isEnabled();
+	}
+	
+	/**
+	 * Settles the status of the child fields. Classes may reference each other in
+	 * cycles, so the statuses are merged until none of them changes.
+	 */
+	private void propagateCompiledStatus(Map<Class<?>, ClassPlan.Builder> builders) {
+		boolean isChanged = true;
+		while (isChanged) {
+			isChanged = false;
+			for (ClassPlan.Builder builder : builders.values()) {
+				for (int idx = 0; idx < builder.getFieldCount(); idx++) {
+					Class<?> childType = builder.getChildType(idx);
+					if (childType != null && builder.updateChildStatus(idx, fetchCompiledStatus(childType, builders))) {
+						isChanged = true;
+					}
+				}
+			}
+		}
+		return;
+	}
+	
+	/**
+	 * Flattens the declared fields of every class and its superclasses into one
+	 * plan per class, then links the child fields to the plans of their types.
+	 */
+	private List<ClassPlan> buildClassPlans(Map<Class<?>, ClassPlan.Builder> builders) {
+		Map<Class<?>, FieldPlan[]> declaredFieldPlans = new HashMap<>();
+		for (ClassPlan.Builder builder : builders.values()) {
+			declaredFieldPlans.put(builder.getType(), builder.buildFieldPlans());
+		}
+		Map<Class<?>, ClassPlan> classPlans = new LinkedHashMap<>();
+		for (ClassPlan.Builder builder : builders.values()) {
+			List<FieldPlan> fieldPlans = new ArrayList<>();
+			Class<?> keyClass = builder.getType();
+			while (keyClass != null) {
+				FieldPlan[] levelFieldPlans = declaredFieldPlans.get(keyClass);
+				if (levelFieldPlans == null) {
+					ClassPlan superClassPlan = classPlanRegistry.get(keyClass);
+					if (superClassPlan != null) {
+						fieldPlans.addAll(Arrays.asList(superClassPlan.getFieldPlans()));
+					}
+					break;
+				}
+				fieldPlans.addAll(Arrays.asList(levelFieldPlans));
+				keyClass = fetchSuperclass(keyClass);
+			}
+			ClassPlan classPlan = new ClassPlan(builder.getType(), fetchCompiledStatus(builder.getType(), builders),
+					fieldPlans.toArray(new FieldPlan[fieldPlans.size()]));
+			classPlans.put(builder.getType(), classPlan);
+		}
+		for (FieldPlan[] levelFieldPlans : declaredFieldPlans.values()) {
+			for (FieldPlan fieldPlan : levelFieldPlans) {
+				Class<?> childType = fieldPlan.getChildType();
+				if (childType != null) {
+					ClassPlan childPlan = classPlans.get(childType);
+					fieldPlan.setChildPlan(childPlan != null ? childPlan : classPlanRegistry.get(childType));
+				}
+			}
+		}
+		return new ArrayList<>(classPlans.values());
+	}
+	
+	private int fetchCompiledStatus(Class<?> parentClass, Map<Class<?>, ClassPlan.Builder> builders) {
+		int compiledStatus = 0;
+		Class<?> keyClass = parentClass;
+		while (keyClass != null) {
+			ClassPlan classPlan = classPlanRegistry.get(keyClass);
+			if (classPlan != null) {
+				compiledStatus |= classPlan.getCompiledStatus();
+				break;
+			}
+			if (builders != null && builders.containsKey(keyClass)) {
+				compiledStatus |= builders.get(keyClass).getCompiledStatus();
+			}
+			keyClass = fetchSuperclass(keyClass);
+		}
+		return compiledStatus;
+	}
+	
+	private CompiledStatus toCompiledStatus(int status, ClassPlan classPlan) {
+		if (status == 0) {
+			return null;
+		}
+		CompiledStatus compiledStatus = new CompiledStatus();
+		compiledStatus.setXmlIdFieldExists((status & ClassPlan.XML_ID) != 0);
+		compiledStatus.setXmlIdRefFieldExists((status & ClassPlan.XML_IDREF) != 0);
+		compiledStatus.setXmlGregorianCalendarFieldExists((status & ClassPlan.XML_GREGORIAN_CALENDAR) != 0);
+		compiledStatus.setStatus(status);
+		Map<String, Integer> fieldStatuses = new LinkedHashMap<>();
+		Map<String, CompiledStatus.FieldAccessorType> fieldAccessorTypes = new LinkedHashMap<>();
+		if (classPlan != null) {
+			for (FieldPlan fieldPlan : classPlan.getFieldPlans()) {
+				FieldAccessor field = fieldPlan.getFieldAccessor();
+				fieldStatuses.put(field.getName(), fieldPlan.getStatus());
+				fieldAccessorTypes.put(field.getName(), field.getAccessorType());
+			}
+		}
+		compiledStatus.setFieldStatuses(fieldStatuses);
+		compiledStatus.setFieldAccessorTypes(fieldAccessorTypes);
+		return compiledStatus;
+	}
+	
+	private int fetchFieldStatus(FieldDescriptor fieldDescriptor) {
+		if (fetchXmlGregorianCalendarNormalizer().isEnabled() && fieldDescriptor.getType().equals(XMLGregorianCalendar.class)) {
+			return ClassPlan.XML_GREGORIAN_CALENDAR;
+		}
+		if (fieldDescriptor.isXmlIdRef()) {
+			return ClassPlan.XML_IDREF;
+		}
+		if (fieldDescriptor.isXmlId()) {
+			return ClassPlan.XML_ID;
+		}
+		return 0;
+	}
+	
+	private Map<Class<?>, List<FieldDescriptor>> fetchPrecompiledFieldDescriptors() {
+		Map<Class<?>, List<FieldDescriptor>> fieldDescriptors = precompiledFieldDescriptors;
+		if (fieldDescriptors == null) {
+			synchronized (this) {
+				fieldDescriptors = precompiledFieldDescriptors;
+				if (fieldDescriptors == null) {
+					fieldDescriptors = loadPrecompiledFieldDescriptors();
+					precompiledFieldDescriptors = fieldDescriptors;
+				}
+			}
+		}
+		return fieldDescriptors;
+	}
+	
+	private Map<Class<?>, List<FieldDescriptor>> loadPrecompiledFieldDescriptors() {
+		PrecompiledMetadataRegistry registry = new PrecompiledMetadataRegistry();
+		// One metadata class that fails to load, such as a stale service file entry,
+		// is skipped without dropping the others.
+		Iterator<JaxbIdRefMetadata> iterator = ServiceLoader.load(JaxbIdRefMetadata.class).iterator();
+		while (true) {
+			try {
+				if (!iterator.hasNext()) {
+					break;
+				}
+				iterator.next().register(registry);
+			} catch (ServiceConfigurationError e) {
+				LOGGER.warn(e.getMessage());
+			}
+		}
+		Map<Class<?>, List<FieldDescriptor>> fieldDescriptors = registry.getFieldDescriptors();
+		if (!fieldDescriptors.isEmpty()) {
+			LOGGER.info("Loaded precompiled metadata of {} classes.", fieldDescriptors.size());
+		}
+		return fieldDescriptors;
+	}
+	
+	private Class<?> fetchSuperclass(Class<?> keyClass) {
+		keyClass = keyClass.getSuperclass();
+		if (keyClass == null || !getPackagesFilter().isFilteredPackage(keyClass)) {
+			keyClass = null;
+		}
+		return keyClass;
+	}
+	
+	/**
+	 * Fetches the plan of the runtime class of a child object, compiling it on
+	 * first use if it is a subclass that was not met by compile.
+	 */
+	private ClassPlan fetchClassPlan(Class<?> parentClass) {
+		ClassPlan classPlan = classPlanRegistry.get(parentClass);
+		if (classPlan == null && getPackagesFilter().isFilteredPackage(parentClass)) {
+			compile(parentClass);
+			classPlan = classPlanRegistry.get(parentClass);
+		}
+		return classPlan;
+	}
+	
+	/**
+	 * Walks the fields of the plan whose status shares a bit with the status
+	 * asked for, hands the ID, IDREF and XMLGregorianCalendar values to the
+	 * visitor and descends into the child objects. Child fields below which none
+	 * of the bits can be found are not part of the pass at all.
+	 *
+	 * The objects are walked depth-first off a work stack, in the same order as
+	 * a recursion over the fields and the container members would.
+	 */
+	private void traverse(Object parentObject, ClassPlan classPlan, int status, PlanVisitor planVisitor) {
+		TraversalStack traversalStack = acquireTraversalStack();
+		try {
+			planVisitor.countObject();
+			traversalStack.push(parentObject, classPlan.getFieldPlans(status));
+			traverse(traversalStack, status, planVisitor);
+		} finally {
+			releaseTraversalStack(traversalStack);
+		}
+		return;
+	}
+	
+	/**
+	 * Walks the objects reached through the IDREF values an IDREF visitor bound
+	 * outside of a traversal.
+	 */
+	private void traverseIdRefTargets(XmlIdRefVisitor xmlIdRefVisitor) {
+		if (!xmlIdRefVisitor.hasIdRefTargets()) {
+			return;
+		}
+		TraversalStack traversalStack = acquireTraversalStack();
+		try {
+			pushIdRefTargets(traversalStack, xmlIdRefVisitor);
+			traverse(traversalStack, ClassPlan.XML_IDREF, xmlIdRefVisitor);
+		} finally {
+			releaseTraversalStack(traversalStack);
+		}
+		return;
+	}
+	
+	/**
+	 * Walks the objects on the work stack until it is empty.
+	 */
+	private void traverse(TraversalStack traversalStack, int status, PlanVisitor planVisitor) {
+		while (!traversalStack.isEmpty()) {
+			if (traversalStack.hasContainer()) {
+				if (traversalStack.hasNextMember()) {
+					pushMember(traversalStack, traversalStack.nextMember(), traversalStack.getFieldPlan(), status, planVisitor);
+				}
+				continue;
+			}
+			FieldPlan fieldPlan = traversalStack.nextFieldPlan();
+			if (fieldPlan == null) {
+				traversalStack.pop();
+				continue;
+			}
+			Object currentObject = traversalStack.getParentObject();
+			FieldAccessor field = fieldPlan.getFieldAccessor();
+			Object fldValue = readFieldValue(currentObject, field);
+			if (fldValue == null) {
+				continue;
+			}
+			switch (fieldPlan.getKind()) {
+			case XML_ID:
+				planVisitor.visitXmlId(currentObject, field, fldValue);
+				break;
+			case XML_IDREF:
+				planVisitor.visitXmlIdRef(currentObject, field, fldValue);
+				if (planVisitor instanceof XmlIdRefVisitor) {
+					pushIdRefTargets(traversalStack, (XmlIdRefVisitor) planVisitor);
+				}
+				break;
+			case XML_GREGORIAN_CALENDAR:
+				planVisitor.visitXmlGregorianCalendar(currentObject, field, fldValue);
+				break;
+			case CHILD_OBJECT:
+				pushMember(traversalStack, fldValue, fieldPlan, status, planVisitor);
+				break;
+			case CHILD_LIST:
+				List<?> members = (List<?>) fldValue;
+				if (isForkable(planVisitor, members.size())) {
+					traverseInParallel(members.toArray(), fieldPlan, status, planVisitor);
+					break;
+				}
+				traversalStack.setContainer(members);
+				break;
+			case CHILD_ARRAY:
+				Object[] arrMembers = (Object[]) fldValue;
+				if (isForkable(planVisitor, arrMembers.length)) {
+					traverseInParallel(arrMembers, fieldPlan, status, planVisitor);
+					break;
+				}
+				traversalStack.setContainer(arrMembers);
+				break;
+			}
+		}
+		return;
+	}
+	
+	/**
+	 * Pushes the objects reached through the IDREF values the visitor bound, so
+	 * they are walked for their own IDREF fields on the current work stack, in
+	 * the order they were bound.
+	 */
+	private void pushIdRefTargets(TraversalStack traversalStack, XmlIdRefVisitor xmlIdRefVisitor) {
+		for (int idx = xmlIdRefVisitor.idRefTargets.size() - 1; idx >= 0; idx--) {
+			xmlIdRefVisitor.countObject();
+			traversalStack.push(xmlIdRefVisitor.idRefTargets.get(idx),
+					xmlIdRefVisitor.idRefTargetPlans.get(idx).getFieldPlans(ClassPlan.XML_IDREF));
+		}
+		xmlIdRefVisitor.clearIdRefTargets();
+		return;
+	}
+	
+	private void pushMember(TraversalStack traversalStack, Object member, FieldPlan fieldPlan, int status, PlanVisitor planVisitor) {
+		ClassPlan memberPlan = fetchMemberPlan(member, fieldPlan, status, planVisitor);
+		if (memberPlan != null) {
+			planVisitor.countObject();
+			traversalStack.push(member, memberPlan.getFieldPlans(status));
+		}
+		return;
+	}
+	
+	/**
+	 * Takes the work stack kept for this thread, or creates one if the thread
+	 * has none or is already using it in an outer traversal. New stacks hold
+	 * 'traversalStackCapacity' frames, 64 unless set, and grow up to
+	 * 'maxTraversalDepth' frames, which is unbound unless set.
+	 */
+	private TraversalStack acquireTraversalStack() {
+		TraversalStack traversalStack = traversalStacks.get();
+		if (traversalStack == null) {
+			Integer traversalStackCapacity = this.traversalStackCapacity;
+			Integer maxTraversalDepth = this.maxTraversalDepth;
+			return new TraversalStack(
+					traversalStackCapacity != null && traversalStackCapacity > 0 ? traversalStackCapacity : DEFAULT_TRAVERSAL_STACK_CAPACITY,
+					maxTraversalDepth != null && maxTraversalDepth > 0 ? maxTraversalDepth : Integer.MAX_VALUE);
+		}
+		traversalStacks.remove();
+		return traversalStack;
+	}
+	
+	private void releaseTraversalStack(TraversalStack traversalStack) {
+		traversalStack.clear();
+		if (traversalStack.capacity() <= MAX_RETAINED_TRAVERSAL_STACK_CAPACITY) {
+			traversalStacks.set(traversalStack);
+		}
+		return;
+	}
+	
+	private void traverseInParallel(Object[] members, FieldPlan fieldPlan, int status, PlanVisitor planVisitor) {
+		ForkablePlanVisitor forkableVisitor = (ForkablePlanVisitor) planVisitor;
+		forkableVisitor.join(invoke(new TraverseTask(members, 0, members.length, fieldPlan, status, forkableVisitor)));
+		return;
+	}
+	
+	/**
+	 * Tells whether the members of a container are visited in parallel slices.
+	 * Passes that track the visited objects stay on one thread, as the set is
+	 * not shared between slices.
+	 */
+	private boolean isForkable(PlanVisitor planVisitor, int size) {
+		return planVisitor instanceof ForkablePlanVisitor && planVisitor.getVisitedObjects() == null && isParallel(size);
+	}
+	
+	private boolean isParallel(int size) {
+		return Boolean.TRUE.equals(parallelResolve) && size >= fetchParallelThreshold();
+	}
+	
+	private int fetchParallelThreshold() {
+		Integer parallelThreshold = this.parallelThreshold;
+		return parallelThreshold != null && parallelThreshold > 1 ? parallelThreshold : DEFAULT_PARALLEL_THRESHOLD;
+	}
+	
+	/**
+	 * Runs the task in the pool, or in the current pool if the task is forked
+	 * from a task already running there.
+	 */
+	private <V> V invoke(ForkJoinTask<V> task) {
+		if (ForkJoinTask.inForkJoinPool()) {
+			return task.invoke();
+		}
+		return getForkJoinPool().invoke(task);
+	}
+	
+	private void traverseMember(Object member, FieldPlan fieldPlan, int status, PlanVisitor planVisitor) {
+		ClassPlan memberPlan = fetchMemberPlan(member, fieldPlan, status, planVisitor);
+		if (memberPlan != null) {
+			traverse(member, memberPlan, status, planVisitor);
+		}
+		return;
+	}
+	
+	/**
+	 * Fetches the plan to walk a child object with.
+	 *
+	 * @return the plan, or null if the child is null, has nothing for the pass
+	 *         or was already visited
+	 */
+	private ClassPlan fetchMemberPlan(Object member, FieldPlan fieldPlan, int status, PlanVisitor planVisitor) {
+		if (member == null) {
+			return null;
+		}
+		Class<?> memberClass = member.getClass();
+		ClassPlan memberPlan = fieldPlan.getChildPlan();
+		if (memberPlan == null || memberClass != memberPlan.getType()) {
+			memberPlan = fieldPlan.getSubclassPlan();
+			if (memberPlan == null || memberClass != memberPlan.getType()) {
+				memberPlan = fetchClassPlan(memberClass);
+				if (memberPlan == null) {
+					return null;
+				}
+				fieldPlan.setSubclassPlan(memberPlan);
+			}
+			if ((memberPlan.getCompiledStatus() & status) == 0) {
+				return null;
+			}
+		}
+		if (!planVisitor.visit(member)) {
+			return null;
+		}
+		return memberPlan;
+	}
+	
+	/**
+	 * Traverses a document with the visitor of a pass, giving back the set of
+	 * visited objects the visitor took on the way, if any.
+	 */
+	private void walk(Object parentObject, ClassPlan classPlan, int status, PlanVisitor planVisitor) {
+		try {
+			traverse(parentObject, classPlan, status, planVisitor);
+		} finally {
+			releaseVisitedObjects(planVisitor);
+		}
+		return;
+	}
+	
+	/**
+	 * Runs a pass over a document and reports it to the metrics.
+	 */
+	private void walk(JaxbIdRefMetrics.Pass pass, Object parentObject, ClassPlan classPlan, int status, PlanVisitor planVisitor) {
+		long startTime = startSample();
+		walk(parentObject, classPlan, status, planVisitor);
+		reportPass(pass, classPlan, planVisitor, startTime);
+		return;
+	}
+	
+	/**
+	 * Starts timing a pass if the metrics are enabled and the pass is one of the
+	 * sampled ones.
+	 *
+	 * @return the start time, or NOT_SAMPLED
+	 */
+	private long startSample() {
+		if (!getMetrics().isEnabled()) {
+			return NOT_SAMPLED;
+		}
+		Integer metricsSamplingInterval = this.metricsSamplingInterval;
+		int interval = metricsSamplingInterval != null && metricsSamplingInterval > 0 ? metricsSamplingInterval
+				: DEFAULT_METRICS_SAMPLING_INTERVAL;
+		if (interval > 1 && ThreadLocalRandom.current().nextInt(interval) != 0) {
+			return NOT_SAMPLED;
+		}
+		return System.nanoTime();
+	}
+	
+	private void reportPass(JaxbIdRefMetrics.Pass pass, ClassPlan classPlan, PlanVisitor planVisitor, long startTime) {
+		JaxbIdRefMetrics metrics = getMetrics();
+		if (metrics.isEnabled()) {
+			metrics.passCompleted(classPlan.getType(), pass, planVisitor.getObjectCount(),
+					startTime == NOT_SAMPLED ? -1 : System.nanoTime() - startTime);
+		}
+		return;
+	}
+	
+	private void reportResolved(ClassPlan classPlan, IdIndex xmlIdObjects) {
+		JaxbIdRefMetrics metrics = getMetrics();
+		if (metrics.isEnabled()) {
+			metrics.resolved(classPlan.getType(), xmlIdObjects.size());
+		}
+		return;
+	}
+	
+	private void fetchXmlIdValues(Object parentObject, ClassPlan classPlan, IdIndex xmlIdObjects) {
+		walk(JaxbIdRefMetrics.Pass.XML_ID, parentObject, classPlan, ClassPlan.XML_ID, new XmlIdVisitor(xmlIdObjects));
+		return;
+	}
+
+	private void fixXmlGregorianCalendarValues(Object parentObject, ClassPlan classPlan) {
+		walk(JaxbIdRefMetrics.Pass.XML_GREGORIAN_CALENDAR, parentObject, classPlan, ClassPlan.XML_GREGORIAN_CALENDAR,
+				new XmlGregorianCalendarVisitor(fetchXmlGregorianCalendarNormalizer()));
+		return;
+	}
+	
+	/**
+	 * Gets the normalizer of the XMLGregorianCalendar values, built once from
+	 * 'xmlGregorianCalendarPolicies' and 'unsetTimeZoneInXmlGregorianCalandar'.
+	 */
+	XmlGregorianCalendarNormalizer fetchXmlGregorianCalendarNormalizer() {
+		XmlGregorianCalendarNormalizer normalizer = xmlGregorianCalendarNormalizer;
+		if (normalizer == null) {
+			normalizer = XmlGregorianCalendarNormalizer.create(xmlGregorianCalendarPolicies,
+					Boolean.TRUE.equals(unsetTimeZoneInXmlGregorianCalandar));
+			xmlGregorianCalendarNormalizer = normalizer;
+		}
+		return normalizer;
+	}
+
+	/**
+	 * Binds the IDREF value of the field to the objects of its IDs in the index
+	 * of the visitor. The bindings made are added to the idRefLinks of the
+	 * visitor, unless it is null.
+	 */
+	private void createIdRef(Object parentObject, FieldAccessor field, Object fldValue, XmlIdRefVisitor xmlIdRefVisitor) {
+		if (fldValue == null) {
+			return;
+		}
+		if (fldValue instanceof Object[]) {
+			createIdRef(parentObject, field, (Object[]) fldValue, xmlIdRefVisitor);
+		} else if (fldValue instanceof List) {
+			createIdRef(parentObject, field, (List<?>) fldValue, xmlIdRefVisitor);
+		} else if (fldValue instanceof String) {
+			Object idRef = fetchIdRef(xmlIdRefVisitor.xmlIdObjects, (String) fldValue);
+			if (idRef == null) {
+				getMetrics().idRefsUnresolved(1);
+				return;
+			}
+			try {
+				field.set(parentObject, idRef);
+				getMetrics().idRefsBound(1);
+				if (xmlIdRefVisitor.idRefLinks != null) {
+					xmlIdRefVisitor.idRefLinks.add(parentObject, field, idRef);
+				}
+			} catch (IllegalArgumentException e) {
+				LOGGER.warn(e.getMessage());
+			}
+		}
+		return;
+	}
+	
+	/**
+	 * Binds an IDREF array, rebuilding it with the component type of the field
+	 * straight from the members.
+	 */
+	private void createIdRef(Object parentObject, FieldAccessor field, Object[] members, XmlIdRefVisitor xmlIdRefVisitor) {
+		if (members.length == 0) {
+			return;
+		}
+		Class<?> componentType = field.getType().getComponentType();
+		IdRefArray idRefs = new IdRefArray(componentType != null ? componentType : Object.class, members.length);
+		for (int idx = 0; idx < members.length; idx++) {
+			addIdRefs(field, members[idx], idRefs, xmlIdRefVisitor);
+		}
+		if (!idRefs.isEmpty()) {
+			bindIdRefs(parentObject, field, idRefs.toTypedArray(), idRefs, xmlIdRefVisitor.idRefLinks);
+		}
+		return;
+	}
+	
+	/**
+	 * Binds an IDREF list, with an indexed loop over lists with random access.
+	 */
+	private void createIdRef(Object parentObject, FieldAccessor field, List<?> members, XmlIdRefVisitor xmlIdRefVisitor) {
+		if (members.isEmpty()) {
+			return;
+		}
+		List<Object> idRefs = new ArrayList<>(members.size());
+		if (members instanceof RandomAccess) {
+			for (int idx = 0, size = members.size(); idx < size; idx++) {
+				addIdRefs(field, members.get(idx), idRefs, xmlIdRefVisitor);
+			}
+		} else {
+			for (Object member : members) {
+				addIdRefs(field, member, idRefs, xmlIdRefVisitor);
+			}
+		}
+		if (!idRefs.isEmpty()) {
+			bindIdRefs(parentObject, field, idRefs, idRefs, xmlIdRefVisitor.idRefLinks);
+		}
+		return;
+	}
+	
+	/**
+	 * Adds the objects of the IDs in a member of an IDREF container to idRefs.
+	 * Members already holding an object are handed to the visitor instead, once
+	 * each, to be walked for their own IDREF fields, and null members are
+	 * skipped.
+	 */
+	private void addIdRefs(FieldAccessor field, Object member, List<Object> idRefs, XmlIdRefVisitor xmlIdRefVisitor) {
+		if (member == null) {
+			return;
+		}
+		String idRef;
+		if (member instanceof String) {
+			idRef = (String) member;
+		} else {
+			Class<?> valType = member.getClass();
+			if (!ClassUtils.isPrimitiveOrWrapper(valType)) {
+				ClassPlan memberPlan = fetchClassPlan(valType);
+				if (memberPlan != null && xmlIdRefVisitor.visitIdRefTarget(member)) {
+					xmlIdRefVisitor.addIdRefTarget(member, memberPlan);
+				}
+				return;
+			}
+			idRef = member.toString();
+		}
+		if (createIdRefCollection(xmlIdRefVisitor.xmlIdObjects, idRef, idRefs) == 0) {
+			String msg = new StringBuilder("Error! ID field not found for field ").append(field.getName()).toString();
+			LOGGER.error(msg);
+			getMetrics().idRefsUnresolved(1);
+		}
+		return;
+	}
+	
+	private void bindIdRefs(Object parentObject, FieldAccessor field, Object fldValue, List<Object> idRefs, 
+			IdRefPatches idRefLinks) {
+		try {
+			field.set(parentObject, fldValue);
+			getMetrics().idRefsBound(idRefs.size());
+			if (idRefLinks != null) {
+				for (int idx = 0; idx < idRefs.size(); idx++) {
+					idRefLinks.add(parentObject, field, idRefs.get(idx));
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn(e.getMessage());
+		}
+		return;
+	}
+	
+	/**
+	 * Fetches the object of the first ID in the IDREF value that is found. A
+	 * value holding a single ID is looked up as it is.
+	 */
+	private Object fetchIdRef(IdIndex xmlIdObjects, String idRef) {
+		int length = idRef.length();
+		int start = IdRefTokenizer.skipWhitespace(idRef, 0);
+		while (start < length) {
+			int end = IdRefTokenizer.skipToken(idRef, start);
+			Object idObject = start == 0 && end == length ? xmlIdObjects.get(idRef) : xmlIdObjects.get(idRef, start, end);
+			if (idObject != null) {
+				return idObject;
+			}
+			start = IdRefTokenizer.skipWhitespace(idRef, end);
+		}
+		return null;
+	}
+	
+	/**
+	 * Adds the objects of the IDs in the IDREFS value to lstIdRefs.
+	 *
+	 * @return the number of objects added
+	 */
+	private int createIdRefCollection(IdIndex xmlIdObjects, String idRef, List<Object> lstIdRefs) {
+		int added = 0;
+		int length = idRef.length();
+		int start = IdRefTokenizer.skipWhitespace(idRef, 0);
+		while (start < length) {
+			int end = IdRefTokenizer.skipToken(idRef, start);
+			Object idObject = start == 0 && end == length ? xmlIdObjects.get(idRef) : xmlIdObjects.get(idRef, start, end);
+			if (idObject != null && lstIdRefs.add(idObject)) {
+				added++;
+			}
+			start = IdRefTokenizer.skipWhitespace(idRef, end);
+		}
+		return added;
+	}
+	
+	private Object readFieldValue(Object parentObject, FieldAccessor field) {
+		Object fldValue = null;
+		try {
+			fldValue = field.get(parentObject);
+		} catch (IllegalArgumentException | IllegalStateException e) {
+			LOGGER.warn(e.getMessage());
+			throw new RuntimeException(e);
+		}
+		return fldValue;
+	}
+	
+	/**
+	 * Collects the objects bound to an IDREF array straight into an array of the
+	 * field's component type. Objects that are not of that type are not added.
+	 */
+	private static final class IdRefArray extends AbstractList<Object> {
+		
+		private final Class<?> componentType;
+		private Object[] idRefs;
+		private int size;
+		
+		private IdRefArray(Class<?> componentType, int capacity) {
+			this.componentType = componentType;
+			this.idRefs = (Object[]) Array.newInstance(componentType, capacity);
+		}
+		
+		@Override
+		public boolean add(Object idRef) {
+			if (!componentType.isInstance(idRef)) {
+				return false;
+			}
+			if (size == idRefs.length) {
+				idRefs = Arrays.copyOf(idRefs, size + Math.max(size >> 1, 1));
+			}
+			idRefs[size++] = idRef;
+			return true;
+		}
+		
+		@Override
+		public Object get(int index) {
+			if (index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return idRefs[index];
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+		
+		private Object[] toTypedArray() {
+			return size == idRefs.length ? idRefs : Arrays.copyOf(idRefs, size);
+		}
+	}
+	
+	private static final class XmlIdVisitor extends ForkablePlanVisitor {
+		
+		private final IdIndex xmlIdObjects;
+		
+		private XmlIdVisitor(IdIndex xmlIdObjects) {
+			this.xmlIdObjects = xmlIdObjects;
+		}
+		
+		@Override
+		XmlIdVisitor fork() {
+			return new XmlIdVisitor(xmlIdObjects.newIdIndex(0));
+		}
+		
+		@Override
+		void merge(ForkablePlanVisitor forkedVisitor) {
+			xmlIdObjects.putAll(((XmlIdVisitor) forkedVisitor).xmlIdObjects);
+			return;
+		}
+		
+		@Override
+		void visitXmlId(Object parentObject, FieldAccessor field, Object fldValue) {
+			if (fldValue instanceof String) {
+				xmlIdObjects.put((String) fldValue, parentObject);
+			}
+			return;
+		}
+	}
+	
+	private static final class XmlIdRefVisitor extends ForkablePlanVisitor {
+		
+		private final JaxbIdRefResolverImpl<?> jaxbIdRefResolver;
+		private final IdIndex xmlIdObjects;
+		private final IdRefPatches idRefLinks;
+		/** The objects reached through bound IDREF values, still to be walked. */
+		private final List<Object> idRefTargets = new ArrayList<>();
+		private final List<ClassPlan> idRefTargetPlans = new ArrayList<>();
+		
+		private XmlIdRefVisitor(JaxbIdRefResolverImpl<?> jaxbIdRefResolver, IdIndex xmlIdObjects, IdRefPatches idRefLinks) {
+			this.jaxbIdRefResolver = jaxbIdRefResolver;
+			this.xmlIdObjects = xmlIdObjects;
+			this.idRefLinks = idRefLinks;
+		}
+		
+		@Override
+		void visitXmlIdRef(Object parentObject, FieldAccessor field, Object fldValue) {
+			jaxbIdRefResolver.createIdRef(parentObject, field, fldValue, this);
+			return;
+		}
+		
+		/**
+		 * Marks an object reached through a bound IDREF value visited. Only these
+		 * objects can be reached twice or close a reference cycle, so the set of
+		 * visited objects is taken on the first of them.
+		 *
+		 * @return false if the pass already walked the object
+		 */
+		boolean visitIdRefTarget(Object object) {
+			if (getVisitedObjects() == null) {
+				setVisitedObjects(jaxbIdRefResolver.acquireVisitedObjects());
+			}
+			return visit(object);
+		}
+		
+		void addIdRefTarget(Object object, ClassPlan classPlan) {
+			idRefTargets.add(object);
+			idRefTargetPlans.add(classPlan);
+			return;
+		}
+		
+		boolean hasIdRefTargets() {
+			return !idRefTargets.isEmpty();
+		}
+		
+		void clearIdRefTargets() {
+			idRefTargets.clear();
+			idRefTargetPlans.clear();
+			return;
+		}
+		
+		/**
+		 * The ID index is complete and only read while IDREFs are bound, so the
+		 * slices share it.
+		 */
+		@Override
+		XmlIdRefVisitor fork() {
+			return new XmlIdRefVisitor(jaxbIdRefResolver, xmlIdObjects, idRefLinks == null ? null : new IdRefPatches());
+		}
+		
+		@Override
+		void merge(ForkablePlanVisitor forkedVisitor) {
+			if (idRefLinks != null) {
+				idRefLinks.addAll(((XmlIdRefVisitor) forkedVisitor).idRefLinks);
+			}
+			return;
+		}
+	}
+	
+	private static final class XmlGregorianCalendarVisitor extends ForkablePlanVisitor {
+		
+		private final XmlGregorianCalendarNormalizer normalizer;
+		
+		private XmlGregorianCalendarVisitor(XmlGregorianCalendarNormalizer normalizer) {
+			this.normalizer = normalizer;
+		}
+		
+		@Override
+		XmlGregorianCalendarVisitor fork() {
+			return new XmlGregorianCalendarVisitor(normalizer);
+		}
+		
+		/**
+		 * The calendars are fixed in place, so a slice collects nothing.
+		 */
+		@Override
+		void merge(ForkablePlanVisitor forkedVisitor) {
+			return;
+		}
+		
+		@Override
+		void visitXmlGregorianCalendar(Object parentObject, FieldAccessor field, Object fldValue) {
+			if (fldValue instanceof XMLGregorianCalendar) {
+				normalizer.normalize((XMLGregorianCalendar) fldValue);
+			}
+			return;
+		}
+	}
+	
+	/**
+	 * Adds the prefix to, or strips it from, the ID values and the IDs of the
+	 * IDREF values that are not bound yet. Only a prefix at the start of an ID
+	 * is stripped. With a single pass visitor the rewritten values are handed on
+	 * to it, so the document is prefixed and resolved in the same walk.
+	 */
+	private static final class XmlIdPrefixVisitor extends ForkablePlanVisitor {
+		
+		private final String prefix;
+		private final boolean isPrefix;
+		private final SinglePassVisitor singlePassVisitor;
+		private final int singlePassStatus;
+		
+		private XmlIdPrefixVisitor(String prefix, boolean isPrefix, SinglePassVisitor singlePassVisitor, int singlePassStatus) {
+			this.prefix = prefix;
+			this.isPrefix = isPrefix;
+			this.singlePassVisitor = singlePassVisitor;
+			this.singlePassStatus = singlePassStatus;
+		}
+		
+		@Override
+		XmlIdPrefixVisitor fork() {
+			SinglePassVisitor forkedVisitor = singlePassVisitor == null ? null : singlePassVisitor.fork();
+			return new XmlIdPrefixVisitor(prefix, isPrefix, forkedVisitor, singlePassStatus);
+		}
+		
+		@Override
+		void merge(ForkablePlanVisitor forkedVisitor) {
+			if (singlePassVisitor != null) {
+				singlePassVisitor.merge(((XmlIdPrefixVisitor) forkedVisitor).singlePassVisitor);
+			}
+			return;
+		}
+		
+		@Override
+		void visitXmlId(Object parentObject, FieldAccessor field, Object fldValue) {
+			if (fldValue instanceof String) {
+				String xmlId = (String) fldValue;
+				fldValue = isPrefix ? prefix.concat(xmlId) : stripPrefix(xmlId);
+				if (fldValue != xmlId) {
+					setFieldValue(parentObject, field, fldValue);
+				}
+			}
+			if ((singlePassStatus & ClassPlan.XML_ID) != 0) {
+				singlePassVisitor.visitXmlId(parentObject, field, fldValue);
+			}
+			return;
+		}
+		
+		@Override
+		void visitXmlIdRef(Object parentObject, FieldAccessor field, Object fldValue) {
+			if (fldValue instanceof String) {
+				String idRef = (String) fldValue;
+				fldValue = rewriteIdRef(idRef);
+				if (fldValue != idRef) {
+					setFieldValue(parentObject, field, fldValue);
+				}
+			} else if (fldValue instanceof List) {
+				// the rewritten IDs replace the ID strings they were made from, so
+				// the list only ever gets back elements of the type it held
+				@SuppressWarnings("unchecked")
+				List<Object> idRefs = (List<Object>) fldValue;
+				rewriteIdRefs(idRefs);
+			} else if (fldValue instanceof Object[]) {
+				Object[] idRefs = (Object[]) fldValue;
+				for (int idx = 0; idx < idRefs.length; idx++) {
+					if (idRefs[idx] instanceof String) {
+						idRefs[idx] = rewriteIdRef((String) idRefs[idx]);
+					}
+				}
+			}
+			if ((singlePassStatus & ClassPlan.XML_IDREF) != 0) {
+				singlePassVisitor.visitXmlIdRef(parentObject, field, fldValue);
+			}
+			return;
+		}
+		
+		@Override
+		void visitXmlGregorianCalendar(Object parentObject, FieldAccessor field, Object fldValue) {
+			if ((singlePassStatus & ClassPlan.XML_GREGORIAN_CALENDAR) != 0) {
+				singlePassVisitor.visitXmlGregorianCalendar(parentObject, field, fldValue);
+			}
+			return;
+		}
+		
+		private void rewriteIdRefs(List<Object> idRefs) {
+			try {
+				if (idRefs instanceof RandomAccess) {
+					for (int idx = 0, size = idRefs.size(); idx < size; idx++) {
+						Object idRef = idRefs.get(idx);
+						if (idRef instanceof String) {
+							Object newIdRef = rewriteIdRef((String) idRef);
+							if (newIdRef != idRef) {
+								idRefs.set(idx, newIdRef);
+							}
+						}
+					}
+					return;
+				}
+				for (ListIterator<Object> itr = idRefs.listIterator(); itr.hasNext();) {
+					Object idRef = itr.next();
+					if (idRef instanceof String) {
+						Object newIdRef = rewriteIdRef((String) idRef);
+						if (newIdRef != idRef) {
+							itr.set(newIdRef);
+						}
+					}
+				}
+			} catch (UnsupportedOperationException e) {
+				LOGGER.warn(e.getMessage());
+			}
+			return;
+		}
+		
+		/**
+		 * Rewrites each ID of an IDREFS value, keeping the whitespace between
+		 * them. The value itself is returned if no ID changes.
+		 */
+		private String rewriteIdRef(String idRef) {
+			StringBuilder newIdRef = null;
+			int copied = 0;
+			int length = idRef.length();
+			int idx = IdRefTokenizer.skipWhitespace(idRef, 0);
+			while (idx < length) {
+				int end = IdRefTokenizer.skipToken(idRef, idx);
+				int from;
+				if (isPrefix) {
+					from = idx;
+				} else if (end - idx >= prefix.length() && idRef.regionMatches(idx, prefix, 0, prefix.length())) {
+					from = idx + prefix.length();
+				} else {
+					idx = IdRefTokenizer.skipWhitespace(idRef, end);
+					continue;
+				}
+				if (newIdRef == null) {
+					newIdRef = new StringBuilder(length + (isPrefix ? prefix.length() * 2 : 0));
+				}
+				newIdRef.append(idRef, copied, idx);
+				if (isPrefix) {
+					newIdRef.append(prefix);
+				}
+				newIdRef.append(idRef, from, end);
+				copied = end;
+				idx = IdRefTokenizer.skipWhitespace(idRef, end);
+			}
+			if (newIdRef == null) {
+				return idRef;
+			}
+			return newIdRef.append(idRef, copied, length).toString();
+		}
+		
+		private String stripPrefix(String xmlId) {
+			return xmlId.startsWith(prefix) ? xmlId.substring(prefix.length()) : xmlId;
+		}
+		
+		private void setFieldValue(Object parentObject, FieldAccessor field, Object fldValue) {
+			try {
+				field.set(parentObject, fldValue);
+			} catch (IllegalArgumentException e) {
+				LOGGER.warn(e.getMessage());
+			}
+			return;
+		}
+	}
+	
+	/**
+	 * Collects the ID values, fixes the XMLGregorianCalendar values and records
+	 * the IDREF sites to be bound once all the IDs are known.
+	 */
+	static final class SinglePassVisitor extends ForkablePlanVisitor {
+		
+		private final IdRefPatches idRefPatches = new IdRefPatches();
+		private final IdIndex xmlIdObjects;
+		private final XmlGregorianCalendarNormalizer normalizer;
+		
+		SinglePassVisitor(IdIndex xmlIdObjects, XmlGregorianCalendarNormalizer normalizer) {
+			this.xmlIdObjects = xmlIdObjects;
+			this.normalizer = normalizer;
+		}
+		
+		@Override
+		SinglePassVisitor fork() {
+			return new SinglePassVisitor(xmlIdObjects.newIdIndex(0), normalizer);
+		}
+		
+		@Override
+		void merge(ForkablePlanVisitor forkedVisitor) {
+			SinglePassVisitor singlePassVisitor = (SinglePassVisitor) forkedVisitor;
+			xmlIdObjects.putAll(singlePassVisitor.xmlIdObjects);
+			idRefPatches.addAll(singlePassVisitor.idRefPatches);
+			return;
+		}
+		
+		@Override
+		void visitXmlId(Object parentObject, FieldAccessor field, Object fldValue) {
+			if (fldValue instanceof String) {
+				xmlIdObjects.put((String) fldValue, parentObject);
+			}
+			return;
+		}
+		
+		@Override
+		void visitXmlIdRef(Object parentObject, FieldAccessor field, Object fldValue) {
+			idRefPatches.add(parentObject, field, fldValue);
+			return;
+		}
+		
+		@Override
+		void visitXmlGregorianCalendar(Object parentObject, FieldAccessor field, Object fldValue) {
+			if (fldValue instanceof XMLGregorianCalendar) {
+				normalizer.normalize((XMLGregorianCalendar) fldValue);
+			}
+			return;
+		}
+	}
+	
+	/**
+	 * Traverses a slice of the members of a large container, splitting it in
+	 * halves until the slices are below the parallel threshold. Each slice is
+	 * visited by its own forked visitor, and the visitors are merged left to
+	 * right.
+	 */
+	private final class TraverseTask extends RecursiveTask<ForkablePlanVisitor> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Object[] members;
+		private final int from;
+		private final int to;
+		private final FieldPlan fieldPlan;
+		private final int status;
+		private final ForkablePlanVisitor planVisitor;
+		
+		private TraverseTask(Object[] members, int from, int to, FieldPlan fieldPlan, int status, ForkablePlanVisitor planVisitor) {
+			this.members = members;
+			this.from = from;
+			this.to = to;
+			this.fieldPlan = fieldPlan;
+			this.status = status;
+			this.planVisitor = planVisitor;
+		}
+		
+		@Override
+		protected ForkablePlanVisitor compute() {
+			if (to - from < fetchParallelThreshold()) {
+				ForkablePlanVisitor forkedVisitor = planVisitor.fork();
+				try {
+					for (int idx = from; idx < to; idx++) {
+						traverseMember(members[idx], fieldPlan, status, forkedVisitor);
+					}
+				} finally {
+					releaseVisitedObjects(forkedVisitor);
+				}
+				return forkedVisitor;
+			}
+			int mid = (from + to) >>> 1;
+			TraverseTask leftTask = new TraverseTask(members, from, mid, fieldPlan, status, planVisitor);
+			leftTask.fork();
+			ForkablePlanVisitor rightVisitor = new TraverseTask(members, mid, to, fieldPlan, status, planVisitor).compute();
+			ForkablePlanVisitor leftVisitor = leftTask.join();
+			leftVisitor.join(rightVisitor);
+			return leftVisitor;
+		}
+	}
+	
+	/**
+	 * Binds a slice of the IDREF sites recorded by a single-pass resolve. The ID
+	 * index is complete at this point and only read.
+	 */
+	private final class IdRefPatchTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final IdRefPatches idRefPatches;
+		private final int from;
+		private final int to;
+		private final IdIndex xmlIdObjects;
+		
+		private IdRefPatchTask(IdRefPatches idRefPatches, int from, int to, IdIndex xmlIdObjects) {
+			this.idRefPatches = idRefPatches;
+			this.from = from;
+			this.to = to;
+			this.xmlIdObjects = xmlIdObjects;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from < fetchParallelThreshold()) {
+				applyIdRefPatches(idRefPatches, from, to, xmlIdObjects, null);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new IdRefPatchTask(idRefPatches, from, mid, xmlIdObjects),
+					new IdRefPatchTask(idRefPatches, mid, to, xmlIdObjects));
+			return;
+		}
+	}
+}
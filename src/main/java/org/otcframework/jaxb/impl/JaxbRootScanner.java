@@ -0,0 +1,191 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.otcframework.jaxb.util.PackagesFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the root JAXB classes of the filtered packages on the classpath: the
+ * classes annotated with XmlRootElement and the classes created by the
+ * ObjectFactory of each package.
+ *
+ * Directories and jar files are scanned. A filter of "*" names no directory to
+ * start from, so it finds nothing.
+ */
+final class JaxbRootScanner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JaxbRootScanner.class);
+	private static final String CLASS_SUFFIX = ".class";
+	private static final String OBJECT_FACTORY = "ObjectFactory";
+
+	private final PackagesFilter packagesFilter;
+	private final ClassLoader classLoader;
+	private final Set<String> classNames = new LinkedHashSet<>();
+	private final Set<Class<?>> rootClasses = new LinkedHashSet<>();
+
+	private JaxbRootScanner(PackagesFilter packagesFilter, ClassLoader classLoader) {
+		this.packagesFilter = packagesFilter;
+		this.classLoader = classLoader;
+	}
+
+	static Set<Class<?>> scan(PackagesFilter packagesFilter, ClassLoader classLoader) {
+		JaxbRootScanner jaxbRootScanner = new JaxbRootScanner(packagesFilter, classLoader);
+		for (String pkg : packagesFilter.getPackages()) {
+			jaxbRootScanner.scanPackage(pkg);
+		}
+		for (String className : jaxbRootScanner.classNames) {
+			jaxbRootScanner.addRootClasses(className);
+		}
+		return jaxbRootScanner.rootClasses;
+	}
+
+	/**
+	 * Scans the deepest directory holding every class the package can match.
+	 */
+	private void scanPackage(String pkg) {
+		String prefix = pkg.endsWith("*") || pkg.endsWith(".") ? pkg.substring(0, pkg.length() - 1) : pkg;
+		if (!pkg.endsWith("*")) {
+			prefix = prefix.concat(".");
+		}
+		String resourceDir = prefix.substring(0, prefix.lastIndexOf('.') + 1).replace('.', '/');
+		if (resourceDir.isEmpty()) {
+			LOGGER.warn("Cannot scan the classpath for package '{}'.", pkg);
+			return;
+		}
+		try {
+			Enumeration<URL> urls = classLoader.getResources(resourceDir);
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				URLConnection urlConnection = url.openConnection();
+				if (urlConnection instanceof JarURLConnection) {
+					scanJar(((JarURLConnection) urlConnection).getJarFile(), resourceDir);
+				} else if ("file".equals(url.getProtocol())) {
+					scanDirectory(Paths.get(url.toURI()), resourceDir);
+				}
+			}
+		} catch (IOException | URISyntaxException e) {
+			LOGGER.warn(e.getMessage());
+		}
+		return;
+	}
+
+	private void scanJar(JarFile jarFile, String resourceDir) {
+		Enumeration<JarEntry> jarEntries = jarFile.entries();
+		while (jarEntries.hasMoreElements()) {
+			String entryName = jarEntries.nextElement().getName();
+			if (entryName.startsWith(resourceDir)) {
+				addClassName(entryName);
+			}
+		}
+		return;
+	}
+
+	private void scanDirectory(Path dir, String resourceDir) throws IOException {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			paths.filter(Files::isRegularFile).forEach(path -> {
+				StringBuilder entryName = new StringBuilder(resourceDir);
+				for (Path name : dir.relativize(path)) {
+					if (entryName.length() > resourceDir.length()) {
+						entryName.append('/');
+					}
+					entryName.append(name);
+				}
+				addClassName(entryName.toString());
+			});
+		}
+		return;
+	}
+
+	private void addClassName(String entryName) {
+		if (!entryName.endsWith(CLASS_SUFFIX) || entryName.endsWith("-info.class")) {
+			return;
+		}
+		String className = entryName.substring(0, entryName.length() - CLASS_SUFFIX.length()).replace('/', '.');
+		if (packagesFilter.isFilteredPackage(className)) {
+			classNames.add(className);
+		}
+		return;
+	}
+
+	private void addRootClasses(String className) {
+		Class<?> cls;
+		try {
+			cls = Class.forName(className, false, classLoader);
+		} catch (ClassNotFoundException | LinkageError e) {
+			LOGGER.debug("Skipping class {} - {}", className, e.getMessage());
+			return;
+		}
+		if (cls.isAnnotationPresent(XmlRootElement.class)) {
+			rootClasses.add(cls);
+		}
+		if (OBJECT_FACTORY.equals(cls.getSimpleName())) {
+			for (Method method : cls.getMethods()) {
+				if (!method.getName().startsWith("create") || Modifier.isStatic(method.getModifiers())) {
+					continue;
+				}
+				Class<?> createdType = method.getReturnType();
+				if (JAXBElement.class.equals(createdType)) {
+					createdType = fetchElementType(method.getGenericReturnType());
+				}
+				if (createdType != null && packagesFilter.isFilteredPackage(createdType)) {
+					rootClasses.add(createdType);
+				}
+			}
+		}
+		return;
+	}
+
+	private Class<?> fetchElementType(Type type) {
+		if (type instanceof ParameterizedType) {
+			Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+			if (elementType instanceof Class) {
+				return (Class<?>) elementType;
+			}
+		}
+		return null;
+	}
+}
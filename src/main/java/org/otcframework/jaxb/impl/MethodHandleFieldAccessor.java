@@ -0,0 +1,127 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.otcframework.jaxb.CompiledStatus;
+
+/**
+ * Field accessor backed by pre-unlocked method handles.
+ *
+ * Descriptors read by reflection unreflect their field. The others, registered
+ * by generated metadata or loaded from the compiled metadata cache, find the
+ * field through a private lookup on Java 9 and later, so no reflected field is
+ * created for them.
+ */
+final class MethodHandleFieldAccessor extends FieldAccessor {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final Method PRIVATE_LOOKUP_IN = fetchPrivateLookupIn();
+
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+
+	MethodHandleFieldAccessor(FieldDescriptor fieldDescriptor) {
+		super(fieldDescriptor);
+		Field field = fieldDescriptor.fetchResolvedField();
+		try {
+			if (field == null && PRIVATE_LOOKUP_IN != null) {
+				Class<?> declaringClass = fieldDescriptor.getDeclaringClass();
+				MethodHandles.Lookup lookup = (MethodHandles.Lookup) PRIVATE_LOOKUP_IN.invoke(null, declaringClass,
+						MethodHandles.lookup());
+				getter = lookup.findGetter(declaringClass, fieldDescriptor.getName(), fieldDescriptor.getType())
+						.asType(GETTER_TYPE);
+				if (Modifier.isFinal(fieldDescriptor.getModifiers())) {
+					setter = null;
+				} else {
+					setter = lookup.findSetter(declaringClass, fieldDescriptor.getName(), fieldDescriptor.getType())
+							.asType(SETTER_TYPE);
+				}
+				return;
+			}
+			if (field == null) {
+				field = fieldDescriptor.getField();
+			}
+			field.setAccessible(true);
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+			if (Modifier.isFinal(field.getModifiers())) {
+				setter = null;
+			} else {
+				setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+			}
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot create accessor for field " + getName(), e);
+		}
+	}
+
+	/**
+	 * MethodHandles.privateLookupIn, or null on Java 8.
+	 */
+	private static Method fetchPrivateLookupIn() {
+		try {
+			return MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	@Override
+	CompiledStatus.FieldAccessorType getAccessorType() {
+		return CompiledStatus.FieldAccessorType.METHOD_HANDLE;
+	}
+
+	@Override
+	Object get(Object target) {
+		try {
+			return (Object) getter.invokeExact(target);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	void set(Object target, Object value) {
+		if (setter == null) {
+			throw new IllegalArgumentException("Cannot set final field " + getName());
+		}
+		try {
+			setter.invokeExact(target, value);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Cannot set field " + getName() + " to " + value.getClass().getName(), e);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+/**
+ * Receives the ID, IDREF and XMLGregorianCalendar values met while a
+ * {@link ClassPlan} is traversed. The traversal itself descends into the child
+ * objects, so a pass only implements what it does with these values.
+ */
+abstract class PlanVisitor {
+
+	private IdentitySet visitedObjects;
+	private int objectCount;
+
+	void visitXmlId(Object parentObject, FieldAccessor field, Object fldValue) {
+		return;
+	}
+
+	void visitXmlIdRef(Object parentObject, FieldAccessor field, Object fldValue) {
+		return;
+	}
+
+	void visitXmlGregorianCalendar(Object parentObject, FieldAccessor field, Object fldValue) {
+		return;
+	}
+
+	/**
+	 * Counts an object the pass visits, for the metrics of the resolver.
+	 */
+	final void countObject() {
+		objectCount++;
+		return;
+	}
+
+	/**
+	 * Adds the objects counted by another visitor of the same pass.
+	 */
+	final void countObjects(int count) {
+		objectCount += count;
+		return;
+	}
+
+	final int getObjectCount() {
+		return objectCount;
+	}
+
+	/**
+	 * The objects visited so far by the pass, or null if the pass tracks no
+	 * objects.
+	 */
+	IdentitySet getVisitedObjects() {
+		return visitedObjects;
+	}
+
+	void setVisitedObjects(IdentitySet visitedObjects) {
+		this.visitedObjects = visitedObjects;
+	}
+
+	/**
+	 * Marks the object visited.
+	 *
+	 * @return false if the pass already visited the object
+	 */
+	boolean visit(Object object) {
+		return visitedObjects == null || visitedObjects.add(object);
+	}
+}
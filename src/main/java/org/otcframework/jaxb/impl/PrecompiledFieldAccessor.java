@@ -0,0 +1,63 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.otcframework.jaxb.CompiledStatus;
+
+/**
+ * Field accessor calling the getter and setter lambdas generated at build time,
+ * which read and write the field directly.
+ */
+final class PrecompiledFieldAccessor extends FieldAccessor {
+
+	private final Function<Object, Object> getter;
+	private final BiConsumer<Object, Object> setter;
+
+	PrecompiledFieldAccessor(FieldDescriptor fieldDescriptor) {
+		super(fieldDescriptor);
+		getter = fieldDescriptor.getGetter();
+		setter = fieldDescriptor.getSetter();
+	}
+
+	@Override
+	CompiledStatus.FieldAccessorType getAccessorType() {
+		return CompiledStatus.FieldAccessorType.PRECOMPILED;
+	}
+
+	@Override
+	Object get(Object target) {
+		return getter.apply(target);
+	}
+
+	@Override
+	void set(Object target, Object value) {
+		try {
+			setter.accept(target, value);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Cannot set field " + getName() + " to " + value.getClass().getName(), e);
+		}
+	}
+}
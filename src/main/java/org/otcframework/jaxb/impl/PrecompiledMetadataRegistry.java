@@ -0,0 +1,60 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.otcframework.jaxb.JaxbIdRefMetadataRegistry;
+
+/**
+ * Collects the field descriptors registered by the generated metadata, keyed by
+ * declaring class.
+ */
+final class PrecompiledMetadataRegistry implements JaxbIdRefMetadataRegistry {
+
+	private final Map<Class<?>, List<FieldDescriptor>> fieldDescriptors = new HashMap<>();
+
+	@Override
+	public void addClass(Class<?> type) {
+		fieldDescriptors.computeIfAbsent(type, key -> new ArrayList<>());
+		return;
+	}
+
+	@Override
+	public void addField(Class<?> declaringClass, String name, Class<?> fieldType, Class<?> componentType, boolean xmlId,
+			boolean xmlIdRef, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+		fieldDescriptors.computeIfAbsent(declaringClass, key -> new ArrayList<>()).add(
+				new FieldDescriptor(declaringClass, name, fieldType, componentType, xmlId, xmlIdRef,
+						FieldDescriptor.UNKNOWN_MODIFIERS, getter, setter));
+		return;
+	}
+
+	Map<Class<?>, List<FieldDescriptor>> getFieldDescriptors() {
+		return fieldDescriptors;
+	}
+}
@@ -0,0 +1,414 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a resolved document consistent across edits. The session holds the ID
+ * index of the document and every IDREF site with its raw value, indexed by the
+ * IDs the value names, so after an edit only the edited objects and the sites
+ * naming the IDs that changed are visited.
+ *
+ * After objects are added or changed, {@link #resolveSubtree(Object)} is called
+ * with the topmost edited object. Before objects are removed or replaced,
+ * {@link #invalidate(Object)} is called with the topmost removed object. The
+ * sites referencing an ID that left the document get their raw value back
+ * until an object with the ID is resolved again.
+ *
+ * A session serves a single document on a single thread.
+ */
+public final class ResolutionSession {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ResolutionSession.class);
+	private static final String[] NO_IDS = new String[0];
+
+	private final JaxbIdRefResolverImpl<?> jaxbIdRefResolver;
+	private final IdIndex xmlIdObjects;
+	private final Map<Object, String> xmlIds = new IdentityHashMap<>();
+	private final Map<String, List<IdRefField>> idRefFieldsById = new HashMap<>();
+	private final Map<Object, List<IdRefField>> idRefFieldsByOwner = new IdentityHashMap<>();
+
+	ResolutionSession(JaxbIdRefResolverImpl<?> jaxbIdRefResolver) {
+		this.jaxbIdRefResolver = jaxbIdRefResolver;
+		this.xmlIdObjects = jaxbIdRefResolver.createIdIndex();
+	}
+
+	/**
+	 * Resolves an object that was added to the document or changed, with all
+	 * the objects below it. Its IDs are indexed, its new or changed IDREF sites
+	 * are bound, and the sites elsewhere in the document naming IDs that
+	 * changed are bound again.
+	 */
+	public void resolveSubtree(Object subtree) {
+		if (subtree == null) {
+			return;
+		}
+		ResolveVisitor resolveVisitor = new ResolveVisitor(jaxbIdRefResolver.fetchXmlGregorianCalendarNormalizer());
+		jaxbIdRefResolver.visit(subtree, jaxbIdRefResolver.fetchSinglePassStatus(), resolveVisitor);
+		Set<IdRefField> boundFields = new HashSet<>();
+		for (IdRefField idRefField : resolveVisitor.newFields) {
+			bind(idRefField, false);
+			boundFields.add(idRefField);
+		}
+		rebind(resolveVisitor.changedIds, boundFields);
+		return;
+	}
+
+	/**
+	 * Drops an object that is about to be removed from the document, with all
+	 * the objects below it. Its IDs and IDREF sites leave the session, and the
+	 * sites elsewhere in the document referencing its IDs get their raw values
+	 * back.
+	 */
+	public void invalidate(Object subtree) {
+		if (subtree == null) {
+			return;
+		}
+		InvalidateVisitor invalidateVisitor = new InvalidateVisitor();
+		jaxbIdRefResolver.visit(subtree, ClassPlan.XML_ID | ClassPlan.XML_IDREF, invalidateVisitor);
+		rebind(invalidateVisitor.removedIds, new HashSet<>());
+		return;
+	}
+
+	/**
+	 * Gets the object holding the ID in the document, or null if there is none.
+	 */
+	public Object getXmlIdObject(String xmlId) {
+		return xmlIdObjects.get(xmlId);
+	}
+
+	private void rebind(Set<String> xmlIds, Set<IdRefField> boundFields) {
+		for (String xmlId : xmlIds) {
+			List<IdRefField> idRefFields = idRefFieldsById.get(xmlId);
+			if (idRefFields == null) {
+				continue;
+			}
+			for (IdRefField idRefField : idRefFields) {
+				if (boundFields.add(idRefField)) {
+					bind(idRefField, true);
+				}
+			}
+		}
+		return;
+	}
+
+	/**
+	 * Binds the site from its raw value, restoring the raw value first if the
+	 * field may hold objects bound earlier.
+	 */
+	private void bind(IdRefField idRefField, boolean isRebind) {
+		try {
+			if (isRebind) {
+				idRefField.field.set(idRefField.owner, idRefField.rawValue);
+			}
+			jaxbIdRefResolver.bindIdRef(idRefField.owner, idRefField.field, idRefField.rawValue, xmlIdObjects);
+			idRefField.setBoundValue(idRefField.field.get(idRefField.owner));
+		} catch (IllegalArgumentException | IllegalStateException e) {
+			LOGGER.warn(e.getMessage());
+		}
+		return;
+	}
+
+	private void link(IdRefField idRefField) {
+		List<IdRefField> ownerFields = idRefFieldsByOwner.get(idRefField.owner);
+		if (ownerFields == null) {
+			ownerFields = new ArrayList<>(2);
+			idRefFieldsByOwner.put(idRefField.owner, ownerFields);
+		}
+		ownerFields.add(idRefField);
+		for (String xmlId : idRefField.xmlIds) {
+			List<IdRefField> idRefFields = idRefFieldsById.get(xmlId);
+			if (idRefFields == null) {
+				idRefFields = new ArrayList<>(2);
+				idRefFieldsById.put(xmlId, idRefFields);
+			}
+			idRefFields.add(idRefField);
+		}
+		return;
+	}
+
+	/**
+	 * Removes the site from the ID keyed index. The caller removes it from the
+	 * sites of its owner.
+	 */
+	private void unlink(IdRefField idRefField) {
+		for (String xmlId : idRefField.xmlIds) {
+			List<IdRefField> idRefFields = idRefFieldsById.get(xmlId);
+			if (idRefFields == null) {
+				continue;
+			}
+			idRefFields.remove(idRefField);
+			if (idRefFields.isEmpty()) {
+				idRefFieldsById.remove(xmlId);
+			}
+		}
+		return;
+	}
+
+	/**
+	 * Collects the IDs named by a raw IDREF value, which is an IDREFS string or
+	 * a list or array of them.
+	 */
+	private static String[] fetchXmlIds(Object rawValue) {
+		List<String> xmlIds = null;
+		if (rawValue instanceof String) {
+			xmlIds = collectXmlIds((String) rawValue, xmlIds);
+		} else if (rawValue instanceof List || rawValue instanceof Object[]) {
+			Iterable<?> members = rawValue instanceof List ? (List<?>) rawValue : Arrays.asList((Object[]) rawValue);
+			for (Object member : members) {
+				if (member instanceof String) {
+					xmlIds = collectXmlIds((String) member, xmlIds);
+				}
+			}
+		}
+		return xmlIds == null ? NO_IDS : xmlIds.toArray(new String[xmlIds.size()]);
+	}
+
+	private static List<String> collectXmlIds(String idRef, List<String> xmlIds) {
+		int length = idRef.length();
+		int start = IdRefTokenizer.skipWhitespace(idRef, 0);
+		while (start < length) {
+			int end = IdRefTokenizer.skipToken(idRef, start);
+			if (xmlIds == null) {
+				xmlIds = new ArrayList<>(2);
+			}
+			xmlIds.add(start == 0 && end == length ? idRef : idRef.substring(start, end));
+			start = IdRefTokenizer.skipWhitespace(idRef, end);
+		}
+		return xmlIds;
+	}
+
+	/**
+	 * Gets the raw value of an IDREF value. A list or array that was bound and
+	 * then edited in place holds objects of the document next to IDs, so its
+	 * objects are named by their IDs in a copy.
+	 */
+	private Object fetchRawValue(Object fldValue) {
+		if (fldValue instanceof List) {
+			List<?> members = (List<?>) fldValue;
+			List<Object> rawMembers = null;
+			for (int idx = 0; idx < members.size(); idx++) {
+				String xmlId = fetchMemberXmlId(members.get(idx));
+				if (xmlId != null) {
+					if (rawMembers == null) {
+						rawMembers = new ArrayList<>(members);
+					}
+					rawMembers.set(idx, xmlId);
+				}
+			}
+			return rawMembers == null ? fldValue : rawMembers;
+		}
+		if (fldValue instanceof Object[]) {
+			Object[] members = (Object[]) fldValue;
+			Object[] rawMembers = null;
+			for (int idx = 0; idx < members.length; idx++) {
+				String xmlId = fetchMemberXmlId(members[idx]);
+				if (xmlId != null) {
+					if (rawMembers == null) {
+						rawMembers = members.clone();
+					}
+					rawMembers[idx] = xmlId;
+				}
+			}
+			return rawMembers == null ? fldValue : rawMembers;
+		}
+		return fldValue;
+	}
+
+	private String fetchMemberXmlId(Object member) {
+		return member == null || member instanceof String ? null : xmlIds.get(member);
+	}
+
+	/**
+	 * An IDREF field of an object, with the raw value it had before binding and
+	 * the value binding left in it. The members of a list or array value are
+	 * kept as well, since they can be edited in place.
+	 */
+	private static final class IdRefField {
+
+		private final Object owner;
+		private final FieldAccessor field;
+		private final Object rawValue;
+		private final String[] xmlIds;
+		private Object boundValue;
+		private Object[] boundMembers;
+
+		private IdRefField(Object owner, FieldAccessor field, Object rawValue) {
+			this.owner = owner;
+			this.field = field;
+			this.rawValue = rawValue;
+			this.xmlIds = fetchXmlIds(rawValue);
+			setBoundValue(rawValue);
+		}
+
+		private void setBoundValue(Object boundValue) {
+			this.boundValue = boundValue;
+			if (boundValue instanceof List) {
+				boundMembers = ((List<?>) boundValue).toArray();
+			} else if (boundValue instanceof Object[]) {
+				boundMembers = ((Object[]) boundValue).clone();
+			} else {
+				boundMembers = null;
+			}
+			return;
+		}
+
+		/**
+		 * Tells whether the field still holds the value binding left in it, with
+		 * the same members.
+		 */
+		private boolean isBound(Object fldValue) {
+			if (fldValue != boundValue) {
+				return false;
+			}
+			if (boundMembers == null) {
+				return true;
+			}
+			if (fldValue instanceof List) {
+				List<?> members = (List<?>) fldValue;
+				if (members.size() != boundMembers.length) {
+					return false;
+				}
+				for (int idx = 0; idx < boundMembers.length; idx++) {
+					if (members.get(idx) != boundMembers[idx]) {
+						return false;
+					}
+				}
+				return true;
+			}
+			Object[] members = (Object[]) fldValue;
+			for (int idx = 0; idx < boundMembers.length; idx++) {
+				if (members[idx] != boundMembers[idx]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Indexes the IDs of the visited objects and records their new or changed
+	 * IDREF sites. A site still holding the value the session bound, with the
+	 * same members, is left as it is.
+	 */
+	private final class ResolveVisitor extends PlanVisitor {
+
+		private final XmlGregorianCalendarNormalizer normalizer;
+		private final List<IdRefField> newFields = new ArrayList<>();
+		private final Set<String> changedIds = new LinkedHashSet<>();
+
+		private ResolveVisitor(XmlGregorianCalendarNormalizer normalizer) {
+			this.normalizer = normalizer;
+		}
+
+		@Override
+		void visitXmlId(Object parentObject, FieldAccessor field, Object fldValue) {
+			if (!(fldValue instanceof String)) {
+				return;
+			}
+			String xmlId = (String) fldValue;
+			String oldXmlId = xmlIds.put(parentObject, xmlId);
+			if (oldXmlId != null && !oldXmlId.equals(xmlId) && xmlIdObjects.remove(oldXmlId, parentObject)) {
+				changedIds.add(oldXmlId);
+			}
+			if (xmlIdObjects.get(xmlId) != parentObject) {
+				xmlIdObjects.put(xmlId, parentObject);
+				changedIds.add(xmlId);
+			}
+			return;
+		}
+
+		@Override
+		void visitXmlIdRef(Object parentObject, FieldAccessor field, Object fldValue) {
+			List<IdRefField> ownerFields = idRefFieldsByOwner.get(parentObject);
+			if (ownerFields != null) {
+				for (int idx = 0; idx < ownerFields.size(); idx++) {
+					IdRefField idRefField = ownerFields.get(idx);
+					if (!idRefField.field.equals(field)) {
+						continue;
+					}
+					if (idRefField.isBound(fldValue)) {
+						return;
+					}
+					unlink(idRefField);
+					ownerFields.remove(idx);
+					break;
+				}
+			}
+			IdRefField idRefField = new IdRefField(parentObject, field, fetchRawValue(fldValue));
+			link(idRefField);
+			newFields.add(idRefField);
+			return;
+		}
+
+		@Override
+		void visitXmlGregorianCalendar(Object parentObject, FieldAccessor field, Object fldValue) {
+			if (fldValue instanceof XMLGregorianCalendar) {
+				normalizer.normalize((XMLGregorianCalendar) fldValue);
+			}
+			return;
+		}
+	}
+
+	/**
+	 * Removes the IDs and IDREF sites of the visited objects from the session.
+	 */
+	private final class InvalidateVisitor extends PlanVisitor {
+
+		private final Set<String> removedIds = new LinkedHashSet<>();
+
+		@Override
+		void visitXmlId(Object parentObject, FieldAccessor field, Object fldValue) {
+			String xmlId = xmlIds.remove(parentObject);
+			if (xmlId != null && xmlIdObjects.remove(xmlId, parentObject)) {
+				removedIds.add(xmlId);
+			}
+			return;
+		}
+
+		@Override
+		void visitXmlIdRef(Object parentObject, FieldAccessor field, Object fldValue) {
+			List<IdRefField> ownerFields = idRefFieldsByOwner.remove(parentObject);
+			if (ownerFields != null) {
+				for (IdRefField idRefField : ownerFields) {
+					unlink(idRefField);
+				}
+			}
+			return;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.otcframework.jaxb.IdRefSite;
+import org.otcframework.jaxb.ResolveResult;
+
+/**
+ * Result of a resolve, holding the ID index of the document and the IDREF
+ * bindings made. The bindings are indexed by target as chains through an int
+ * array, so the index holds one map entry per referenced object and the sites
+ * are only created when they are asked for.
+ */
+final class ResolveResultImpl implements ResolveResult {
+
+	private final IdIndex xmlIdObjects;
+	private final IdRefPatches idRefLinks;
+	private final Map<Object, Integer> firstLinks;
+	private final int[] nextLinks;
+
+	ResolveResultImpl(IdIndex xmlIdObjects, IdRefPatches idRefLinks) {
+		this.xmlIdObjects = xmlIdObjects;
+		this.idRefLinks = idRefLinks;
+		int size = idRefLinks.size();
+		firstLinks = new IdentityHashMap<>();
+		nextLinks = new int[size];
+		Arrays.fill(nextLinks, -1);
+		Map<Object, Integer> lastLinks = new IdentityHashMap<>();
+		for (int idx = 0; idx < size; idx++) {
+			Object target = idRefLinks.getValue(idx);
+			Integer lastLink = lastLinks.put(target, idx);
+			if (lastLink == null) {
+				firstLinks.put(target, idx);
+			} else {
+				nextLinks[lastLink] = idx;
+			}
+		}
+	}
+
+	@Override
+	public Object getXmlIdObject(String xmlId) {
+		return xmlIdObjects.get(xmlId);
+	}
+
+	@Override
+	public int getXmlIdCount() {
+		return xmlIdObjects.size();
+	}
+
+	@Override
+	public List<IdRefSite> getReferrers(Object target) {
+		Integer firstLink = firstLinks.get(target);
+		if (firstLink == null) {
+			return Collections.emptyList();
+		}
+		List<IdRefSite> idRefSites = new ArrayList<>();
+		for (int idx = firstLink; idx >= 0; idx = nextLinks[idx]) {
+			idRefSites.add(new IdRefSite(idRefLinks.getOwner(idx), idRefLinks.getField(idx).getName(), target));
+		}
+		return idRefSites;
+	}
+}
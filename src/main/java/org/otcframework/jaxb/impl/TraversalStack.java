@@ -0,0 +1,233 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Work stack of a traversal, holding one frame per object being walked: the
+ * object, the field plans of the pass, the next field to read and the
+ * container of child objects being iterated, if any. Walking the document off
+ * this stack instead of recursing keeps the order of a depth-first recursion,
+ * but the depth of a document is bound by the configured maximum instead of by
+ * the thread's stack.
+ *
+ * The frames are held in parallel arrays, which grow as needed and are cleared
+ * once the traversal is done, so a stack can be kept and reused by the next
+ * traversal of the same thread.
+ */
+final class TraversalStack {
+
+	private static final int ITERATOR = 0;
+	private static final int ARRAY = 1;
+	private static final int RANDOM_ACCESS_LIST = 2;
+
+	private final int maxDepth;
+	private Object[] parents;
+	private FieldPlan[][] fieldPlans;
+	private int[] fieldIndexes;
+	private Object[] containers;
+	private int[] containerKinds;
+	private int[] memberIndexes;
+	private int[] memberCounts;
+	private int size;
+	private int usedSize;
+
+	TraversalStack(int initialCapacity, int maxDepth) {
+		this.maxDepth = maxDepth;
+		allocate(Math.max(Math.min(initialCapacity, maxDepth), 1));
+	}
+
+	int capacity() {
+		return parents.length;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Pushes the frame of an object to walk.
+	 *
+	 * @throws IllegalStateException if the document is nested deeper than the
+	 *         maximum depth
+	 */
+	void push(Object parentObject, FieldPlan[] parentFieldPlans) {
+		if (size == maxDepth) {
+			throw new IllegalStateException("The document is nested deeper than " + maxDepth + " objects.");
+		}
+		if (size == parents.length) {
+			grow();
+		}
+		parents[size] = parentObject;
+		fieldPlans[size] = parentFieldPlans;
+		fieldIndexes[size] = 0;
+		containers[size] = null;
+		if (++size > usedSize) {
+			usedSize = size;
+		}
+		return;
+	}
+
+	void pop() {
+		size--;
+		parents[size] = null;
+		containers[size] = null;
+		return;
+	}
+
+	Object getParentObject() {
+		return parents[size - 1];
+	}
+
+	/**
+	 * Moves the top frame to its next field.
+	 *
+	 * @return the plan of the field, or null if all fields were read
+	 */
+	FieldPlan nextFieldPlan() {
+		int top = size - 1;
+		FieldPlan[] topFieldPlans = fieldPlans[top];
+		int idx = fieldIndexes[top];
+		if (idx == topFieldPlans.length) {
+			return null;
+		}
+		fieldIndexes[top] = idx + 1;
+		return topFieldPlans[idx];
+	}
+
+	/**
+	 * Gets the plan of the field read last by the top frame.
+	 */
+	FieldPlan getFieldPlan() {
+		int top = size - 1;
+		return fieldPlans[top][fieldIndexes[top] - 1];
+	}
+
+	/**
+	 * Starts iterating the members of a list in the top frame, by index if the
+	 * list has random access.
+	 */
+	void setContainer(List<?> members) {
+		if (members instanceof RandomAccess) {
+			setContainer(members, RANDOM_ACCESS_LIST, members.size());
+		} else {
+			setContainer(members.iterator(), ITERATOR, 0);
+		}
+		return;
+	}
+
+	/**
+	 * Starts iterating the members of an array in the top frame.
+	 */
+	void setContainer(Object[] members) {
+		setContainer(members, ARRAY, members.length);
+		return;
+	}
+
+	private void setContainer(Object container, int containerKind, int memberCount) {
+		int top = size - 1;
+		containers[top] = container;
+		containerKinds[top] = containerKind;
+		memberIndexes[top] = 0;
+		memberCounts[top] = memberCount;
+		return;
+	}
+
+	boolean hasContainer() {
+		return containers[size - 1] != null;
+	}
+
+	/**
+	 * Tells whether the container of the top frame has more members, ending the
+	 * iteration if it does not.
+	 */
+	boolean hasNextMember() {
+		int top = size - 1;
+		boolean hasNext;
+		if (containerKinds[top] == ITERATOR) {
+			hasNext = ((Iterator<?>) containers[top]).hasNext();
+		} else {
+			hasNext = memberIndexes[top] < memberCounts[top];
+		}
+		if (!hasNext) {
+			containers[top] = null;
+		}
+		return hasNext;
+	}
+
+	Object nextMember() {
+		int top = size - 1;
+		switch (containerKinds[top]) {
+		case ARRAY:
+			return ((Object[]) containers[top])[memberIndexes[top]++];
+		case RANDOM_ACCESS_LIST:
+			return ((List<?>) containers[top]).get(memberIndexes[top]++);
+		default:
+			return ((Iterator<?>) containers[top]).next();
+		}
+	}
+
+	/**
+	 * Drops the frames left by a traversal that ended early and the references
+	 * held by every frame used.
+	 */
+	void clear() {
+		Arrays.fill(parents, 0, usedSize, null);
+		Arrays.fill(fieldPlans, 0, usedSize, null);
+		Arrays.fill(containers, 0, usedSize, null);
+		size = 0;
+		usedSize = 0;
+		return;
+	}
+
+	private void grow() {
+		int capacity = parents.length;
+		int newCapacity = capacity + Math.max(capacity >> 1, 1);
+		if (newCapacity > maxDepth || newCapacity < 0) {
+			newCapacity = maxDepth;
+		}
+		parents = Arrays.copyOf(parents, newCapacity);
+		fieldPlans = Arrays.copyOf(fieldPlans, newCapacity);
+		fieldIndexes = Arrays.copyOf(fieldIndexes, newCapacity);
+		containers = Arrays.copyOf(containers, newCapacity);
+		containerKinds = Arrays.copyOf(containerKinds, newCapacity);
+		memberIndexes = Arrays.copyOf(memberIndexes, newCapacity);
+		memberCounts = Arrays.copyOf(memberCounts, newCapacity);
+		return;
+	}
+
+	private void allocate(int capacity) {
+		parents = new Object[capacity];
+		fieldPlans = new FieldPlan[capacity][];
+		fieldIndexes = new int[capacity];
+		containers = new Object[capacity];
+		containerKinds = new int[capacity];
+		memberIndexes = new int[capacity];
+		memberCounts = new int[capacity];
+		return;
+	}
+}
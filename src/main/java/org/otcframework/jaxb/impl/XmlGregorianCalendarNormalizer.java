@@ -0,0 +1,153 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.Duration;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Normalizes XMLGregorianCalendar values by a fixed set of policies, parsed
+ * once from the resolver's configuration. The policies are a setting of the
+ * resolver, as 'unsetTimeZoneInXmlGregorianCalandar' was, and apply to every
+ * XMLGregorianCalendar field it resolves. The calendars are changed in place,
+ * so no field is written.
+ *
+ * The policies are applied in the order UTC normalization, timezone removal
+ * and fractional second truncation, so a value normalized to UTC and stripped
+ * of its timezone holds the UTC time.
+ */
+final class XmlGregorianCalendarNormalizer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(XmlGregorianCalendarNormalizer.class);
+
+	static final int UNSET_TIMEZONE = 1;
+	static final int NORMALIZE_TO_UTC = 2;
+	static final int TRUNCATE_FRACTIONAL_SECONDS = 4;
+
+	/** The widest timezone offset of an XMLGregorianCalendar, in minutes. */
+	private static final int MAX_TIMEZONE = 14 * 60;
+
+	private final int policies;
+
+	/** The durations moving a time of each timezone offset to UTC. */
+	private final AtomicReferenceArray<Duration> toUtcDurations;
+	private final DatatypeFactory datatypeFactory;
+
+	private XmlGregorianCalendarNormalizer(int policies) {
+		this.policies = policies;
+		if ((policies & NORMALIZE_TO_UTC) != 0) {
+			toUtcDurations = new AtomicReferenceArray<>(2 * MAX_TIMEZONE + 1);
+			try {
+				datatypeFactory = DatatypeFactory.newInstance();
+			} catch (DatatypeConfigurationException e) {
+				throw new IllegalStateException(e);
+			}
+		} else {
+			toUtcDurations = null;
+			datatypeFactory = null;
+		}
+	}
+
+	/**
+	 * Creates the normalizer for the policies.
+	 *
+	 * @param policies comma separated policy names, UNSET_TIMEZONE,
+	 *        NORMALIZE_TO_UTC and TRUNCATE_FRACTIONAL_SECONDS, or null
+	 * @param unsetTimeZone true to unset the timezone even if the policies do not
+	 *        name it
+	 */
+	static XmlGregorianCalendarNormalizer create(String policies, boolean unsetTimeZone) {
+		int policyBits = unsetTimeZone ? UNSET_TIMEZONE : 0;
+		if (policies != null) {
+			for (String policy : policies.split(",")) {
+				policy = policy.trim();
+				if (policy.isEmpty()) {
+					continue;
+				}
+				if ("UNSET_TIMEZONE".equalsIgnoreCase(policy)) {
+					policyBits |= UNSET_TIMEZONE;
+				} else if ("NORMALIZE_TO_UTC".equalsIgnoreCase(policy)) {
+					policyBits |= NORMALIZE_TO_UTC;
+				} else if ("TRUNCATE_FRACTIONAL_SECONDS".equalsIgnoreCase(policy)) {
+					policyBits |= TRUNCATE_FRACTIONAL_SECONDS;
+				} else {
+					LOGGER.warn("Ignoring unknown XMLGregorianCalendar policy '{}'.", policy);
+				}
+			}
+		}
+		return new XmlGregorianCalendarNormalizer(policyBits);
+	}
+
+	boolean isEnabled() {
+		return policies != 0;
+	}
+
+	void normalize(XMLGregorianCalendar xmlGregorianCalendar) {
+		if ((policies & NORMALIZE_TO_UTC) != 0) {
+			int timezone = xmlGregorianCalendar.getTimezone();
+			if (timezone != DatatypeConstants.FIELD_UNDEFINED && timezone != 0) {
+				boolean isMillisecondUndefined = xmlGregorianCalendar.getMillisecond() == DatatypeConstants.FIELD_UNDEFINED;
+				xmlGregorianCalendar.add(fetchToUtcDuration(timezone));
+				xmlGregorianCalendar.setTimezone(0);
+				if (isMillisecondUndefined) {
+					xmlGregorianCalendar.setMillisecond(DatatypeConstants.FIELD_UNDEFINED);
+				}
+			}
+		}
+		if ((policies & UNSET_TIMEZONE) != 0) {
+			xmlGregorianCalendar.setTimezone(DatatypeConstants.FIELD_UNDEFINED);
+		}
+		if ((policies & TRUNCATE_FRACTIONAL_SECONDS) != 0 && xmlGregorianCalendar.getFractionalSecond() != null) {
+			xmlGregorianCalendar.setFractionalSecond(null);
+		}
+		return;
+	}
+
+	/**
+	 * Gets the duration that XMLGregorianCalendar.normalize() adds to a time of
+	 * the timezone offset, created once per offset.
+	 */
+	private Duration fetchToUtcDuration(int timezone) {
+		if (timezone < -MAX_TIMEZONE || timezone > MAX_TIMEZONE) {
+			return createToUtcDuration(timezone);
+		}
+		Duration duration = toUtcDurations.get(timezone + MAX_TIMEZONE);
+		if (duration == null) {
+			duration = createToUtcDuration(timezone);
+			toUtcDurations.set(timezone + MAX_TIMEZONE, duration);
+		}
+		return duration;
+	}
+
+	private Duration createToUtcDuration(int timezone) {
+		return datatypeFactory.newDuration(timezone <= 0, 0, 0, 0, 0, Math.abs(timezone), 0);
+	}
+}
@@ -0,0 +1,69 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.metrics;
+
+/**
+ * Receives the measurements of a resolver. The resolver calls it on the resolve
+ * path, so implementations must be cheap and thread safe. Pass timings are only
+ * taken for a sample of the passes, and are -1 for the others.
+ */
+public interface JaxbIdRefMetrics {
+
+	enum Pass {
+		XML_ID, XML_IDREF, XML_GREGORIAN_CALENDAR, SINGLE_PASS, PREFIX
+	}
+
+	/**
+	 * Tells whether the resolver has to take measurements at all.
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * A pass over a document is done.
+	 *
+	 * @param rootClass the class of the document
+	 * @param objectsVisited the number of objects the pass visited
+	 * @param nanos the time the pass took, or -1 if it was not sampled
+	 */
+	public void passCompleted(Class<?> rootClass, Pass pass, int objectsVisited, long nanos);
+
+	/**
+	 * A document is resolved.
+	 *
+	 * @param idCount the number of IDs in the ID index of the document
+	 */
+	public void resolved(Class<?> rootClass, int idCount);
+
+	public void idRefsBound(int count);
+
+	/**
+	 * IDREF values naming IDs that are not in the document were met.
+	 */
+	public void idRefsUnresolved(int count);
+
+	/**
+	 * A class and the classes reachable from it were compiled for the first
+	 * time.
+	 */
+	public void compiled(Class<?> parentClass, long nanos);
+}
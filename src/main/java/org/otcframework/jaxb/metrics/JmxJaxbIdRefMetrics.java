@@ -0,0 +1,230 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metrics kept in striped counters and exposed as an MXBean. Every update is a
+ * {@link LongAdder} increment, so threads resolving at the same time do not
+ * contend on the counters.
+ */
+public final class JmxJaxbIdRefMetrics implements JaxbIdRefMetrics, JmxJaxbIdRefMetricsMXBean {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JmxJaxbIdRefMetrics.class);
+	private static final Pass[] PASSES = Pass.values();
+
+	private final ConcurrentMap<Class<?>, RootClassMetrics> rootClassMetrics = new ConcurrentHashMap<>();
+	private final LongAdder idRefsBound = new LongAdder();
+	private final LongAdder idRefsUnresolved = new LongAdder();
+	private final LongAdder compileCount = new LongAdder();
+	private final LongAdder compileTimeNanos = new LongAdder();
+	private final LongAccumulator maxCompileTimeNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Registers the metrics in the platform MBean server under
+	 * org.otcframework.jaxb:type=JaxbIdRefResolver,name=&lt;name&gt;.
+	 *
+	 * @return true if the metrics were registered
+	 */
+	public boolean register(String name) {
+		try {
+			MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+			mBeanServer.registerMBean(this, new ObjectName("org.otcframework.jaxb:type=JaxbIdRefResolver,name=" + name));
+			return true;
+		} catch (JMException e) {
+			LOGGER.warn(e.getMessage());
+			return false;
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public void passCompleted(Class<?> rootClass, Pass pass, int objectsVisited, long nanos) {
+		RootClassMetrics metrics = fetchRootClassMetrics(rootClass);
+		int ordinal = pass.ordinal();
+		metrics.objectsVisited[ordinal].add(objectsVisited);
+		if (nanos >= 0) {
+			metrics.sampledPasses[ordinal].increment();
+			metrics.sampledPassNanos[ordinal].add(nanos);
+		}
+		return;
+	}
+
+	@Override
+	public void resolved(Class<?> rootClass, int idCount) {
+		RootClassMetrics metrics = fetchRootClassMetrics(rootClass);
+		metrics.resolveCount.increment();
+		metrics.idCount.add(idCount);
+		return;
+	}
+
+	@Override
+	public void idRefsBound(int count) {
+		idRefsBound.add(count);
+		return;
+	}
+
+	@Override
+	public void idRefsUnresolved(int count) {
+		idRefsUnresolved.add(count);
+		return;
+	}
+
+	@Override
+	public void compiled(Class<?> parentClass, long nanos) {
+		compileCount.increment();
+		compileTimeNanos.add(nanos);
+		maxCompileTimeNanos.accumulate(nanos);
+		return;
+	}
+
+	@Override
+	public long getResolveCount() {
+		long resolveCount = 0;
+		for (RootClassMetrics metrics : rootClassMetrics.values()) {
+			resolveCount += metrics.resolveCount.sum();
+		}
+		return resolveCount;
+	}
+
+	@Override
+	public long getIdRefsBound() {
+		return idRefsBound.sum();
+	}
+
+	@Override
+	public long getIdRefsUnresolved() {
+		return idRefsUnresolved.sum();
+	}
+
+	@Override
+	public long getCompileCount() {
+		return compileCount.sum();
+	}
+
+	@Override
+	public long getCompileTimeNanos() {
+		return compileTimeNanos.sum();
+	}
+
+	@Override
+	public long getMaxCompileTimeNanos() {
+		return maxCompileTimeNanos.get();
+	}
+
+	@Override
+	public Map<String, Long> getObjectsVisited() {
+		Map<String, Long> objectsVisited = new TreeMap<>();
+		for (Map.Entry<Class<?>, RootClassMetrics> entry : rootClassMetrics.entrySet()) {
+			for (Pass pass : PASSES) {
+				long count = entry.getValue().objectsVisited[pass.ordinal()].sum();
+				if (count > 0) {
+					objectsVisited.put(entry.getKey().getName() + "/" + pass, count);
+				}
+			}
+		}
+		return objectsVisited;
+	}
+
+	@Override
+	public Map<String, Long> getMeanPassTimeNanos() {
+		Map<String, Long> meanPassTimeNanos = new TreeMap<>();
+		for (Map.Entry<Class<?>, RootClassMetrics> entry : rootClassMetrics.entrySet()) {
+			RootClassMetrics metrics = entry.getValue();
+			for (Pass pass : PASSES) {
+				long sampledPasses = metrics.sampledPasses[pass.ordinal()].sum();
+				if (sampledPasses > 0) {
+					meanPassTimeNanos.put(entry.getKey().getName() + "/" + pass,
+							metrics.sampledPassNanos[pass.ordinal()].sum() / sampledPasses);
+				}
+			}
+		}
+		return meanPassTimeNanos;
+	}
+
+	@Override
+	public Map<String, Long> getMeanIdCount() {
+		Map<String, Long> meanIdCount = new TreeMap<>();
+		for (Map.Entry<Class<?>, RootClassMetrics> entry : rootClassMetrics.entrySet()) {
+			long resolveCount = entry.getValue().resolveCount.sum();
+			if (resolveCount > 0) {
+				meanIdCount.put(entry.getKey().getName(), entry.getValue().idCount.sum() / resolveCount);
+			}
+		}
+		return meanIdCount;
+	}
+
+	@Override
+	public void reset() {
+		rootClassMetrics.clear();
+		idRefsBound.reset();
+		idRefsUnresolved.reset();
+		compileCount.reset();
+		compileTimeNanos.reset();
+		maxCompileTimeNanos.reset();
+		return;
+	}
+
+	private RootClassMetrics fetchRootClassMetrics(Class<?> rootClass) {
+		RootClassMetrics metrics = rootClassMetrics.get(rootClass);
+		if (metrics == null) {
+			metrics = rootClassMetrics.computeIfAbsent(rootClass, cls -> new RootClassMetrics());
+		}
+		return metrics;
+	}
+
+	private static final class RootClassMetrics {
+
+		private final LongAdder resolveCount = new LongAdder();
+		private final LongAdder idCount = new LongAdder();
+		private final LongAdder[] objectsVisited = createAdders();
+		private final LongAdder[] sampledPasses = createAdders();
+		private final LongAdder[] sampledPassNanos = createAdders();
+
+		private static LongAdder[] createAdders() {
+			LongAdder[] adders = new LongAdder[PASSES.length];
+			for (int idx = 0; idx < adders.length; idx++) {
+				adders[idx] = new LongAdder();
+			}
+			return adders;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link JmxJaxbIdRefMetrics}. The maps are keyed by
+ * root class name, or by root class name and pass separated by a slash.
+ */
+public interface JmxJaxbIdRefMetricsMXBean {
+
+	public long getResolveCount();
+
+	public long getIdRefsBound();
+
+	public long getIdRefsUnresolved();
+
+	public long getCompileCount();
+
+	public long getCompileTimeNanos();
+
+	public long getMaxCompileTimeNanos();
+
+	public Map<String, Long> getObjectsVisited();
+
+	/**
+	 * Mean time of the sampled passes.
+	 */
+	public Map<String, Long> getMeanPassTimeNanos();
+
+	/**
+	 * Mean number of IDs in the resolved documents.
+	 */
+	public Map<String, Long> getMeanIdCount();
+
+	public void reset();
+}
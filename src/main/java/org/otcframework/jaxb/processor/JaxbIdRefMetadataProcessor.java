@@ -0,0 +1,326 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.otcframework.jaxb.JaxbIdRefMetadata;
+import org.otcframework.jaxb.util.PackagesFilter;
+
+/**
+ * Generates the {@link JaxbIdRefMetadata} of the JAXB classes being compiled,
+ * one class next to each JAXB class, and lists them in the service file read by
+ * the resolver. An incremental compile only regenerates the metadata of the
+ * classes it compiles, and the service file keeps the entries of the earlier
+ * compiles whose metadata classes can still be found.
+ *
+ * The processor is not registered in this jar, so it only runs when it is named
+ * on the compiler, for example with -processor or in the annotationProcessors of
+ * the maven-compiler-plugin of the module holding the JAXB classes. The option
+ * otc.jaxb.packages takes the comma separated packages to describe, in the
+ * format of the filtered packages; without it every class being compiled is
+ * described. Fields the generated code cannot access, private or final ones,
+ * are noted on the compiler output, as the resolver reads or writes them by
+ * reflection.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(JaxbIdRefMetadataProcessor.PACKAGES_OPTION)
+public class JaxbIdRefMetadataProcessor extends AbstractProcessor {
+
+	public static final String PACKAGES_OPTION = "otc.jaxb.packages";
+
+	private static final String METADATA_CLASS_SUFFIX = "_OtcJaxbIdRefMetadata";
+	private static final String SERVICE_FILE = "META-INF/services/" + JaxbIdRefMetadata.class.getName();
+	private static final String XML_ID = "javax.xml.bind.annotation.XmlID";
+	private static final String XML_IDREF = "javax.xml.bind.annotation.XmlIDREF";
+	private static final String XML_ELEMENT_REFS = "javax.xml.bind.annotation.XmlElementRefs";
+	private static final String XML_GREGORIAN_CALENDAR = "javax.xml.datatype.XMLGregorianCalendar";
+
+	private final Set<String> metadataClassNames = new LinkedHashSet<>();
+	private PackagesFilter packagesFilter;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			writeServiceFile();
+			return false;
+		}
+		for (TypeElement typeElement : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			processType(typeElement);
+		}
+		return false;
+	}
+
+	private void processType(TypeElement typeElement) {
+		if (typeElement.getKind() != ElementKind.CLASS || typeElement.getModifiers().contains(Modifier.PRIVATE)
+				|| typeElement.getNestingKind() == NestingKind.LOCAL || typeElement.getNestingKind() == NestingKind.ANONYMOUS
+				|| typeElement.getSimpleName().toString().endsWith(METADATA_CLASS_SUFFIX)
+				|| !fetchPackagesFilter().isFilteredPackage(fetchBinaryName(typeElement))) {
+			return;
+		}
+		writeMetadataClass(typeElement);
+		for (TypeElement memberElement : ElementFilter.typesIn(typeElement.getEnclosedElements())) {
+			processType(memberElement);
+		}
+		return;
+	}
+
+	private PackagesFilter fetchPackagesFilter() {
+		if (packagesFilter == null) {
+			String packages = processingEnv.getOptions().get(PACKAGES_OPTION);
+			if (packages == null || packages.trim().isEmpty()) {
+				packagesFilter = new PackagesFilter(new HashSet<>(Arrays.asList("*")));
+			} else {
+				Set<String> pkgsToFilter = new HashSet<>();
+				for (String pkg : packages.split(",")) {
+					if (!pkg.trim().isEmpty()) {
+						pkgsToFilter.add(pkg.trim());
+					}
+				}
+				packagesFilter = new PackagesFilter(pkgsToFilter);
+			}
+		}
+		return packagesFilter;
+	}
+
+	/**
+	 * Writes the metadata class of one JAXB class. It is named after the binary
+	 * name of the class, so nested classes get their own metadata class.
+	 */
+	private void writeMetadataClass(TypeElement typeElement) {
+		String packageName = processingEnv.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString();
+		String binaryName = fetchBinaryName(typeElement);
+		String simpleName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_')
+				+ METADATA_CLASS_SUFFIX;
+		String className = qualify(packageName, simpleName);
+		if (metadataClassNames.contains(className)) {
+			return;
+		}
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("/** Generated by ").append(getClass().getName()).append(". */\n");
+		source.append("@SuppressWarnings({ \"cast\", \"rawtypes\", \"unchecked\" })\n");
+		source.append("public final class ").append(simpleName).append(" implements ")
+				.append(JaxbIdRefMetadata.class.getName()).append(" {\n\n");
+		appendRegisterMethod(source, typeElement);
+		source.append("}\n");
+		try (Writer writer = processingEnv.getFiler().createSourceFile(className, typeElement).openWriter()) {
+			writer.write(source.toString());
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Cannot write " + className + " - " + e.getMessage());
+			return;
+		}
+		metadataClassNames.add(className);
+		return;
+	}
+
+	private void appendRegisterMethod(StringBuilder source, TypeElement typeElement) {
+		Types types = processingEnv.getTypeUtils();
+		String typeName = types.erasure(typeElement.asType()).toString();
+		source.append("\t@Override\n");
+		source.append("\tpublic void register(org.otcframework.jaxb.JaxbIdRefMetadataRegistry registry) {\n");
+		source.append("\t\tregistry.addClass(").append(typeName).append(".class);\n");
+		for (VariableElement field : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+			Set<Modifier> modifiers = field.getModifiers();
+			TypeMirror fieldType = field.asType();
+			if (modifiers.contains(Modifier.STATIC) || fieldType.getKind().isPrimitive() || isEnum(fieldType)) {
+				continue;
+			}
+			boolean xmlId = hasAnnotation(field, XML_ID);
+			boolean xmlIdRef = hasAnnotation(field, XML_IDREF) || hasAnnotation(field, XML_ELEMENT_REFS);
+			String fieldTypeName = types.erasure(fieldType).toString();
+			String componentTypeName = fetchComponentTypeName(fieldType);
+			if (!xmlId && !xmlIdRef && !XML_GREGORIAN_CALENDAR.equals(fieldTypeName) && !isCandidateChild(componentTypeName)) {
+				continue;
+			}
+			String fieldName = field.getSimpleName().toString();
+			source.append("\t\tregistry.addField(").append(typeName).append(".class, \"").append(fieldName).append("\", ")
+					.append(fieldTypeName).append(".class, ")
+					.append(componentTypeName == null ? "null" : componentTypeName + ".class").append(", ")
+					.append(xmlId).append(", ").append(xmlIdRef).append(", ");
+			if (modifiers.contains(Modifier.PRIVATE)) {
+				source.append("null, null");
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+						typeName + "." + fieldName + " is private, it is read and written by reflection", field);
+			} else {
+				String target = "((" + typeName + ") target)." + fieldName;
+				source.append("target -> ").append(target).append(", ");
+				if (modifiers.contains(Modifier.FINAL)) {
+					source.append("null");
+					processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+							typeName + "." + fieldName + " is final, it is written by reflection", field);
+				} else {
+					source.append("(target, value) -> ").append(target).append(" = (").append(fieldTypeName)
+							.append(") value");
+				}
+			}
+			source.append(");\n");
+		}
+		source.append("\t}\n");
+		return;
+	}
+
+	/**
+	 * The component type as the resolver reads it by reflection: the component
+	 * type of arrays, the type argument of lists if it is a plain class, and the
+	 * field type otherwise.
+	 */
+	private String fetchComponentTypeName(TypeMirror fieldType) {
+		Types types = processingEnv.getTypeUtils();
+		if (fieldType.getKind() == TypeKind.ARRAY) {
+			return types.erasure(((ArrayType) fieldType).getComponentType()).toString();
+		}
+		TypeElement listElement = processingEnv.getElementUtils().getTypeElement(List.class.getName());
+		if (types.isAssignable(types.erasure(fieldType), types.erasure(listElement.asType()))) {
+			if (fieldType.getKind() != TypeKind.DECLARED) {
+				return null;
+			}
+			List<? extends TypeMirror> typeArguments = ((DeclaredType) fieldType).getTypeArguments();
+			if (typeArguments.size() != 1 || typeArguments.get(0).getKind() != TypeKind.DECLARED
+					|| !((DeclaredType) typeArguments.get(0)).getTypeArguments().isEmpty()) {
+				return null;
+			}
+			return types.erasure(typeArguments.get(0)).toString();
+		}
+		return types.erasure(fieldType).toString();
+	}
+
+	/**
+	 * Leaves out the types that can never be JAXB classes. The resolver applies
+	 * its own package filter to the rest.
+	 */
+	private boolean isCandidateChild(String componentTypeName) {
+		return componentTypeName != null && componentTypeName.indexOf('.') > 0 && !componentTypeName.startsWith("java.")
+				&& !componentTypeName.startsWith("javax.");
+	}
+
+	private boolean isEnum(TypeMirror fieldType) {
+		return fieldType.getKind() == TypeKind.DECLARED
+				&& ((DeclaredType) fieldType).asElement().getKind() == ElementKind.ENUM;
+	}
+
+	private boolean hasAnnotation(Element element, String annotationName) {
+		for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+			if (((TypeElement) annotationMirror.getAnnotationType().asElement()).getQualifiedName()
+					.contentEquals(annotationName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String fetchBinaryName(TypeElement typeElement) {
+		return processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+	}
+
+	private String qualify(String packageName, String simpleName) {
+		return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+	}
+
+	/**
+	 * Writes the service file, keeping the entries of earlier compiles whose
+	 * metadata classes are still on the class path, so an incremental compile
+	 * does not drop the metadata of the classes it did not compile.
+	 */
+	private void writeServiceFile() {
+		if (metadataClassNames.isEmpty()) {
+			return;
+		}
+		Set<String> classNames = new LinkedHashSet<>();
+		for (String className : readServiceFile()) {
+			if (processingEnv.getElementUtils().getTypeElement(className) != null) {
+				classNames.add(className);
+			}
+		}
+		classNames.addAll(metadataClassNames);
+		try {
+			FileObject serviceFile = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+			try (Writer writer = serviceFile.openWriter()) {
+				for (String className : classNames) {
+					writer.write(className);
+					writer.write("\n");
+				}
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Cannot write " + SERVICE_FILE + " - " + e.getMessage());
+		}
+		return;
+	}
+
+	private Set<String> readServiceFile() {
+		Set<String> classNames = new LinkedHashSet<>();
+		try {
+			FileObject serviceFile = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+			try (BufferedReader reader = new BufferedReader(serviceFile.openReader(true))) {
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					int commentIdx = line.indexOf('#');
+					String className = (commentIdx < 0 ? line : line.substring(0, commentIdx)).trim();
+					if (!className.isEmpty()) {
+						classNames.add(className);
+					}
+				}
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			// No service file from an earlier compile.
+		}
+		return classNames;
+	}
+}
@@ -0,0 +1,156 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable filter deciding which classes belong to the configured JAXB
+ * packages.
+ *
+ * The packages are held in a prefix trie and every decision is cached per
+ * class, so after the first call for a class a decision costs a lookup in the
+ * class value.
+ */
+public final class PackagesFilter {
+
+	/** The filter that matches no package. */
+	public static final PackagesFilter EMPTY = new PackagesFilter(Collections.<String>emptySet());
+
+	/** The packages as they were configured. */
+	private final Set<String> packages;
+
+	/** The root of the package prefix trie. */
+	private final Node root = new Node();
+
+	/** The cached decisions. */
+	private final ClassValue<Boolean> filteredClasses = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			while (type.isArray()) {
+				type = type.getComponentType();
+			}
+			return isFilteredPackage(type.getName());
+		}
+	};
+
+	/**
+	 * Instantiates a new packages filter. A package ending with "*" matches every
+	 * class name starting with what precedes the "*"; any other package matches
+	 * the classes of that package and its sub-packages.
+	 *
+	 * @param pkgsToFilter the packages to filter
+	 */
+	public PackagesFilter(Set<String> pkgsToFilter) {
+		packages = Collections.unmodifiableSet(new LinkedHashSet<>(pkgsToFilter));
+		for (String pkg : pkgsToFilter) {
+			if (pkg.endsWith("*")) {
+				pkg = pkg.substring(0, pkg.length() - 1);
+			} else if (!pkg.endsWith(".")) {
+				pkg = pkg.concat(".");
+			}
+			root.add(pkg);
+		}
+	}
+
+	/**
+	 * Gets the packages as they were configured.
+	 *
+	 * @return the packages
+	 */
+	public Set<String> getPackages() {
+		return packages;
+	}
+
+	/**
+	 * Checks if is filtered package.
+	 *
+	 * @param type the type
+	 * @return true, if is filtered package
+	 */
+	public boolean isFilteredPackage(Class<?> type) {
+		return filteredClasses.get(type);
+	}
+
+	/**
+	 * Checks if is filtered package.
+	 *
+	 * @param clsName the cls name
+	 * @return true, if is filtered package
+	 */
+	public boolean isFilteredPackage(String clsName) {
+		Node node = root;
+		for (int idx = 0; idx < clsName.length(); idx++) {
+			if (node.isTerminal) {
+				return true;
+			}
+			node = node.child(clsName.charAt(idx));
+			if (node == null) {
+				return false;
+			}
+		}
+		return node.isTerminal;
+	}
+
+	/**
+	 * A node of the package prefix trie.
+	 */
+	private static final class Node {
+
+		private static final char[] NO_KEYS = new char[0];
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		private char[] keys = NO_KEYS;
+		private Node[] children = NO_CHILDREN;
+		private boolean isTerminal;
+
+		private void add(String prefix) {
+			Node node = this;
+			for (int idx = 0; idx < prefix.length(); idx++) {
+				char key = prefix.charAt(idx);
+				Node child = node.child(key);
+				if (child == null) {
+					child = new Node();
+					node.keys = Arrays.copyOf(node.keys, node.keys.length + 1);
+					node.children = Arrays.copyOf(node.children, node.children.length + 1);
+					node.keys[node.keys.length - 1] = key;
+					node.children[node.children.length - 1] = child;
+				}
+				node = child;
+			}
+			node.isTerminal = true;
+		}
+
+		private Node child(char key) {
+			for (int idx = 0; idx < keys.length; idx++) {
+				if (keys[idx] == key) {
+					return children[idx];
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks an ID index against a HashMap. Removal shifts the entries after the
+ * removed one back along their probe sequence, so the tests remove IDs that
+ * collide, that wrap around the end of the table and that sit in the middle of
+ * long runs.
+ */
+public abstract class AbstractIdIndexTest {
+
+	abstract IdIndex createIdIndex(int expectedSize);
+
+	@Test
+	public void putReplacesTheObjectOfAnIndexedId() {
+		IdIndex idIndex = createIdIndex(0);
+		Object first = new Object();
+		Object second = new Object();
+		idIndex.put("A", first);
+		idIndex.put("A", second);
+		assertEquals(1, idIndex.size());
+		assertSame(second, idIndex.get("A"));
+		return;
+	}
+
+	@Test
+	public void getLooksUpTheIdOfACharacterRange() {
+		IdIndex idIndex = createIdIndex(0);
+		Object object = new Object();
+		idIndex.put("S1", object);
+		assertSame(object, idIndex.get("S0 S1 S2", 3, 5));
+		assertNull(idIndex.get("S0 S1 S2", 0, 2));
+		assertNull(idIndex.get("S0 S1 S2", 3, 4));
+		return;
+	}
+
+	@Test
+	public void removeOnlyRemovesTheIdOfTheGivenObject() {
+		IdIndex idIndex = createIdIndex(0);
+		Object object = new Object();
+		idIndex.put("A", object);
+		assertFalse(idIndex.remove("A", new Object()));
+		assertFalse(idIndex.remove("B", object));
+		assertSame(object, idIndex.get("A"));
+		assertTrue(idIndex.remove("A", object));
+		assertNull(idIndex.get("A"));
+		assertEquals(0, idIndex.size());
+		return;
+	}
+
+	/**
+	 * "Aa" and "BB" have the same hash code, so every combination of them of
+	 * one length lands on the same slot and the IDs form one long probe run.
+	 */
+	@Test
+	public void removeKeepsCollidingIdsReachable() {
+		List<String> ids = collidingIds(6);
+		IdIndex idIndex = createIdIndex(0);
+		Map<String, Object> expected = new HashMap<>();
+		for (String id : ids) {
+			Object object = new Object();
+			idIndex.put(id, object);
+			expected.put(id, object);
+		}
+		for (int idx = ids.size() / 2; idx < ids.size(); idx += 3) {
+			String id = ids.get(idx);
+			assertTrue(idIndex.remove(id, expected.remove(id)));
+			assertIndexed(expected, idIndex);
+		}
+		for (int idx = 0; idx < ids.size(); idx += 2) {
+			String id = ids.get(idx);
+			Object object = expected.remove(id);
+			if (object != null) {
+				assertTrue(idIndex.remove(id, object));
+			}
+			assertIndexed(expected, idIndex);
+		}
+		return;
+	}
+
+	/**
+	 * Runs random puts and removes on a table that stays small, so runs wrap
+	 * around the end of the table and removals keep shifting entries across it.
+	 */
+	@Test
+	public void randomPutsAndRemovesMatchAHashMap() {
+		Random random = new Random(42);
+		IdIndex idIndex = createIdIndex(0);
+		Map<String, Object> expected = new HashMap<>();
+		for (int step = 0; step < 200000; step++) {
+			String id = "ID" + random.nextInt(24);
+			if (random.nextInt(3) == 0) {
+				Object object = expected.get(id);
+				assertEquals(object != null, idIndex.remove(id, object));
+				expected.remove(id);
+			} else {
+				Object object = new Object();
+				idIndex.put(id, object);
+				expected.put(id, object);
+			}
+			if (step % 1000 == 0) {
+				assertIndexed(expected, idIndex);
+			}
+		}
+		assertIndexed(expected, idIndex);
+		return;
+	}
+
+	@Test
+	public void growingKeepsEveryId() {
+		IdIndex idIndex = createIdIndex(0);
+		Map<String, Object> expected = new HashMap<>();
+		for (int idx = 0; idx < 50000; idx++) {
+			Object object = new Object();
+			idIndex.put("ID" + idx, object);
+			expected.put("ID" + idx, object);
+		}
+		assertIndexed(expected, idIndex);
+		for (int idx = 0; idx < 50000; idx += 2) {
+			assertTrue(idIndex.remove("ID" + idx, expected.remove("ID" + idx)));
+		}
+		assertIndexed(expected, idIndex);
+		return;
+	}
+
+	@Test
+	public void clearEmptiesTheIndexForReuse() {
+		IdIndex idIndex = createIdIndex(0);
+		for (int idx = 0; idx < 100; idx++) {
+			idIndex.put("ID" + idx, new Object());
+		}
+		idIndex.clear(1000);
+		assertEquals(0, idIndex.size());
+		assertNull(idIndex.get("ID1"));
+		Object object = new Object();
+		idIndex.put("ID1", object);
+		assertSame(object, idIndex.get("ID1"));
+		assertEquals(1, idIndex.size());
+		return;
+	}
+
+	@Test
+	public void putAllLetsTheForkedIdsWin() {
+		IdIndex idIndex = createIdIndex(0);
+		IdIndex forkedIndex = idIndex.newIdIndex(0);
+		Object first = new Object();
+		Object second = new Object();
+		Object third = new Object();
+		idIndex.put("A", first);
+		forkedIndex.put("A", second);
+		forkedIndex.put("B", third);
+		idIndex.putAll(forkedIndex);
+		assertEquals(2, idIndex.size());
+		assertSame(second, idIndex.get("A"));
+		assertSame(third, idIndex.get("B"));
+		return;
+	}
+
+	private static void assertIndexed(Map<String, Object> expected, IdIndex idIndex) {
+		assertEquals(expected.size(), idIndex.size());
+		for (Map.Entry<String, Object> entry : expected.entrySet()) {
+			assertSame(entry.getKey(), entry.getValue(), idIndex.get(entry.getKey()));
+		}
+		return;
+	}
+
+	private static List<String> collidingIds(int pairs) {
+		List<String> ids = new ArrayList<>();
+		ids.add("");
+		for (int pair = 0; pair < pairs; pair++) {
+			List<String> longerIds = new ArrayList<>();
+			for (String id : ids) {
+				longerIds.add(id + "Aa");
+				longerIds.add(id + "BB");
+			}
+			ids = longerIds;
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,106 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31 
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Removing an entry moves the last entry into its place, so on top of the
+ * shared tests the moved entries must stay reachable when the table is rebuilt
+ * or copied from the dense entries.
+ */
+public class CompactIdIndexTest extends AbstractIdIndexTest {
+
+	@Override
+	IdIndex createIdIndex(int expectedSize) {
+		return new CompactIdIndex(expectedSize);
+	}
+
+	@Test
+	public void removeKeepsTheMovedEntryReachableAfterRehash() {
+		IdIndex idIndex = createIdIndex(0);
+		Object[] objects = new Object[12];
+		for (int idx = 0; idx < objects.length; idx++) {
+			objects[idx] = new Object();
+			idIndex.put("ID" + idx, objects[idx]);
+		}
+		assertTrue(idIndex.remove("ID0", objects[0]));
+		assertTrue(idIndex.remove("ID5", objects[5]));
+		int capacity = idIndex.capacity();
+		for (int idx = objects.length; idx < 100; idx++) {
+			idIndex.put("ID" + idx, new Object());
+		}
+		assertTrue(idIndex.capacity() > capacity);
+		assertEquals(98, idIndex.size());
+		assertNull(idIndex.get("ID0"));
+		assertNull(idIndex.get("ID5"));
+		for (int idx = 1; idx < objects.length; idx++) {
+			if (idx != 5) {
+				assertSame(objects[idx], idIndex.get("ID" + idx));
+				assertSame(objects[idx], idIndex.get("<ID" + idx + ">", 1, 3 + Integer.toString(idx).length()));
+			}
+		}
+		return;
+	}
+
+	@Test
+	public void putAllCopiesOnlyTheEntriesLeftAfterRemove() {
+		IdIndex forkedIndex = createIdIndex(0);
+		Object first = new Object();
+		Object second = new Object();
+		Object third = new Object();
+		forkedIndex.put("A", first);
+		forkedIndex.put("B", second);
+		forkedIndex.put("C", third);
+		assertTrue(forkedIndex.remove("A", first));
+		IdIndex idIndex = createIdIndex(0);
+		idIndex.putAll(forkedIndex);
+		assertEquals(2, idIndex.size());
+		assertNull(idIndex.get("A"));
+		assertSame(second, idIndex.get("B"));
+		assertSame(third, idIndex.get("C"));
+		return;
+	}
+
+	@Test
+	public void removeOfTheLastEntryLeavesTheOthersInPlace() {
+		IdIndex idIndex = createIdIndex(0);
+		Object first = new Object();
+		Object second = new Object();
+		idIndex.put("A", first);
+		idIndex.put("B", second);
+		assertTrue(idIndex.remove("B", second));
+		Object third = new Object();
+		idIndex.put("C", third);
+		assertEquals(2, idIndex.size());
+		assertSame(first, idIndex.get("A"));
+		assertNull(idIndex.get("B"));
+		assertSame(third, idIndex.get("C"));
+		return;
+	}
+}
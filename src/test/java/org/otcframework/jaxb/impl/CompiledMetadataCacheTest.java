@@ -0,0 +1,224 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Saves compiled metadata caches and loads them again, with the settings they
+ * were saved with and with other ones.
+ */
+public class CompiledMetadataCacheTest {
+
+	private static final String SETTINGS = "packages=[test];xmlGregorianCalendar=false";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void savedCacheIsLoadedAgain() throws Exception {
+		Path path = temporaryFolder.getRoot().toPath().resolve("cache/metadata.bin");
+		CompiledMetadataCache compiledMetadataCache = new CompiledMetadataCache(path, SETTINGS);
+		compiledMetadataCache.load();
+		compiledMetadataCache.put(Item.class, createBuilder());
+		compiledMetadataCache.save();
+		assertTrue(Files.isRegularFile(path));
+		CompiledMetadataCache loadedCache = new CompiledMetadataCache(path, SETTINGS);
+		loadedCache.load();
+		List<CompiledMetadataCache.CachedField> cachedFields = loadedCache.fetchCachedFields(Item.class);
+		assertEquals(3, cachedFields.size());
+		assertCachedField(cachedFields.get(0), "id", ClassPlan.XML_ID, null);
+		assertCachedField(cachedFields.get(1), "refs", ClassPlan.XML_IDREF, null);
+		assertCachedField(cachedFields.get(2), "child", 0, Item.class);
+		assertNull(loadedCache.fetchCachedFields(Document.class));
+		return;
+	}
+
+	/**
+	 * A loaded file holds no handle on it, so saving over it again replaces it.
+	 */
+	@Test
+	public void loadedCacheIsSavedOverTheFile() throws Exception {
+		Path path = temporaryFolder.newFile("metadata.bin").toPath();
+		CompiledMetadataCache compiledMetadataCache = new CompiledMetadataCache(path, SETTINGS);
+		compiledMetadataCache.put(Item.class, createBuilder());
+		compiledMetadataCache.save();
+		CompiledMetadataCache loadedCache = new CompiledMetadataCache(path, SETTINGS);
+		loadedCache.load();
+		ClassPlan.Builder builder = new ClassPlan.Builder(Document.class);
+		builder.addChildField(createAccessor(Document.class, "items"), Item.class);
+		loadedCache.put(Document.class, builder);
+		loadedCache.save();
+		CompiledMetadataCache reloadedCache = new CompiledMetadataCache(path, SETTINGS);
+		reloadedCache.load();
+		assertEquals(3, reloadedCache.fetchCachedFields(Item.class).size());
+		assertCachedField(reloadedCache.fetchCachedFields(Document.class).get(0), "items", 0, Item.class);
+		return;
+	}
+
+	@Test
+	public void cacheIsIgnoredAfterASettingsChange() throws Exception {
+		Path path = temporaryFolder.getRoot().toPath().resolve("metadata.bin");
+		CompiledMetadataCache compiledMetadataCache = new CompiledMetadataCache(path, SETTINGS);
+		compiledMetadataCache.put(Item.class, createBuilder());
+		compiledMetadataCache.save();
+		CompiledMetadataCache otherCache = new CompiledMetadataCache(path, SETTINGS.replace("false", "true"));
+		otherCache.load();
+		assertNull(otherCache.fetchCachedFields(Item.class));
+		return;
+	}
+
+	@Test
+	public void damagedCacheIsIgnored() throws Exception {
+		Path path = temporaryFolder.getRoot().toPath().resolve("metadata.bin");
+		CompiledMetadataCache compiledMetadataCache = new CompiledMetadataCache(path, SETTINGS);
+		compiledMetadataCache.put(Item.class, createBuilder());
+		compiledMetadataCache.save();
+		byte[] bytes = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+		CompiledMetadataCache damagedCache = new CompiledMetadataCache(path, SETTINGS);
+		damagedCache.load();
+		assertNull(damagedCache.fetchCachedFields(Item.class));
+		return;
+	}
+
+	/**
+	 * The shutdown hook registered on the first put does not keep the cache
+	 * alive.
+	 */
+	@Test
+	public void shutdownHookDoesNotRetainTheCache() throws Exception {
+		CompiledMetadataCache compiledMetadataCache = new CompiledMetadataCache(
+				temporaryFolder.getRoot().toPath().resolve("metadata.bin"), SETTINGS);
+		compiledMetadataCache.put(Item.class, createBuilder());
+		WeakReference<CompiledMetadataCache> reference = new WeakReference<>(compiledMetadataCache);
+		compiledMetadataCache = null;
+		for (int idx = 0; idx < 20 && reference.get() != null; idx++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(reference.get());
+		return;
+	}
+
+	/**
+	 * A resolver with the same settings compiles its classes from the file
+	 * another one saved, and resolves as the first one did.
+	 */
+	@Test
+	public void resolverResolvesFromALoadedCache() throws Exception {
+		String cacheFile = temporaryFolder.getRoot().toPath().resolve("metadata.bin").toString();
+		JaxbIdRefResolverImpl<Document> resolver = createResolver(cacheFile);
+		resolver.resolve(createDocument());
+		resolver.saveCompiledMetadataCache();
+		JaxbIdRefResolverImpl<Document> loadedResolver = createResolver(cacheFile);
+		Document document = createDocument();
+		loadedResolver.resolve(document);
+		assertEquals(Arrays.<Object>asList(document.items.get(1)), document.items.get(0).refs);
+		assertSame(document.items.get(0), document.items.get(1).child.refs.get(0));
+		return;
+	}
+
+	private static ClassPlan.Builder createBuilder() throws Exception {
+		ClassPlan.Builder builder = new ClassPlan.Builder(Item.class);
+		builder.addField(createAccessor(Item.class, "id"), ClassPlan.XML_ID);
+		builder.addField(createAccessor(Item.class, "refs"), ClassPlan.XML_IDREF);
+		builder.addChildField(createAccessor(Item.class, "child"), Item.class);
+		return builder;
+	}
+
+	private static FieldAccessor createAccessor(Class<?> declaringClass, String fieldName) throws Exception {
+		return FieldAccessor.create(FieldDescriptor.of(declaringClass.getDeclaredField(fieldName)));
+	}
+
+	private static void assertCachedField(CompiledMetadataCache.CachedField cachedField, String fieldName,
+			int fieldStatus, Class<?> childType) throws Exception {
+		FieldDescriptor fieldDescriptor = cachedField.getFieldDescriptor();
+		Field field = fieldDescriptor.getDeclaringClass().getDeclaredField(fieldName);
+		assertEquals(fieldName, fieldDescriptor.getName());
+		assertEquals(field.getType(), fieldDescriptor.getType());
+		assertEquals(field.getModifiers(), fieldDescriptor.getModifiers());
+		assertSame(childType, cachedField.getChildType());
+		if (childType == null) {
+			assertEquals(fieldStatus, cachedField.getFieldStatus());
+		}
+		return;
+	}
+
+	private static JaxbIdRefResolverImpl<Document> createResolver(String cacheFile) {
+		JaxbIdRefResolverImpl<Document> resolver = new JaxbIdRefResolverImpl<>();
+		resolver.fixXmlIdRefFields = Boolean.TRUE;
+		resolver.compiledMetadataCacheFile = cacheFile;
+		resolver.setFilteredPackages(Collections.singleton(CompiledMetadataCacheTest.class.getName() + "$*"));
+		resolver.setCompileClasses(new ArrayList<String>());
+		resolver.initialize();
+		return resolver;
+	}
+
+	private static Document createDocument() {
+		Document document = new Document();
+		Item first = new Item();
+		first.id = "I0";
+		first.refs.add("I1");
+		Item second = new Item();
+		second.id = "I1";
+		second.child = new Item();
+		second.child.refs.add("I0");
+		document.items.add(first);
+		document.items.add(second);
+		return document;
+	}
+
+	static class Document {
+		protected List<Item> items = new ArrayList<>();
+	}
+
+	static class Item {
+		@XmlID
+		protected String id;
+		@XmlIDREF
+		@XmlList
+		protected List<Object> refs = new ArrayList<>();
+		protected Item child;
+	}
+}
@@ -0,0 +1,137 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.otcframework.jaxb.CompiledStatus;
+
+/**
+ * Reads and writes every field of a bean through the accessors compile creates
+ * and checks them against the reflected fields.
+ */
+public class FieldAccessorTest {
+
+	private static final Class<?>[] BEAN_CLASSES = { Bean.class, BaseBean.class };
+
+	@Test
+	public void accessorsOfReflectedFieldsMatchTheFields() throws Exception {
+		for (Class<?> beanClass : BEAN_CLASSES) {
+			for (FieldDescriptor fieldDescriptor : FieldDescriptor.of(beanClass)) {
+				assertMatchesField(FieldAccessor.create(fieldDescriptor), fieldDescriptor.getField());
+			}
+		}
+		return;
+	}
+
+	/**
+	 * Descriptors of the generated metadata and of the compiled metadata cache
+	 * come without a reflected field.
+	 */
+	@Test
+	public void accessorsOfRegisteredFieldsMatchTheFields() throws Exception {
+		for (Class<?> beanClass : BEAN_CLASSES) {
+			for (Field field : beanClass.getDeclaredFields()) {
+				if (field.isSynthetic()) {
+					continue;
+				}
+				FieldDescriptor fieldDescriptor = new FieldDescriptor(beanClass, field.getName(), field.getType(), null,
+						false, false, FieldDescriptor.UNKNOWN_MODIFIERS, null, null);
+				assertMatchesField(FieldAccessor.create(fieldDescriptor), field);
+			}
+		}
+		return;
+	}
+
+	@Test
+	public void setRejectsValuesOfAnotherType() throws Exception {
+		FieldAccessor fieldAccessor = FieldAccessor.create(FieldDescriptor.of(Bean.class.getDeclaredField("id")));
+		try {
+			fieldAccessor.set(new Bean(), Integer.valueOf(1));
+			fail("A String field was set to an Integer.");
+		} catch (IllegalArgumentException e) {
+			return;
+		}
+	}
+
+	private static void assertMatchesField(FieldAccessor fieldAccessor, Field field) throws Exception {
+		field.setAccessible(true);
+		assertEquals(CompiledStatus.FieldAccessorType.METHOD_HANDLE, fieldAccessor.getAccessorType());
+		Bean bean = new Bean();
+		assertSame(field.getName(), field.get(bean), fieldAccessor.get(bean));
+		if (Modifier.isFinal(field.getModifiers())) {
+			try {
+				fieldAccessor.set(bean, field.get(bean));
+				fail("The final field " + field.getName() + " was set.");
+			} catch (IllegalArgumentException e) {
+				return;
+			}
+		}
+		Object value = new Bean().newValue(field.getName());
+		fieldAccessor.set(bean, value);
+		assertSame(field.getName(), value, field.get(bean));
+		assertSame(field.getName(), value, fieldAccessor.get(bean));
+		fieldAccessor.set(bean, null);
+		assertSame(field.getName(), null, field.get(bean));
+		return;
+	}
+
+	static class BaseBean {
+		protected String inherited = "inherited";
+	}
+
+	static class Bean extends BaseBean {
+		protected String id = "I0";
+		private Object ref = "I1";
+		protected List<Object> refs = new ArrayList<Object>(Arrays.asList("I2", "I3"));
+		protected Object[] alternates = { "I4" };
+		protected BaseBean child = new BaseBean();
+		private final String name = "name";
+
+		private Object newValue(String fieldName) {
+			switch (fieldName) {
+			case "id":
+				return "I9";
+			case "ref":
+				return new BaseBean();
+			case "refs":
+				return new ArrayList<Object>();
+			case "alternates":
+				return new Object[] { "I8" };
+			case "child":
+				return new Bean();
+			default:
+				return name;
+			}
+		}
+	}
+}
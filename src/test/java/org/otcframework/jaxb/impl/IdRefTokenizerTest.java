@@ -0,0 +1,114 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Splits IDREFS values the way the resolve passes do and checks the tokens
+ * against the IDs the value names.
+ */
+public class IdRefTokenizerTest {
+
+	@Test
+	public void singleIdIsOneToken() {
+		assertTokens("I0", "I0");
+		return;
+	}
+
+	@Test
+	public void leadingAndTrailingWhitespaceIsSkipped() {
+		assertTokens(" I0", "I0");
+		assertTokens("I0 ", "I0");
+		assertTokens("  I0 I1   ", "I0", "I1");
+		return;
+	}
+
+	@Test
+	public void repeatedWhitespaceSeparatesOnce() {
+		assertTokens("I0    I1  I2", "I0", "I1", "I2");
+		return;
+	}
+
+	@Test
+	public void tabsAndLineBreaksSeparateIds() {
+		assertTokens("I0\tI1\rI2\nI3", "I0", "I1", "I2", "I3");
+		assertTokens("\r\n\tI0\r\n\tI1\r\n", "I0", "I1");
+		return;
+	}
+
+	@Test
+	public void emptyAndWhitespaceOnlyValuesHaveNoTokens() {
+		assertTokens("");
+		assertTokens(" ");
+		assertTokens(" \t\r\n  ");
+		return;
+	}
+
+	/**
+	 * XML whitespace is space, tab, CR and LF only, so other whitespace is part
+	 * of an ID.
+	 */
+	@Test
+	public void otherWhitespaceIsPartOfTheId() {
+		assertTokens("I0\u00A0I1\fI2", "I0\u00A0I1\fI2");
+		assertTrue(IdRefTokenizer.isXmlWhitespace(' '));
+		assertTrue(IdRefTokenizer.isXmlWhitespace('\t'));
+		assertTrue(IdRefTokenizer.isXmlWhitespace('\r'));
+		assertTrue(IdRefTokenizer.isXmlWhitespace('\n'));
+		assertFalse(IdRefTokenizer.isXmlWhitespace('\u00A0'));
+		assertFalse(IdRefTokenizer.isXmlWhitespace('\f'));
+		return;
+	}
+
+	@Test
+	public void scanningStartsAtTheGivenIndex() {
+		assertEquals(5, IdRefTokenizer.skipWhitespace("I0   I1", 2));
+		assertEquals(7, IdRefTokenizer.skipToken("I0   I1", 5));
+		assertEquals(7, IdRefTokenizer.skipWhitespace("I0   I1", 7));
+		assertEquals(7, IdRefTokenizer.skipToken("I0   I1", 7));
+		return;
+	}
+
+	private static void assertTokens(String idRef, String... xmlIds) {
+		List<String> tokens = new ArrayList<>();
+		int length = idRef.length();
+		int start = IdRefTokenizer.skipWhitespace(idRef, 0);
+		while (start < length) {
+			int end = IdRefTokenizer.skipToken(idRef, start);
+			tokens.add(idRef.substring(start, end));
+			start = IdRefTokenizer.skipWhitespace(idRef, end);
+		}
+		assertEquals(xmlIds.length == 0 ? Collections.<String>emptyList() : Arrays.asList(xmlIds), tokens);
+		return;
+	}
+}
@@ -0,0 +1,246 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlList;
+
+import org.junit.Test;
+
+/**
+ * Resolves documents whose IDREFS lists end up holding the referenced objects.
+ * Resolving such a document again walks the bound objects for their own
+ * IDREFs, which must end on reference cycles. Documents nested far deeper than
+ * the thread stack allows for a recursion are resolved as well, whether they
+ * are nested through child objects or through bound IDREFS lists.
+ */
+public class JaxbIdRefResolverImplTest {
+
+	private static final int CHAIN_DEPTH = 200000;
+
+	@Test
+	public void resolveAgainEndsOnReferenceCycles() {
+		Document document = createDocument("I0", "I1", "I1", "I2", "I2", "I0");
+		JaxbIdRefResolverImpl<Document> resolver = createResolver(false);
+		resolver.resolve(document);
+		resolver.resolve(document);
+		assertBound(document, 1, 2, 0);
+		return;
+	}
+
+	@Test
+	public void resolveAgainEndsOnSelfReferences() {
+		Document document = createDocument("I0", "I0 I1", "I1", "I1");
+		JaxbIdRefResolverImpl<Document> resolver = createResolver(false);
+		resolver.resolve(document);
+		resolver.resolve(document);
+		Item first = document.items.get(0);
+		Item second = document.items.get(1);
+		assertEquals(2, first.refs.size());
+		assertSame(first, first.refs.get(0));
+		assertSame(second, first.refs.get(1));
+		assertSame(second, second.refs.get(0));
+		return;
+	}
+
+	@Test
+	public void resolveAgainInSinglePassEndsOnReferenceCycles() {
+		Document document = createDocument("I0", "I1", "I1", "I0");
+		JaxbIdRefResolverImpl<Document> resolver = createResolver(true);
+		resolver.resolve(document);
+		resolver.resolve(document);
+		assertBound(document, 1, 0);
+		return;
+	}
+
+	@Test
+	public void resolveWalksDeepChains() {
+		Link chain = createChain(CHAIN_DEPTH);
+		JaxbIdRefResolverImpl<Link> resolver = createResolver(false);
+		resolver.resolve(chain);
+		assertChainBound(chain);
+		return;
+	}
+
+	@Test
+	public void resolveInSinglePassWalksDeepChains() {
+		Link chain = createChain(CHAIN_DEPTH);
+		JaxbIdRefResolverImpl<Link> resolver = createResolver(true);
+		resolver.resolve(chain);
+		assertChainBound(chain);
+		return;
+	}
+
+	/**
+	 * Resolving the chain again walks each bound item from the IDREFS list of
+	 * the item before it.
+	 */
+	@Test
+	public void resolveAgainWalksDeepIdRefChains() {
+		for (boolean singlePassResolve : new boolean[] { false, true }) {
+			Document document = createIdRefChain(CHAIN_DEPTH);
+			JaxbIdRefResolverImpl<Document> resolver = createResolver(singlePassResolve);
+			resolver.resolve(document);
+			resolver.resolve(document);
+			assertIdRefChainBound(document);
+		}
+		return;
+	}
+
+	/**
+	 * The walk through the bound IDREFS lists stops at 'maxTraversalDepth', so
+	 * the IDREF added to the last item is left unbound.
+	 */
+	@Test
+	public void resolveAgainStopsIdRefChainsAtMaxTraversalDepth() {
+		Document document = createIdRefChain(CHAIN_DEPTH);
+		JaxbIdRefResolverImpl<Document> resolver = createResolver(false);
+		resolver.maxTraversalDepth = 1000;
+		resolver.resolve(document);
+		Item last = document.items.get(CHAIN_DEPTH - 1);
+		last.refs.add("I0");
+		resolver.resolve(document);
+		assertEquals(Arrays.<Object>asList("I0"), last.refs);
+		return;
+	}
+
+	private static <T> JaxbIdRefResolverImpl<T> createResolver(boolean singlePassResolve) {
+		JaxbIdRefResolverImpl<T> resolver = new JaxbIdRefResolverImpl<>();
+		resolver.fixXmlIdRefFields = Boolean.TRUE;
+		resolver.singlePassResolve = singlePassResolve;
+		resolver.setFilteredPackages(Collections.singleton(JaxbIdRefResolverImplTest.class.getName() + "$*"));
+		resolver.setCompileClasses(new ArrayList<String>());
+		resolver.initialize();
+		return resolver;
+	}
+
+	/**
+	 * Creates a document from pairs of an ID and the IDREFS value of its item.
+	 */
+	private static Document createDocument(String... idsAndRefs) {
+		Document document = new Document();
+		for (int idx = 0; idx < idsAndRefs.length; idx += 2) {
+			Item item = new Item();
+			item.id = idsAndRefs[idx];
+			item.refs.add(idsAndRefs[idx + 1]);
+			document.items.add(item);
+		}
+		return document;
+	}
+
+	/**
+	 * Creates a document of items, each referencing the item after it in its
+	 * IDREFS list.
+	 */
+	private static Document createIdRefChain(int depth) {
+		Document document = new Document();
+		for (int idx = 0; idx < depth; idx++) {
+			Item item = new Item();
+			item.id = "I" + idx;
+			if (idx + 1 < depth) {
+				item.refs.add("I" + (idx + 1));
+			}
+			document.items.add(item);
+		}
+		return document;
+	}
+
+	private static void assertIdRefChainBound(Document document) {
+		List<Item> items = document.items;
+		for (int idx = 0; idx + 1 < items.size(); idx++) {
+			List<Object> refs = items.get(idx).refs;
+			assertEquals(1, refs.size());
+			assertSame(items.get(idx + 1), refs.get(0));
+		}
+		assertEquals(CHAIN_DEPTH, items.size());
+		return;
+	}
+
+	/**
+	 * Asserts that each item references the single item at the given index.
+	 */
+	private static void assertBound(Document document, int... refIndexes) {
+		for (int idx = 0; idx < refIndexes.length; idx++) {
+			List<Object> refs = document.items.get(idx).refs;
+			assertEquals(1, refs.size());
+			assertSame(document.items.get(refIndexes[idx]), refs.get(0));
+		}
+		return;
+	}
+
+	/**
+	 * Creates a chain of links, each referencing the link before it.
+	 */
+	private static Link createChain(int depth) {
+		Link chain = new Link();
+		chain.id = "L0";
+		Link link = chain;
+		for (int idx = 1; idx < depth; idx++) {
+			Link next = new Link();
+			next.id = "L" + idx;
+			next.ref = "L" + (idx - 1);
+			link.next = next;
+			link = next;
+		}
+		return chain;
+	}
+
+	private static void assertChainBound(Link chain) {
+		int depth = 1;
+		for (Link link = chain; link.next != null; link = link.next) {
+			assertSame(link, link.next.ref);
+			depth++;
+		}
+		assertEquals(CHAIN_DEPTH, depth);
+		return;
+	}
+
+	static class Document {
+		protected List<Item> items = new ArrayList<>();
+	}
+
+	static class Item {
+		@XmlID
+		protected String id;
+		@XmlIDREF
+		@XmlList
+		protected List<Object> refs = new ArrayList<>();
+	}
+
+	static class Link {
+		@XmlID
+		protected String id;
+		@XmlIDREF
+		protected Object ref;
+		protected Link next;
+	}
+}
@@ -0,0 +1,248 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlList;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.junit.Test;
+import org.otcframework.jaxb.ResolveResult;
+import org.otcframework.jaxb.metrics.JaxbIdRefMetrics;
+
+/**
+ * Resolves a document whose container is far above the fork threshold in
+ * parallel slices and checks it against the sequential walk: the bindings,
+ * the ID index and the objects each pass visited must be the same, also for
+ * an ID held by two items of different slices.
+ */
+public class ParallelResolveTest {
+
+	private static final int ITEM_COUNT = 5000;
+	private static final int PARALLEL_THRESHOLD = 64;
+	private static final int DUPLICATE_FIRST = 10;
+	private static final int DUPLICATE_LAST = 4000;
+
+	@Test
+	public void parallelResolveMatchesSequentialResolve() throws Exception {
+		assertParallelMatchesSequential(false);
+		return;
+	}
+
+	@Test
+	public void parallelSinglePassResolveMatchesSequentialResolve() throws Exception {
+		assertParallelMatchesSequential(true);
+		return;
+	}
+
+	private static void assertParallelMatchesSequential(boolean singlePassResolve) throws Exception {
+		Document sequentialDocument = createDocument();
+		PassCounts sequentialCounts = new PassCounts();
+		ForkJoinPool sequentialPool = new ForkJoinPool(4);
+		ResolveResult sequentialResult = createResolver(singlePassResolve, false, sequentialPool, sequentialCounts)
+				.resolveWithResult(sequentialDocument);
+		Document parallelDocument = createDocument();
+		PassCounts parallelCounts = new PassCounts();
+		ForkJoinPool parallelPool = new ForkJoinPool(4);
+		ResolveResult parallelResult = createResolver(singlePassResolve, true, parallelPool, parallelCounts)
+				.resolveWithResult(parallelDocument);
+		try {
+			assertEquals(0, sequentialPool.getPoolSize());
+			assertTrue(parallelPool.getPoolSize() > 0);
+		} finally {
+			sequentialPool.shutdown();
+			parallelPool.shutdown();
+		}
+		assertEquals(describe(sequentialDocument), describe(parallelDocument));
+		assertEquals(sequentialResult.getXmlIdCount(), parallelResult.getXmlIdCount());
+		assertEquals(describeIdIndex(sequentialDocument, sequentialResult),
+				describeIdIndex(parallelDocument, parallelResult));
+		assertTrue(sequentialCounts.idRefsBound > ITEM_COUNT);
+		assertFalse(sequentialCounts.objectCounts.isEmpty());
+		assertEquals(sequentialCounts.objectCounts, parallelCounts.objectCounts);
+		assertEquals(sequentialCounts.idRefsBound, parallelCounts.idRefsBound);
+		assertSame(parallelDocument.items.get(DUPLICATE_LAST), parallelResult.getXmlIdObject("DUP"));
+		assertSame(parallelDocument.items.get(DUPLICATE_LAST), parallelDocument.items.get(0).ref);
+		return;
+	}
+
+	private static JaxbIdRefResolverImpl<Document> createResolver(boolean singlePassResolve, boolean parallelResolve,
+			ForkJoinPool forkJoinPool, PassCounts passCounts) {
+		JaxbIdRefResolverImpl<Document> resolver = new JaxbIdRefResolverImpl<>();
+		resolver.fixXmlIdRefFields = Boolean.TRUE;
+		resolver.singlePassResolve = singlePassResolve;
+		resolver.parallelResolve = parallelResolve;
+		resolver.parallelThreshold = PARALLEL_THRESHOLD;
+		resolver.xmlGregorianCalendarPolicies = "NORMALIZE_TO_UTC";
+		resolver.setForkJoinPool(forkJoinPool);
+		resolver.setMetrics(passCounts);
+		resolver.setFilteredPackages(Collections.singleton(ParallelResolveTest.class.getName() + "$*"));
+		resolver.setCompileClasses(new ArrayList<String>());
+		resolver.initialize();
+		return resolver;
+	}
+
+	/**
+	 * Creates a document of items referencing items before and after them and
+	 * the children of other items. The items at DUPLICATE_FIRST and
+	 * DUPLICATE_LAST, in different slices, share the ID "DUP".
+	 */
+	private static Document createDocument() throws Exception {
+		DatatypeFactory datatypeFactory = DatatypeFactory.newInstance();
+		Document document = new Document();
+		for (int idx = 0; idx < ITEM_COUNT; idx++) {
+			Item item = new Item();
+			item.id = idx == DUPLICATE_FIRST || idx == DUPLICATE_LAST ? "DUP" : "I" + idx;
+			item.ref = idx == 0 ? "DUP" : "I" + (idx * 7 + 3) % ITEM_COUNT;
+			item.refs.add("I" + (idx + ITEM_COUNT - 1) % ITEM_COUNT + " C" + (idx * 13) % ITEM_COUNT);
+			item.time = datatypeFactory.newXMLGregorianCalendar("2022-08-31T10:15:30+0" + idx % 10 + ":00");
+			Item child = new Item();
+			child.id = "C" + idx;
+			child.ref = "C" + (idx + 1) % ITEM_COUNT;
+			item.child = child;
+			document.items.add(item);
+		}
+		return document;
+	}
+
+	/**
+	 * Describes the state of the document, naming the bound objects by their
+	 * place in the document, as two items share an ID.
+	 */
+	private static String describe(Document document) {
+		Map<Object, String> names = nameObjects(document);
+		StringBuilder description = new StringBuilder();
+		for (Item item : document.items) {
+			describe(item, names, description);
+			describe(item.child, names, description);
+		}
+		return description.toString();
+	}
+
+	private static void describe(Item item, Map<Object, String> names, StringBuilder description) {
+		description.append(names.get(item)).append(' ').append(item.id).append(" ref=")
+				.append(describeRef(item.ref, names)).append(" refs=");
+		for (Object ref : item.refs) {
+			description.append(describeRef(ref, names)).append(',');
+		}
+		description.append(" time=").append(item.time == null ? null : item.time.toXMLFormat()).append('\n');
+		return;
+	}
+
+	private static String describeRef(Object ref, Map<Object, String> names) {
+		return ref instanceof Item ? names.get(ref) : "'" + ref + "'";
+	}
+
+	private static String describeIdIndex(Document document, ResolveResult resolveResult) {
+		Map<Object, String> names = nameObjects(document);
+		Map<String, String> idIndex = new TreeMap<>();
+		for (Item item : document.items) {
+			idIndex.put(item.id, names.get(resolveResult.getXmlIdObject(item.id)));
+			idIndex.put(item.child.id, names.get(resolveResult.getXmlIdObject(item.child.id)));
+		}
+		return idIndex.toString();
+	}
+
+	private static Map<Object, String> nameObjects(Document document) {
+		Map<Object, String> names = new IdentityHashMap<>();
+		for (int idx = 0; idx < document.items.size(); idx++) {
+			Item item = document.items.get(idx);
+			names.put(item, "items[" + idx + "]");
+			names.put(item.child, "items[" + idx + "].child");
+		}
+		return names;
+	}
+
+	/**
+	 * Sums the objects each pass visited and the IDREFs bound.
+	 */
+	private static final class PassCounts implements JaxbIdRefMetrics {
+
+		private final Map<Pass, Integer> objectCounts = new TreeMap<>();
+		private int idRefsBound;
+
+		@Override
+		public boolean isEnabled() {
+			return true;
+		}
+
+		@Override
+		public synchronized void passCompleted(Class<?> rootClass, Pass pass, int objectsVisited, long nanos) {
+			Integer objectCount = objectCounts.get(pass);
+			objectCounts.put(pass, objectCount == null ? objectsVisited : objectCount + objectsVisited);
+			return;
+		}
+
+		@Override
+		public void resolved(Class<?> rootClass, int idCount) {
+			return;
+		}
+
+		@Override
+		public synchronized void idRefsBound(int count) {
+			idRefsBound += count;
+			return;
+		}
+
+		@Override
+		public void idRefsUnresolved(int count) {
+			return;
+		}
+
+		@Override
+		public void compiled(Class<?> parentClass, long nanos) {
+			return;
+		}
+	}
+
+	static class Document {
+		protected List<Item> items = new ArrayList<>();
+	}
+
+	static class Item {
+		@XmlID
+		protected String id;
+		@XmlIDREF
+		protected Object ref;
+		@XmlIDREF
+		@XmlList
+		protected List<Object> refs = new ArrayList<>();
+		protected XMLGregorianCalendar time;
+		protected Item child;
+	}
+}
@@ -0,0 +1,159 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlList;
+
+import org.junit.Test;
+
+/**
+ * Prefixes the IDs of documents with the ID of a third party and strips the
+ * prefix again, for IDs, IDREFs, IDREFS lists and IDREF arrays.
+ */
+public class PrefixIdsTest {
+
+	private static final String THIRDPARTY_ID = "tp";
+
+	@Test
+	public void prefixIdsPrefixesEveryId() {
+		Document document = createDocument();
+		createResolver().prefixIds(document, THIRDPARTY_ID);
+		Item item = document.items.get(0);
+		assertEquals("tp-I0", item.id);
+		assertEquals("tp-I1", item.ref);
+		assertEquals(Arrays.<Object>asList(" tp-I1\ttp-I2  ", "tp-I0"), item.refs);
+		assertArrayEquals(new Object[] { "tp-I2", "tp-I0 tp-I1" }, item.alternates);
+		return;
+	}
+
+	@Test
+	public void stripPrefixInIdsRestoresPrefixedIds() {
+		Document document = createDocument();
+		JaxbIdRefResolverImpl<Document> resolver = createResolver();
+		resolver.prefixIds(document, THIRDPARTY_ID);
+		resolver.stripPrefixInIds(document, THIRDPARTY_ID);
+		assertEquals(describe(createDocument()), describe(document));
+		return;
+	}
+
+	/**
+	 * IDs that do not start with the prefix, including IDs starting with the
+	 * third party ID alone, are left as they are.
+	 */
+	@Test
+	public void stripPrefixInIdsKeepsIdsWithoutThePrefix() {
+		Document document = new Document();
+		Item item = new Item();
+		item.id = "X0";
+		item.ref = "tpX1";
+		item.refs.add("tp-I1 X2");
+		item.refs.add("I3 tp");
+		item.alternates = new Object[] { "X4", "tp-I5" };
+		document.items.add(item);
+		String value = item.refs.get(1).toString();
+		createResolver().stripPrefixInIds(document, THIRDPARTY_ID);
+		assertEquals("X0", item.id);
+		assertEquals("tpX1", item.ref);
+		assertEquals(Arrays.<Object>asList("I1 X2", value), item.refs);
+		assertSame(value, item.refs.get(1));
+		assertArrayEquals(new Object[] { "X4", "I5" }, item.alternates);
+		return;
+	}
+
+	@Test
+	public void prefixIdsAndResolveBindsThePrefixedIds() {
+		Document document = createDocument();
+		createResolver().prefixIdsAndResolve(document, THIRDPARTY_ID);
+		Item first = document.items.get(0);
+		Item second = document.items.get(1);
+		Item third = document.items.get(2);
+		assertEquals("tp-I0", first.id);
+		assertSame(second, first.ref);
+		assertEquals(Arrays.<Object>asList(second, third, first), first.refs);
+		assertArrayEquals(new Object[] { third, first, second }, first.alternates);
+		return;
+	}
+
+	private static JaxbIdRefResolverImpl<Document> createResolver() {
+		JaxbIdRefResolverImpl<Document> resolver = new JaxbIdRefResolverImpl<>();
+		resolver.fixXmlIdRefFields = Boolean.TRUE;
+		resolver.setFilteredPackages(Collections.singleton(PrefixIdsTest.class.getName() + "$*"));
+		resolver.setCompileClasses(new ArrayList<String>());
+		resolver.initialize();
+		return resolver;
+	}
+
+	/**
+	 * Creates a document of three items, each referencing the others through
+	 * an IDREF, IDREFS values with odd whitespace and an IDREF array.
+	 */
+	private static Document createDocument() {
+		Document document = new Document();
+		for (int idx = 0; idx < 3; idx++) {
+			Item item = new Item();
+			item.id = "I" + idx;
+			item.ref = "I" + (idx + 1) % 3;
+			item.refs.add(" I" + (idx + 1) % 3 + "\tI" + (idx + 2) % 3 + "  ");
+			item.refs.add("I" + idx);
+			item.alternates = new Object[] { "I" + (idx + 2) % 3, "I" + idx + " I" + (idx + 1) % 3 };
+			document.items.add(item);
+		}
+		return document;
+	}
+
+	private static String describe(Document document) {
+		StringBuilder description = new StringBuilder();
+		for (Item item : document.items) {
+			description.append(item.id).append(" ref=").append(item.ref).append(" refs=").append(item.refs)
+					.append(" alternates=").append(Arrays.toString(item.alternates)).append('\n');
+		}
+		return description.toString();
+	}
+
+	static class Document {
+		protected List<Item> items = new ArrayList<>();
+	}
+
+	static class Item {
+		@XmlID
+		protected String id;
+		@XmlIDREF
+		protected Object ref;
+		@XmlIDREF
+		@XmlList
+		protected List<Object> refs = new ArrayList<>();
+		@XmlIDREF
+		protected Object[] alternates;
+	}
+}
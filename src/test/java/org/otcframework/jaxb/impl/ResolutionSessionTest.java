@@ -0,0 +1,125 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlList;
+
+import org.junit.Test;
+
+/**
+ * Edits documents kept by a session, including IDREFS lists edited in place
+ * after the session bound them.
+ */
+public class ResolutionSessionTest {
+
+	@Test
+	public void resolveSubtreeBindsMembersAddedInPlace() {
+		Document document = createDocument("I0", "I1", "I1", null, "I2", null);
+		ResolutionSession resolutionSession = createResolver().createResolutionSession(document);
+		Item first = document.items.get(0);
+		assertEquals(Arrays.<Object>asList(document.items.get(1)), first.refs);
+		first.refs.add("I2");
+		resolutionSession.resolveSubtree(first);
+		assertEquals(Arrays.<Object>asList(document.items.get(1), document.items.get(2)), first.refs);
+		return;
+	}
+
+	@Test
+	public void resolveSubtreeDropsMembersRemovedInPlace() {
+		Document document = createDocument("I0", "I1 I2", "I1", null, "I2", null);
+		ResolutionSession resolutionSession = createResolver().createResolutionSession(document);
+		Item first = document.items.get(0);
+		Item third = document.items.get(2);
+		first.refs.remove(0);
+		resolutionSession.resolveSubtree(first);
+		third.id = "I8";
+		resolutionSession.resolveSubtree(third);
+		assertSame(third, resolutionSession.getXmlIdObject("I8"));
+		assertEquals(Arrays.<Object>asList("I2"), first.refs);
+		return;
+	}
+
+	@Test
+	public void resolveSubtreeNamesObjectsAddedInPlaceByTheirIds() {
+		Document document = createDocument("I0", "I1", "I1", null, "I2", null);
+		ResolutionSession resolutionSession = createResolver().createResolutionSession(document);
+		Item first = document.items.get(0);
+		first.refs.add(document.items.get(2));
+		resolutionSession.resolveSubtree(first);
+		resolutionSession.invalidate(document.items.remove(2));
+		Item replacement = new Item();
+		replacement.id = "I2";
+		document.items.add(replacement);
+		resolutionSession.resolveSubtree(replacement);
+		assertEquals(Arrays.<Object>asList(document.items.get(1), replacement), first.refs);
+		return;
+	}
+
+	private static JaxbIdRefResolverImpl<Document> createResolver() {
+		JaxbIdRefResolverImpl<Document> resolver = new JaxbIdRefResolverImpl<>();
+		resolver.fixXmlIdRefFields = Boolean.TRUE;
+		resolver.setFilteredPackages(Collections.singleton(ResolutionSessionTest.class.getName() + "$*"));
+		resolver.setCompileClasses(new ArrayList<String>());
+		resolver.initialize();
+		return resolver;
+	}
+
+	/**
+	 * Creates a document from pairs of an ID and the IDREFS value of its item,
+	 * or null for an item without IDREFs.
+	 */
+	private static Document createDocument(String... idsAndRefs) {
+		Document document = new Document();
+		for (int idx = 0; idx < idsAndRefs.length; idx += 2) {
+			Item item = new Item();
+			item.id = idsAndRefs[idx];
+			if (idsAndRefs[idx + 1] != null) {
+				item.refs.add(idsAndRefs[idx + 1]);
+			}
+			document.items.add(item);
+		}
+		return document;
+	}
+
+	static class Document {
+		protected List<Item> items = new ArrayList<>();
+	}
+
+	static class Item {
+		@XmlID
+		protected String id;
+		@XmlIDREF
+		@XmlList
+		protected List<Object> refs = new ArrayList<>();
+	}
+}
@@ -0,0 +1,213 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlList;
+
+import org.junit.After;
+import org.junit.Test;
+import org.otcframework.jaxb.metrics.JaxbIdRefMetrics;
+
+/**
+ * Resolves batches of documents in chunks on an executor and checks that every
+ * document is resolved and that a failing chunk fails the call.
+ */
+public class ResolveAllTest {
+
+	private static final int DOCUMENT_COUNT = 1000;
+
+	private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+	private final AtomicInteger taskCount = new AtomicInteger();
+
+	@After
+	public void shutdownExecutor() {
+		executorService.shutdownNow();
+		return;
+	}
+
+	@Test
+	public void resolveAllResolvesEveryDocument() {
+		List<Document> documents = createDocuments();
+		documents.add(DOCUMENT_COUNT / 2, null);
+		JaxbIdRefResolverImpl<Document> resolver = createResolver(null);
+		List<Document> resolvedDocuments = resolver.resolveAll(documents, this::execute);
+		assertTrue(taskCount.get() > 1);
+		assertEquals(documents, resolvedDocuments);
+		for (Document document : resolvedDocuments) {
+			if (document != null) {
+				assertResolved(document);
+			}
+		}
+		return;
+	}
+
+	@Test
+	public void resolveAllWithoutExecutorResolvesEveryDocument() {
+		List<Document> documents = createDocuments();
+		List<Document> resolvedDocuments = createResolver(null).resolveAll(documents, null);
+		assertEquals(documents, resolvedDocuments);
+		for (Document document : resolvedDocuments) {
+			assertResolved(document);
+		}
+		return;
+	}
+
+	/**
+	 * The metrics fail for the document holding three IDs, which only the
+	 * chunk resolving it notices.
+	 */
+	@Test
+	public void resolveAllThrowsWhatAChunkThrew() {
+		List<Document> documents = createDocuments();
+		documents.get(DOCUMENT_COUNT - 10).items.add(createItem("X", "I0"));
+		AssertionError failure = new AssertionError("chunk failed");
+		JaxbIdRefResolverImpl<Document> resolver = createResolver(new FailingMetrics(3, failure));
+		try {
+			resolver.resolveAll(documents, this::execute);
+			fail("The failure of a chunk was not thrown.");
+		} catch (AssertionError e) {
+			assertSame(failure, e);
+		}
+		assertTrue(taskCount.get() > 1);
+		assertResolved(documents.get(0));
+		return;
+	}
+
+	private void execute(Runnable task) {
+		taskCount.incrementAndGet();
+		executorService.execute(task);
+		return;
+	}
+
+	private static JaxbIdRefResolverImpl<Document> createResolver(JaxbIdRefMetrics metrics) {
+		JaxbIdRefResolverImpl<Document> resolver = new JaxbIdRefResolverImpl<>();
+		resolver.fixXmlIdRefFields = Boolean.TRUE;
+		if (metrics != null) {
+			resolver.setMetrics(metrics);
+		}
+		resolver.setFilteredPackages(Collections.singleton(ResolveAllTest.class.getName() + "$*"));
+		resolver.setCompileClasses(new ArrayList<String>());
+		resolver.initialize();
+		return resolver;
+	}
+
+	/**
+	 * Creates documents of two items referencing each other.
+	 */
+	private static List<Document> createDocuments() {
+		List<Document> documents = new ArrayList<>();
+		for (int idx = 0; idx < DOCUMENT_COUNT; idx++) {
+			Document document = new Document();
+			document.items.add(createItem("I0", "I1"));
+			document.items.add(createItem("I1", "I0"));
+			documents.add(document);
+		}
+		return documents;
+	}
+
+	private static Item createItem(String id, String ref) {
+		Item item = new Item();
+		item.id = id;
+		item.refs.add(ref);
+		return item;
+	}
+
+	private static void assertResolved(Document document) {
+		assertSame(document.items.get(1), document.items.get(0).refs.get(0));
+		assertSame(document.items.get(0), document.items.get(1).refs.get(0));
+		return;
+	}
+
+	/**
+	 * Throws an error when a document with the given number of IDs is resolved.
+	 */
+	private static final class FailingMetrics implements JaxbIdRefMetrics {
+
+		private final int failingIdCount;
+		private final Error failure;
+
+		private FailingMetrics(int failingIdCount, Error failure) {
+			this.failingIdCount = failingIdCount;
+			this.failure = failure;
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return true;
+		}
+
+		@Override
+		public void passCompleted(Class<?> rootClass, Pass pass, int objectsVisited, long nanos) {
+			return;
+		}
+
+		@Override
+		public void resolved(Class<?> rootClass, int idCount) {
+			if (idCount == failingIdCount) {
+				throw failure;
+			}
+			return;
+		}
+
+		@Override
+		public void idRefsBound(int count) {
+			return;
+		}
+
+		@Override
+		public void idRefsUnresolved(int count) {
+			return;
+		}
+
+		@Override
+		public void compiled(Class<?> parentClass, long nanos) {
+			return;
+		}
+	}
+
+	static class Document {
+		protected List<Item> items = new ArrayList<>();
+	}
+
+	static class Item {
+		@XmlID
+		protected String id;
+		@XmlIDREF
+		@XmlList
+		protected List<Object> refs = new ArrayList<>();
+	}
+}
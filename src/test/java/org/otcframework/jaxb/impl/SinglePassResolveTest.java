@@ -0,0 +1,163 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlID;
+import javax.xml.bind.annotation.XmlIDREF;
+import javax.xml.bind.annotation.XmlList;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.junit.Test;
+
+/**
+ * Resolves the same document in a single pass and in the three passes and
+ * checks that both leave it in the same state, for forward and backward
+ * IDREFs, IDREFS lists and arrays, unresolved IDs and calendars.
+ */
+public class SinglePassResolveTest {
+
+	private static final String POLICIES = "NORMALIZE_TO_UTC,TRUNCATE_FRACTIONAL_SECONDS";
+
+	@Test
+	public void singlePassMatchesThreePasses() throws Exception {
+		Document threePassDocument = createDocument();
+		createResolver(false).resolve(threePassDocument);
+		Document singlePassDocument = createDocument();
+		createResolver(true).resolve(singlePassDocument);
+		assertNotEquals(describe(createDocument()), describe(threePassDocument));
+		assertEquals(describe(threePassDocument), describe(singlePassDocument));
+		return;
+	}
+
+	/**
+	 * A document whose IDREFs are bound already is left as it is by both modes.
+	 */
+	@Test
+	public void resolveAgainMatchesInBothModes() throws Exception {
+		Document threePassDocument = createDocument();
+		JaxbIdRefResolverImpl<Document> threePassResolver = createResolver(false);
+		threePassResolver.resolve(threePassDocument);
+		String resolved = describe(threePassDocument);
+		threePassResolver.resolve(threePassDocument);
+		Document singlePassDocument = createDocument();
+		JaxbIdRefResolverImpl<Document> singlePassResolver = createResolver(true);
+		singlePassResolver.resolve(singlePassDocument);
+		singlePassResolver.resolve(singlePassDocument);
+		assertEquals(resolved, describe(threePassDocument));
+		assertEquals(resolved, describe(singlePassDocument));
+		return;
+	}
+
+	private static JaxbIdRefResolverImpl<Document> createResolver(boolean singlePassResolve) {
+		JaxbIdRefResolverImpl<Document> resolver = new JaxbIdRefResolverImpl<>();
+		resolver.fixXmlIdRefFields = Boolean.TRUE;
+		resolver.singlePassResolve = singlePassResolve;
+		resolver.xmlGregorianCalendarPolicies = POLICIES;
+		resolver.setFilteredPackages(Collections.singleton(SinglePassResolveTest.class.getName() + "$*"));
+		resolver.setCompileClasses(new ArrayList<String>());
+		resolver.initialize();
+		return resolver;
+	}
+
+	/**
+	 * Creates a document whose items reference items before and after them, in
+	 * the document and in their children, and an ID no item has.
+	 */
+	private static Document createDocument() throws Exception {
+		DatatypeFactory datatypeFactory = DatatypeFactory.newInstance();
+		Document document = new Document();
+		document.created = datatypeFactory.newXMLGregorianCalendar("2022-08-31T10:15:30.125+05:30");
+		for (int idx = 0; idx < 6; idx++) {
+			Item item = new Item();
+			item.id = "I" + idx;
+			item.ref = "I" + ((idx + 1) % 6);
+			item.refs.add("I" + ((idx + 5) % 6) + " C" + ((idx + 2) % 6));
+			item.alternates = new Object[] { "C" + idx, "MISSING", "I" + ((idx + 3) % 6) };
+			item.time = datatypeFactory.newXMLGregorianCalendar("2022-08-31T2" + idx % 4 + ":00:00.5-0" + idx + ":00");
+			Item child = new Item();
+			child.id = "C" + idx;
+			child.ref = "I" + idx;
+			child.refs.add("MISSING C" + ((idx + 1) % 6));
+			item.child = child;
+			document.items.add(item);
+		}
+		return document;
+	}
+
+	/**
+	 * Describes the state of the document, naming the bound items by their IDs
+	 * and quoting the values left unbound.
+	 */
+	private static String describe(Document document) {
+		StringBuilder description = new StringBuilder(document.created.toXMLFormat());
+		for (Item item : document.items) {
+			describe(item, description.append('\n'));
+			describe(item.child, description.append("\n  "));
+		}
+		return description.toString();
+	}
+
+	private static void describe(Item item, StringBuilder description) {
+		description.append(item.id).append(" ref=").append(describeRef(item.ref)).append(" refs=");
+		for (Object ref : item.refs) {
+			description.append(describeRef(ref)).append(',');
+		}
+		description.append(" alternates=");
+		for (Object alternate : item.alternates == null ? new Object[0] : item.alternates) {
+			description.append(describeRef(alternate)).append(',');
+		}
+		description.append(" time=").append(item.time == null ? null : item.time.toXMLFormat());
+		return;
+	}
+
+	private static String describeRef(Object ref) {
+		return ref instanceof Item ? "#" + ((Item) ref).id : "'" + ref + "'";
+	}
+
+	static class Document {
+		protected XMLGregorianCalendar created;
+		protected List<Item> items = new ArrayList<>();
+	}
+
+	static class Item {
+		@XmlID
+		protected String id;
+		@XmlIDREF
+		protected Object ref;
+		@XmlIDREF
+		@XmlList
+		protected List<Object> refs = new ArrayList<>();
+		@XmlIDREF
+		protected Object[] alternates;
+		protected XMLGregorianCalendar time;
+		protected Item child;
+	}
+}
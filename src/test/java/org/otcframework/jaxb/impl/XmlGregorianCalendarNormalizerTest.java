@@ -0,0 +1,186 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.junit.Test;
+
+/**
+ * Normalizes calendars by each policy, directly and through a resolve in both
+ * modes, and checks that the old 'unsetTimeZoneInXmlGregorianCalandar' flag
+ * still unsets the timezone.
+ */
+public class XmlGregorianCalendarNormalizerTest {
+
+	private static final String[] ZONED_VALUES = { "2022-08-31T10:15:30.125+05:30", "2022-08-31T22:15:30-04:00",
+			"2022-12-31T23:59:59.5-14:00", "2022-01-01T00:00:00+14:00", "2024-02-29T01:00:00+01:45",
+			"2022-08-31+02:00" };
+
+	@Test
+	public void policiesAreParsedFromTheirNames() {
+		assertFalse(XmlGregorianCalendarNormalizer.create(null, false).isEnabled());
+		assertFalse(XmlGregorianCalendarNormalizer.create(" , ", false).isEnabled());
+		assertFalse(XmlGregorianCalendarNormalizer.create("UNKNOWN", false).isEnabled());
+		assertTrue(XmlGregorianCalendarNormalizer.create(" truncate_fractional_seconds ,", false).isEnabled());
+		assertTrue(XmlGregorianCalendarNormalizer.create(null, true).isEnabled());
+		return;
+	}
+
+	@Test
+	public void unsetTimezoneKeepsTheLocalTime() throws Exception {
+		assertNormalized("UNSET_TIMEZONE", "2022-08-31T10:15:30.125+05:30", "2022-08-31T10:15:30.125");
+		assertNormalized("UNSET_TIMEZONE", "2022-08-31T10:15:30", "2022-08-31T10:15:30");
+		return;
+	}
+
+	/**
+	 * The calendar is moved to UTC in place and must read as the copy returned
+	 * by XMLGregorianCalendar.normalize().
+	 */
+	@Test
+	public void normalizeToUtcMatchesNormalize() throws Exception {
+		XmlGregorianCalendarNormalizer normalizer = XmlGregorianCalendarNormalizer.create("NORMALIZE_TO_UTC", false);
+		for (String value : ZONED_VALUES) {
+			XMLGregorianCalendar xmlGregorianCalendar = newCalendar(value);
+			String expected = xmlGregorianCalendar.normalize().toXMLFormat();
+			normalizer.normalize(xmlGregorianCalendar);
+			assertEquals(value, expected, xmlGregorianCalendar.toXMLFormat());
+		}
+		assertNormalized("NORMALIZE_TO_UTC", "2022-08-31T10:15:30Z", "2022-08-31T10:15:30Z");
+		assertNormalized("NORMALIZE_TO_UTC", "2022-08-31T10:15:30", "2022-08-31T10:15:30");
+		return;
+	}
+
+	@Test
+	public void truncateFractionalSecondsKeepsTheSeconds() throws Exception {
+		assertNormalized("TRUNCATE_FRACTIONAL_SECONDS", "2022-08-31T10:15:30.125+05:30", "2022-08-31T10:15:30+05:30");
+		assertNormalized("TRUNCATE_FRACTIONAL_SECONDS", "2022-08-31T10:15:30Z", "2022-08-31T10:15:30Z");
+		return;
+	}
+
+	@Test
+	public void policiesApplyInOrder() throws Exception {
+		assertNormalized("TRUNCATE_FRACTIONAL_SECONDS,UNSET_TIMEZONE,NORMALIZE_TO_UTC",
+				"2022-08-31T02:15:30.125+05:30", "2022-08-30T20:45:30");
+		return;
+	}
+
+	@Test
+	public void unsetTimeZoneFlagAddsUnsetTimezone() throws Exception {
+		XmlGregorianCalendarNormalizer normalizer = XmlGregorianCalendarNormalizer.create("NORMALIZE_TO_UTC", true);
+		XMLGregorianCalendar xmlGregorianCalendar = newCalendar("2022-08-31T02:15:30+05:30");
+		normalizer.normalize(xmlGregorianCalendar);
+		assertEquals("2022-08-30T20:45:30", xmlGregorianCalendar.toXMLFormat());
+		return;
+	}
+
+	@Test
+	public void resolveUnsetsTimezonesByTheOldFlag() throws Exception {
+		for (boolean singlePassResolve : new boolean[] { false, true }) {
+			JaxbIdRefResolverImpl<Document> resolver = createResolver(singlePassResolve);
+			resolver.unsetTimeZoneInXmlGregorianCalandar = Boolean.TRUE;
+			Document document = createDocument("2022-08-31T10:15:30+05:30", "2022-08-31T11:15:30Z");
+			resolver.resolve(document);
+			assertCalendars(document, "2022-08-31T10:15:30", "2022-08-31T11:15:30");
+		}
+		return;
+	}
+
+	@Test
+	public void resolveAppliesThePolicies() throws Exception {
+		for (boolean singlePassResolve : new boolean[] { false, true }) {
+			JaxbIdRefResolverImpl<Document> resolver = createResolver(singlePassResolve);
+			resolver.xmlGregorianCalendarPolicies = "NORMALIZE_TO_UTC, TRUNCATE_FRACTIONAL_SECONDS";
+			Document document = createDocument("2022-08-31T10:15:30.5+05:30", "2022-08-31T11:15:30.25Z");
+			resolver.resolve(document);
+			assertCalendars(document, "2022-08-31T04:45:30Z", "2022-08-31T11:15:30Z");
+		}
+		return;
+	}
+
+	private static void assertNormalized(String policies, String value, String expected) throws Exception {
+		XMLGregorianCalendar xmlGregorianCalendar = newCalendar(value);
+		XmlGregorianCalendarNormalizer.create(policies, false).normalize(xmlGregorianCalendar);
+		assertEquals(expected, xmlGregorianCalendar.toXMLFormat());
+		return;
+	}
+
+	private static void assertCalendars(Document document, String... expected) {
+		List<String> values = new ArrayList<>();
+		values.add(document.created.toXMLFormat());
+		for (Event event : document.events) {
+			values.add(event.time.toXMLFormat());
+		}
+		assertEquals(Arrays.asList(expected), values);
+		return;
+	}
+
+	private static JaxbIdRefResolverImpl<Document> createResolver(boolean singlePassResolve) {
+		JaxbIdRefResolverImpl<Document> resolver = new JaxbIdRefResolverImpl<>();
+		resolver.fixXmlIdRefFields = Boolean.FALSE;
+		resolver.singlePassResolve = singlePassResolve;
+		resolver.setFilteredPackages(Collections.singleton(XmlGregorianCalendarNormalizerTest.class.getName() + "$*"));
+		resolver.setCompileClasses(new ArrayList<String>());
+		resolver.initialize();
+		return resolver;
+	}
+
+	/**
+	 * Creates a document created at the first value with an event at each of
+	 * the other values.
+	 */
+	private static Document createDocument(String... values) throws Exception {
+		Document document = new Document();
+		document.created = newCalendar(values[0]);
+		for (int idx = 1; idx < values.length; idx++) {
+			Event event = new Event();
+			event.time = newCalendar(values[idx]);
+			document.events.add(event);
+		}
+		return document;
+	}
+
+	private static XMLGregorianCalendar newCalendar(String value) throws Exception {
+		return DatatypeFactory.newInstance().newXMLGregorianCalendar(value);
+	}
+
+	static class Document {
+		protected XMLGregorianCalendar created;
+		protected List<Event> events = new ArrayList<>();
+	}
+
+	static class Event {
+		protected XMLGregorianCalendar time;
+	}
+}
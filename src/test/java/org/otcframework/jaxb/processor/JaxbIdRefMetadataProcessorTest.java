@@ -0,0 +1,289 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import javax.xml.bind.annotation.XmlID;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.otcframework.jaxb.JaxbIdRefMetadata;
+import org.otcframework.jaxb.JaxbIdRefMetadataRegistry;
+
+/**
+ * Compiles small JAXB sources with the processor and checks that the metadata
+ * it generates compiles, describes the fields and reads and writes them, and
+ * that an incremental compile keeps the service file entries of the earlier
+ * compiles.
+ */
+public class JaxbIdRefMetadataProcessorTest {
+
+	private static final String SERVICE_FILE = "META-INF/services/" + JaxbIdRefMetadata.class.getName();
+
+	private static final String ORDER_SOURCE = String.join("\n",
+			"package test.model;",
+			"import java.util.ArrayList;",
+			"import java.util.List;",
+			"import java.util.Map;",
+			"import javax.xml.bind.annotation.XmlID;",
+			"import javax.xml.bind.annotation.XmlIDREF;",
+			"import javax.xml.bind.annotation.XmlList;",
+			"import javax.xml.datatype.XMLGregorianCalendar;",
+			"public class Order {",
+			"	@XmlID protected String id;",
+			"	@XmlIDREF @XmlList protected List<Object> refs = new ArrayList<Object>();",
+			"	@XmlIDREF private Object privateRef;",
+			"	protected final List<Line> lines = new ArrayList<Line>();",
+			"	protected Line[] lineArray;",
+			"	protected List<List<Line>> lineGroups;",
+			"	protected Map<String, Line> lineMap;",
+			"	protected XMLGregorianCalendar created;",
+			"	protected int count;",
+			"	protected static Line template;",
+			"	public static class Line {",
+			"		@XmlID protected String id;",
+			"		@XmlIDREF protected Order order;",
+			"		private final Detail detail = new Detail();",
+			"		public static class Detail {",
+			"			@XmlIDREF protected Object[] refs;",
+			"		}",
+			"	}",
+			"	public static class Box<T extends Line> {",
+			"		protected T content;",
+			"		protected List<T> contents;",
+			"		@XmlIDREF protected List<? extends Line> refs;",
+			"	}",
+			"}");
+
+	private static final String INVOICE_SOURCE = String.join("\n",
+			"package test.model;",
+			"import javax.xml.bind.annotation.XmlID;",
+			"import javax.xml.bind.annotation.XmlIDREF;",
+			"public class Invoice {",
+			"	@XmlID protected String id;",
+			"	@XmlIDREF protected Order order;",
+			"}");
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void generatedMetadataCompilesAndDescribesTheFields() throws Exception {
+		Path outputDir = temporaryFolder.newFolder("classes").toPath();
+		compile(outputDir, "Order", ORDER_SOURCE);
+		assertEquals(Arrays.asList("test.model.Order_OtcJaxbIdRefMetadata",
+				"test.model.Order_Line_OtcJaxbIdRefMetadata", "test.model.Order_Line_Detail_OtcJaxbIdRefMetadata",
+				"test.model.Order_Box_OtcJaxbIdRefMetadata"), readServiceFile(outputDir));
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] { outputDir.toUri().toURL() },
+				getClass().getClassLoader())) {
+			Class<?> orderClass = classLoader.loadClass("test.model.Order");
+			Class<?> lineClass = classLoader.loadClass("test.model.Order$Line");
+			Map<String, RegisteredField> fields = register(classLoader, "test.model.Order_OtcJaxbIdRefMetadata");
+			assertEquals(Arrays.asList("id", "refs", "privateRef", "lines", "lineArray", "created"),
+					new ArrayList<>(fields.keySet()));
+			assertField(fields.get("id"), String.class, String.class, true, false);
+			assertField(fields.get("refs"), List.class, Object.class, false, true);
+			assertField(fields.get("lines"), List.class, lineClass, false, false);
+			assertField(fields.get("lineArray"), Array.newInstance(lineClass, 0).getClass(), lineClass, false, false);
+			assertNull(fields.get("privateRef").getter);
+			assertNull(fields.get("privateRef").setter);
+			assertNotNull(fields.get("lines").getter);
+			assertNull(fields.get("lines").setter);
+
+			Object order = orderClass.newInstance();
+			fields.get("id").setter.accept(order, "O1");
+			assertEquals("O1", fields.get("id").getter.apply(order));
+			Field linesField = orderClass.getDeclaredField("lines");
+			linesField.setAccessible(true);
+			assertTrue(linesField.get(order) == fields.get("lines").getter.apply(order));
+
+			Map<String, RegisteredField> lineFields = register(classLoader, "test.model.Order_Line_OtcJaxbIdRefMetadata");
+			assertEquals(Arrays.asList("id", "order", "detail"), new ArrayList<>(lineFields.keySet()));
+			assertNull(lineFields.get("detail").getter);
+			Map<String, RegisteredField> boxFields = register(classLoader, "test.model.Order_Box_OtcJaxbIdRefMetadata");
+			assertEquals(Arrays.asList("content", "refs"), new ArrayList<>(boxFields.keySet()));
+			assertField(boxFields.get("content"), lineClass, lineClass, false, false);
+			Object box = classLoader.loadClass("test.model.Order$Box").newInstance();
+			Object line = lineClass.newInstance();
+			boxFields.get("content").setter.accept(box, line);
+			assertTrue(line == boxFields.get("content").getter.apply(box));
+		}
+		return;
+	}
+
+	/**
+	 * A compile of one more source keeps the entries of the classes compiled
+	 * before, and drops an entry whose metadata class no longer exists.
+	 */
+	@Test
+	public void incrementalCompileKeepsEarlierServiceEntries() throws Exception {
+		Path outputDir = temporaryFolder.newFolder("classes").toPath();
+		compile(outputDir, "Order", ORDER_SOURCE);
+		Path serviceFile = outputDir.resolve(SERVICE_FILE);
+		Files.write(serviceFile, "test.model.Removed_OtcJaxbIdRefMetadata # gone\n".getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+		compile(outputDir, "Invoice", INVOICE_SOURCE);
+		assertEquals(Arrays.asList("test.model.Order_OtcJaxbIdRefMetadata",
+				"test.model.Order_Line_OtcJaxbIdRefMetadata", "test.model.Order_Line_Detail_OtcJaxbIdRefMetadata",
+				"test.model.Order_Box_OtcJaxbIdRefMetadata", "test.model.Invoice_OtcJaxbIdRefMetadata"),
+				readServiceFile(outputDir));
+		return;
+	}
+
+	/**
+	 * Compiles one source into the output directory, with the directory on the
+	 * class path as an incremental build has it.
+	 */
+	private void compile(Path outputDir, String className, String source) throws Exception {
+		JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+		assumeNotNull(javaCompiler);
+		Path sourceFile = temporaryFolder.getRoot().toPath().resolve("src/test/model/" + className + ".java");
+		Files.createDirectories(sourceFile.getParent());
+		Files.write(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+		List<String> classPath = new ArrayList<>();
+		classPath.add(outputDir.toString());
+		addCodeSource(classPath, JaxbIdRefMetadata.class);
+		addCodeSource(classPath, XmlID.class);
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager fileManager = javaCompiler.getStandardFileManager(diagnostics, null,
+				StandardCharsets.UTF_8)) {
+			List<String> options = Arrays.asList("-d", outputDir.toString(), "-classpath",
+					String.join(File.pathSeparator, classPath), "-processor",
+					JaxbIdRefMetadataProcessor.class.getName(),
+					"-A" + JaxbIdRefMetadataProcessor.PACKAGES_OPTION + "=test.model");
+			boolean isCompiled = javaCompiler.getTask(null, fileManager, diagnostics, options, null,
+					fileManager.getJavaFileObjects(sourceFile.toFile())).call();
+			StringBuilder errors = new StringBuilder();
+			for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+				if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+					errors.append(diagnostic).append('\n');
+				}
+			}
+			assertTrue(errors.toString(), isCompiled);
+		}
+		return;
+	}
+
+	private static void addCodeSource(List<String> classPath, Class<?> type) throws URISyntaxException {
+		CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+		if (codeSource != null && codeSource.getLocation() != null) {
+			classPath.add(new File(codeSource.getLocation().toURI()).toString());
+		}
+		return;
+	}
+
+	private static List<String> readServiceFile(Path outputDir) throws Exception {
+		List<String> classNames = new ArrayList<>();
+		for (String line : Files.readAllLines(outputDir.resolve(SERVICE_FILE), StandardCharsets.UTF_8)) {
+			if (!line.trim().isEmpty()) {
+				classNames.add(line.trim());
+			}
+		}
+		return classNames;
+	}
+
+	private static Map<String, RegisteredField> register(ClassLoader classLoader, String metadataClassName)
+			throws Exception {
+		JaxbIdRefMetadata metadata = (JaxbIdRefMetadata) classLoader.loadClass(metadataClassName).newInstance();
+		RecordingRegistry registry = new RecordingRegistry();
+		metadata.register(registry);
+		return registry.fields;
+	}
+
+	private static void assertField(RegisteredField field, Class<?> fieldType, Class<?> componentType, boolean xmlId,
+			boolean xmlIdRef) {
+		assertEquals(fieldType, field.fieldType);
+		assertEquals(componentType, field.componentType);
+		assertEquals(xmlId, field.xmlId);
+		assertEquals(xmlIdRef, field.xmlIdRef);
+		return;
+	}
+
+	private static final class RecordingRegistry implements JaxbIdRefMetadataRegistry {
+
+		private final Map<String, RegisteredField> fields = new LinkedHashMap<>();
+
+		@Override
+		public void addClass(Class<?> type) {
+			return;
+		}
+
+		@Override
+		public void addField(Class<?> declaringClass, String name, Class<?> fieldType, Class<?> componentType,
+				boolean xmlId, boolean xmlIdRef, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+			fields.put(name, new RegisteredField(fieldType, componentType, xmlId, xmlIdRef, getter, setter));
+			return;
+		}
+	}
+
+	private static final class RegisteredField {
+
+		private final Class<?> fieldType;
+		private final Class<?> componentType;
+		private final boolean xmlId;
+		private final boolean xmlIdRef;
+		private final Function<Object, Object> getter;
+		private final BiConsumer<Object, Object> setter;
+
+		private RegisteredField(Class<?> fieldType, Class<?> componentType, boolean xmlId, boolean xmlIdRef,
+				Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+			this.fieldType = fieldType;
+			this.componentType = componentType;
+			this.xmlId = xmlId;
+			this.xmlIdRef = xmlIdRef;
+			this.getter = getter;
+			this.setter = setter;
+		}
+	}
+}
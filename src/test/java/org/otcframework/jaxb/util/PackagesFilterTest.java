@@ -0,0 +1,139 @@
+/**
+* Copyright (c) otcframework.org
+*
+* @author  Franklin J Abel (frank.a.otc@gmail.com)
+* @version 1.0
+* @since   2022-08-31
+*
+* This file is part of the OTC framework's JAXB ID Resolver project.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*      https://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*
+*/
+package org.otcframework.jaxb.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.otcframework.jaxb.impl.JaxbIdRefResolverImpl;
+
+/**
+ * Matches class names against package filters of each form, and checks that a
+ * resolver without packages of its own follows the shared filter.
+ */
+public class PackagesFilterTest {
+
+	@Test
+	public void packagesMatchTheirClassesAndSubPackages() {
+		PackagesFilter packagesFilter = createPackagesFilter("com.foo");
+		assertTrue(packagesFilter.isFilteredPackage("com.foo.Bar"));
+		assertTrue(packagesFilter.isFilteredPackage("com.foo.bar.Baz"));
+		assertTrue(packagesFilter.isFilteredPackage("com.foo.Bar$Inner"));
+		assertFalse(packagesFilter.isFilteredPackage("com.foo"));
+		assertFalse(packagesFilter.isFilteredPackage("com.Bar"));
+		assertFalse(packagesFilter.isFilteredPackage("org.foo.Bar"));
+		return;
+	}
+
+	@Test
+	public void packagesDoNotMatchSiblingsSharingTheirPrefix() {
+		PackagesFilter packagesFilter = createPackagesFilter("com.foo");
+		assertFalse(packagesFilter.isFilteredPackage("com.foobar.Baz"));
+		assertFalse(packagesFilter.isFilteredPackage("com.fooBar"));
+		assertFalse(packagesFilter.isFilteredPackage("com.fo.Bar"));
+		return;
+	}
+
+	@Test
+	public void trailingDotsMatchLikePackages() {
+		PackagesFilter packagesFilter = createPackagesFilter("com.foo.");
+		assertTrue(packagesFilter.isFilteredPackage("com.foo.Bar"));
+		assertTrue(packagesFilter.isFilteredPackage("com.foo.bar.Baz"));
+		assertFalse(packagesFilter.isFilteredPackage("com.foobar.Baz"));
+		return;
+	}
+
+	@Test
+	public void wildcardsMatchEveryNameWithTheirPrefix() {
+		PackagesFilter packagesFilter = createPackagesFilter("com.foo*");
+		assertTrue(packagesFilter.isFilteredPackage("com.foo.Bar"));
+		assertTrue(packagesFilter.isFilteredPackage("com.foobar.Baz"));
+		assertTrue(packagesFilter.isFilteredPackage("com.foo"));
+		assertFalse(packagesFilter.isFilteredPackage("com.fo.Bar"));
+		PackagesFilter everything = createPackagesFilter("*");
+		assertTrue(everything.isFilteredPackage("com.foo.Bar"));
+		assertTrue(everything.isFilteredPackage("Bar"));
+		return;
+	}
+
+	@Test
+	public void severalPackagesMatchTogether() {
+		PackagesFilter packagesFilter = createPackagesFilter("com.foo", "com.foo.bar", "org.baz*");
+		assertTrue(packagesFilter.isFilteredPackage("com.foo.Bar"));
+		assertTrue(packagesFilter.isFilteredPackage("com.foo.bar.Baz"));
+		assertTrue(packagesFilter.isFilteredPackage("org.bazaar.Stall"));
+		assertFalse(packagesFilter.isFilteredPackage("org.ba.Stall"));
+		assertFalse(PackagesFilter.EMPTY.isFilteredPackage("com.foo.Bar"));
+		return;
+	}
+
+	@Test
+	public void classesAndArraysMatchByTheirNames() {
+		PackagesFilter packagesFilter = createPackagesFilter(PackagesFilterTest.class.getName() + "$*");
+		assertTrue(packagesFilter.isFilteredPackage(Member.class));
+		assertTrue(packagesFilter.isFilteredPackage(Member[][].class));
+		assertFalse(packagesFilter.isFilteredPackage(PackagesFilterTest.class));
+		assertFalse(packagesFilter.isFilteredPackage(String[].class));
+		return;
+	}
+
+	/**
+	 * The shared filter is read on every call, so a resolver initialized before
+	 * the shared packages were set still sees them.
+	 */
+	@Test
+	public void resolversWithoutPackagesFollowTheSharedFilter() {
+		PackagesFilter sharedFilter = PackagesFilterUtil.getPackagesFilter();
+		try {
+			JaxbIdRefResolverImpl<Object> resolver = new JaxbIdRefResolverImpl<>();
+			resolver.setCompileClasses(new ArrayList<String>());
+			resolver.initialize();
+			PackagesFilterUtil.setFilteredPackages(Collections.singleton("com.foo"));
+			assertSame(PackagesFilterUtil.getPackagesFilter(), resolver.getPackagesFilter());
+			assertTrue(resolver.getPackagesFilter().isFilteredPackage("com.foo.Bar"));
+			resolver.setFilteredPackages(Collections.singleton("org.baz"));
+			PackagesFilterUtil.setFilteredPackages(Collections.singleton("com.qux"));
+			assertEquals(Collections.singleton("org.baz"), resolver.getPackagesFilter().getPackages());
+		} finally {
+			PackagesFilterUtil.setFilteredPackages(sharedFilter.getPackages());
+		}
+		return;
+	}
+
+	private static PackagesFilter createPackagesFilter(String... packages) {
+		Set<String> pkgsToFilter = new HashSet<>(Arrays.asList(packages));
+		return new PackagesFilter(pkgsToFilter);
+	}
+
+	static class Member {
+	}
+}